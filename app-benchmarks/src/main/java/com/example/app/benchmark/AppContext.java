@@ -0,0 +1,121 @@
+package com.example.app.benchmark;
+
+import com.example.app.Application;
+import com.example.app.dto.CreatePlanDto;
+import com.example.app.dto.CreateQuarterlyReportDto;
+import com.example.app.dto.CreateUserDto;
+import com.example.app.dto.PlanDto;
+import com.example.app.dto.UserDto;
+import com.example.app.entity.UserRole;
+import com.example.app.service.PlanService;
+import com.example.app.service.QuarterlyReportService;
+import com.example.app.service.UserService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Приложение целиком, без веб-сервера, на H2 в памяти в режиме PostgreSQL. Поднимается один раз на форк
+// и заполняется небольшим набором данных: пользователи, планы с исполнителями и отчеты за несколько лет
+@State(Scope.Benchmark)
+public class AppContext {
+    public static final String PASSWORD = "benchmark-password";
+    public static final int USERS = 10;
+    public static final int PLANS = 50;
+    public static final int EXECUTORS_PER_PLAN = 5;
+    public static final int REPORTS = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private Path storageRoot;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> planIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        storageRoot = Files.createTempDirectory("app-benchmarks");
+        // Аргументами командной строки: они перекрывают application.properties приложения
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmarks;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--app.storage.type=local",
+                        "--app.storage.local.root=" + storageRoot.resolve("files"),
+                        "--app.preview.directory=" + storageRoot.resolve("previews"));
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(storageRoot);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public List<Long> userIds() {
+        return userIds;
+    }
+
+    public List<Long> planIds() {
+        return planIds;
+    }
+
+    public static String email(int index) {
+        return "user" + index + "@benchmark.local";
+    }
+
+    private void seed() {
+        UserService userService = bean(UserService.class);
+        for (int i = 0; i < USERS; i++) {
+            UserDto user = userService.create(new CreateUserDto(email(i), PASSWORD, "Пользователь " + i,
+                    i == 0 ? UserRole.ADMIN : UserRole.EXECUTOR));
+            userIds.add(user.id());
+        }
+
+        PlanService planService = bean(PlanService.class);
+        for (int i = 0; i < PLANS; i++) {
+            Set<Long> executors = new LinkedHashSet<>();
+            for (int j = 0; j < EXECUTORS_PER_PLAN; j++) {
+                executors.add(userIds.get(1 + (i + j) % (USERS - 1)));
+            }
+            PlanDto plan = planService.create(new CreatePlanDto("План " + i, "Описание плана " + i,
+                    BigDecimal.valueOf(1000 + i), LocalDate.of(2020, 1, 1), LocalDate.of(2030, 12, 31),
+                    executors, null), userIds.get(0));
+            planIds.add(plan.id());
+        }
+
+        List<CreateQuarterlyReportDto> reports = new ArrayList<>(REPORTS);
+        for (int i = 0; i < REPORTS; i++) {
+            boolean assessed = i % 3 == 0;
+            reports.add(new CreateQuarterlyReportDto(planIds.get(i % PLANS), userIds.get(1 + i % (USERS - 1)),
+                    2015 + (i / 200) % 10, 1 + i % 4,
+                    BigDecimal.valueOf(i % 1000, 2), assessed ? 1 + i % 5 : null, null));
+        }
+        // Импортирует администратор: он же оценивший у отчетов с оценкой
+        bean(QuarterlyReportService.class).bulkCreate(reports, userIds.get(0));
+    }
+}
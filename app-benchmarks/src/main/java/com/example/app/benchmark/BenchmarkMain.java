@@ -0,0 +1,29 @@
+package com.example.app.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Запуск JMH с результатами в JSON (jmh-result.json в текущей папке), если формат не задан явно,
+// и с профайлером gc, если профайлеры не заданы: gc.alloc.rate.norm — байт памяти на операцию.
+// Файлы двух сборок сравниваются, например, на jmh.morethan.io. Аргументы — как у JMH:
+// регулярка для отбора бенчмарков, -f, -wi, -i, -p size=1000 и т.д.; -h — справка
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(List.of(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.addAll(List.of("-rf", "json"));
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        if (!jmhArgs.contains("-prof")) {
+            jmhArgs.addAll(List.of("-prof", "gc"));
+        }
+        Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
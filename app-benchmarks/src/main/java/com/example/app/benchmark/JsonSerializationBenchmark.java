@@ -0,0 +1,45 @@
+package com.example.app.benchmark;
+
+import com.example.app.dto.QuarterlyReportDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация больших списков отчетов (GET /api/reports, выгрузки) ObjectMapper-ом, настроенным как в приложении
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<QuarterlyReportDto> reports;
+
+    @Setup(Level.Trial)
+    public void setUp(AppContext app) {
+        objectMapper = app.bean(ObjectMapper.class);
+        reports = new ArrayList<>(size);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 4, 1, 12, 30, 15, 123_456_000);
+        for (int i = 0; i < size; i++) {
+            boolean assessed = i % 3 == 0;
+            reports.add(new QuarterlyReportDto((long) i, (long) i % 7, (long) (i % 50), (long) (i % 10),
+                    assessed ? 1L : null, 2015 + i % 10, 1 + i % 4, BigDecimal.valueOf(i, 2),
+                    assessed ? 1 + i % 5 : null, createdAt.plusMinutes(i)));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeReports() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reports);
+    }
+}
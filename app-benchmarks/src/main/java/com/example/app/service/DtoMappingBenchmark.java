@@ -0,0 +1,131 @@
+package com.example.app.service;
+
+import com.example.app.benchmark.AppContext;
+import com.example.app.dto.CursorPageDto;
+import com.example.app.dto.PlanDto;
+import com.example.app.dto.QuarterlyReportDto;
+import com.example.app.dto.QuarterlyReportFilterDto;
+import com.example.app.entity.Plan;
+import com.example.app.entity.QuarterlyReport;
+import com.example.app.entity.User;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Сборка DTO планов и отчетов: отдельно преобразование сущностей в памяти и целиком чтение страницы
+// или списка из БД (H2) с преобразованием. Списки читаются двумя путями: проекциями, как в сервисах,
+// и для сравнения прежним способом — управляемые сущности в транзакции и toDto. Память на запрос —
+// gc.alloc.rate.norm профайлера gc (BenchmarkMain включает его по умолчанию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+    private static final QuarterlyReportFilterDto NO_FILTER =
+            new QuarterlyReportFilterDto(null, null, null, null, null, null, null);
+
+    @Param({"1000"})
+    private int size;
+
+    private PlanService planService;
+    private QuarterlyReportService quarterlyReportService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private List<Plan> plans;
+    private List<QuarterlyReport> reports;
+
+    @Setup(Level.Trial)
+    public void setUp(AppContext app) {
+        planService = app.bean(PlanService.class);
+        quarterlyReportService = app.bean(QuarterlyReportService.class);
+        entityManager = app.bean(EntityManager.class);
+        transactionTemplate = app.bean(TransactionTemplate.class);
+
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            users.add(User.builder().id(id).version(0L).email("user" + id + "@benchmark.local").build());
+        }
+        plans = new ArrayList<>(size);
+        reports = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            Set<User> executors = new HashSet<>(users.subList(i % 15, i % 15 + AppContext.EXECUTORS_PER_PLAN));
+            Plan plan = Plan.builder().id((long) i).version(0L).name("План " + i).description("Описание")
+                    .targetValue(BigDecimal.valueOf(1000)).startDate(LocalDate.of(2024, 1, 1))
+                    .endDate(LocalDate.of(2024, 12, 31)).executors(executors).createdByUser(users.get(0))
+                    .createdAt(now).build();
+            plans.add(plan);
+            reports.add(QuarterlyReport.builder().id((long) i).version(0L).plan(plan)
+                    .reportingUser(users.get(1 + i % 19)).assessedByUser(i % 2 == 0 ? users.get(0) : null)
+                    .year(2024).quarter(1 + i % 4).actualValue(BigDecimal.valueOf(i, 2))
+                    .analystAssessmentScore(i % 2 == 0 ? 1 + i % 5 : null).createdAt(now).build());
+        }
+    }
+
+    @Benchmark
+    public List<PlanDto> plansToDto() {
+        List<PlanDto> result = new ArrayList<>(plans.size());
+        for (Plan plan : plans) {
+            result.add(planService.toDto(plan));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<QuarterlyReportDto> reportsToDto() {
+        List<QuarterlyReportDto> result = new ArrayList<>(reports.size());
+        for (QuarterlyReport report : reports) {
+            result.add(quarterlyReportService.toDto(report));
+        }
+        return result;
+    }
+
+    // Список планов с исполнителями: кэшируемые запросы Hibernate и сборка DTO из проекций
+    @Benchmark
+    public List<PlanDto> planList() {
+        return planService.getAll();
+    }
+
+    // Прежний путь: планы с исполнителями одним запросом (граф загрузки) и toDto по сущностям
+    @Benchmark
+    public List<PlanDto> planListEntities() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select distinct p from Plan p left join fetch p.executors", Plan.class)
+                .getResultStream()
+                .map(planService::toDto)
+                .toList());
+    }
+
+    // Все отчеты (5000) проекцией в DTO: ни сущностей, ни снимков для dirty checking
+    @Benchmark
+    public List<QuarterlyReportDto> reportList() {
+        return quarterlyReportService.getAll();
+    }
+
+    // Прежний путь: все отчеты сущностями в транзакции на запись и toDto
+    @Benchmark
+    public List<QuarterlyReportDto> reportListEntities() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select r from QuarterlyReport r", QuarterlyReport.class)
+                .getResultStream()
+                .map(quarterlyReportService::toDto)
+                .toList());
+    }
+
+    // Первая страница отчетов без фильтров (200 строк): запрос по индексу и преобразование сущностей
+    @Benchmark
+    public CursorPageDto<QuarterlyReportDto> reportPage() {
+        return quarterlyReportService.getPage(NO_FILTER, null, 200);
+    }
+}
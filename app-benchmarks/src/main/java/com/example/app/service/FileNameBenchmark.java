@@ -0,0 +1,36 @@
+package com.example.app.service;
+
+import com.example.app.benchmark.AppContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Проверка расширения загружаемого файла и имя для хранения. Расширения выбраны из начала и конца
+// списка допустимых, имена — короткое латиницей и длинное кириллицей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameBenchmark {
+    @Param({"photo.jpg", "Отчет по исполнению плана за второй квартал 2024 года (итог).xlsx", "backup.tar.bz2"})
+    private String filename;
+
+    private FileService fileService;
+
+    @Setup(Level.Trial)
+    public void setUp(AppContext app) {
+        fileService = app.bean(FileService.class);
+    }
+
+    @Benchmark
+    public String validateFilename() {
+        return fileService.validateFilename(filename);
+    }
+
+    @Benchmark
+    public String generateUniqueFilename() {
+        return FileService.generateUniqueFilename(filename);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.app.service;
+
+import com.example.app.benchmark.AppContext;
+import com.example.app.dto.TokenResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Вход по паролю целиком: поиск пользователя, проверка BCrypt на пуле PasswordHasher и выпуск токенов.
+// Время почти целиком определяется app.password.cost, цена одного cost — в PasswordBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+    private UserService userService;
+    private String email;
+
+    @Setup(Level.Trial)
+    public void setUp(AppContext app) {
+        userService = app.bean(UserService.class);
+        email = AppContext.email(1);
+    }
+
+    @Benchmark
+    public TokenResponseDto authenticate() {
+        return userService.authenticate(email, AppContext.PASSWORD).join();
+    }
+}
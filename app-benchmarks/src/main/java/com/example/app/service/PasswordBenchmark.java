@@ -0,0 +1,40 @@
+package com.example.app.service;
+
+import com.example.app.benchmark.AppContext;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность BCrypt на одном потоке при разных cost — основание для app.password.cost:
+// проверок в секунду на ядро, умноженное на app.password.threads, — потолок входов в секунду.
+// Приложение не поднимается, считается только BCrypt
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+    @Param({"8", "10", "12"})
+    private int cost;
+
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hash = BCrypt.hashpw(AppContext.PASSWORD, BCrypt.gensalt(cost));
+    }
+
+    // Создание пользователя и смена пароля
+    @Benchmark
+    public String hash() {
+        return BCrypt.hashpw(AppContext.PASSWORD, BCrypt.gensalt(cost));
+    }
+
+    // Вход
+    @Benchmark
+    public boolean verify() {
+        return BCrypt.checkpw(AppContext.PASSWORD, hash);
+    }
+}
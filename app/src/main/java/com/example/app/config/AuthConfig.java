@@ -0,0 +1,34 @@
+package com.example.app.config;
+
+import com.example.app.service.TokenService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(AuthProperties.class)
+public class AuthConfig implements WebMvcConfigurer {
+    private final TokenService tokenService;
+    private final AuthProperties properties;
+
+    public AuthConfig(TokenService tokenService, AuthProperties properties) {
+        this.tokenService = tokenService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TokenAuthInterceptor(tokenService, properties))
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/users/auth", "/api/users/auth/refresh");
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new AuthenticatedUserArgumentResolver());
+    }
+}
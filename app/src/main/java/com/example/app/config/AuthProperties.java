@@ -0,0 +1,18 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Токены входа: secret — ключ HMAC (не короче 32 байт, общий для всех узлов; пустой — случайный на время
+// работы процесса). required — требовать access-токен на всех /api, кроме входа и обновления токена;
+// false пропускает без токена только чтение: создание и правка берут автора из токена
+@ConfigurationProperties(prefix = "app.auth")
+public record AuthProperties(
+        String secret,
+        @DefaultValue("15m") Duration accessTtl,
+        @DefaultValue("14d") Duration refreshTtl,
+        @DefaultValue("true") boolean required
+) {
+}
@@ -0,0 +1,33 @@
+package com.example.app.config;
+
+import com.example.app.dto.AuthenticatedUser;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+// Параметр AuthenticatedUser в методе контроллера — пользователь из access-токена, проверенного
+// TokenAuthInterceptor. Без токена (возможно только при app.auth.required=false) — 401:
+// автора, оценившего и т.п. клиент больше не передает в теле запроса. Параметр с @Nullable получает null
+// (регистрация: анонимно или администратором)
+class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                             NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object user = webRequest.getAttribute(AuthenticatedUser.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (user == null && !parameter.isOptional()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+        return (AuthenticatedUser) user;
+    }
+}
@@ -15,7 +15,9 @@ public class CorsConfig {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**")
                         .allowedOrigins("*")
-                        .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS");
+                        .allowedMethods("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
+                        // Заголовки докачиваемой загрузки должны быть видны браузерному клиенту
+                        .exposedHeaders("Location", "Upload-Offset", "Upload-Length", "Tus-Resumable");
             }
         };
     }
@@ -0,0 +1,19 @@
+package com.example.app.config;
+
+import com.example.app.service.FileService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+// До старта веб-сервера: пока пересчитываются ссылки, документы не должны создаваться и удаляться
+@Component
+@RequiredArgsConstructor
+public class LegacyFileAdoptionRunner implements SmartInitializingSingleton {
+    private final FileService fileService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        fileService.adoptLegacyFiles();
+        fileService.recountReferences();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Хеширование паролей: cost — показатель сложности BCrypt (каждая единица удваивает время),
+// threads (0 — по числу ядер) и queueCapacity ограничивают одновременную работу; сверх очереди — 429
+@ConfigurationProperties(prefix = "app.password")
+public record PasswordProperties(
+        @DefaultValue("10") int cost,
+        @DefaultValue("0") int threads,
+        @DefaultValue("100") int queueCapacity
+) {
+}
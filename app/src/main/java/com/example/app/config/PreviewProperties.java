@@ -0,0 +1,18 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Миниатюры: size — длинная сторона в пикселях; threads и queueCapacity ограничивают фоновую работу,
+// waitTimeout — сколько запрос ждет миниатюру, которой еще нет в кэше
+@ConfigurationProperties(prefix = "app.preview")
+public record PreviewProperties(
+        @DefaultValue("uploaded-files/previews") String directory,
+        @DefaultValue("320") int size,
+        @DefaultValue("2") int threads,
+        @DefaultValue("200") int queueCapacity,
+        @DefaultValue("5s") Duration waitTimeout
+) {
+}
@@ -0,0 +1,12 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Отчеты: bulkMaxSize — сколько строк принимает один POST /api/reports/bulk (весь импорт идет одной
+// транзакцией и держится в памяти); больше — 413, клиент делит импорт на части
+@ConfigurationProperties(prefix = "app.reports")
+public record ReportProperties(
+        @DefaultValue("5000") int bulkMaxSize
+) {
+}
@@ -0,0 +1,18 @@
+package com.example.app.config;
+
+import com.example.app.service.PlanRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RollupBackfillRunner implements ApplicationRunner {
+    private final PlanRollupService planRollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        planRollupService.backfillIfEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Поиск: language — конфигурация текстового поиска PostgreSQL; extraction* — фоновое извлечение текста
+// из документов; maxTextLength — сколько символов текста файла индексируется (tsvector ограничен 1 МБ)
+@ConfigurationProperties(prefix = "app.search")
+public record SearchProperties(
+        @DefaultValue("russian") String language,
+        @DefaultValue("1") int extractionThreads,
+        @DefaultValue("1000") int extractionQueueCapacity,
+        @DefaultValue("200000") int maxTextLength
+) {
+}
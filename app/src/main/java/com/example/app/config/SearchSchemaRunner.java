@@ -0,0 +1,70 @@
+package com.example.app.config;
+
+import com.example.app.service.TextExtractionService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Колонки search_vector и GIN-индексы для полнотекстового поиска. Hibernate таких типов не создает,
+// поэтому DDL здесь. Колонки генерируемые: PostgreSQL сам пересчитывает вектор при изменении текста,
+// триггеры и пересчет в приложении не нужны. Если app.search.language сменился, колонка пересоздается
+@Component
+@RequiredArgsConstructor
+public class SearchSchemaRunner implements ApplicationRunner {
+    private static final Pattern LANGUAGE = Pattern.compile("[a-z_]+");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchProperties searchProperties;
+    private final TextExtractionService textExtractionService;
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchSchemaRunner.class);
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+        }
+        // Язык подставляется в DDL строкой, поэтому допускаем только имя конфигурации
+        String language = searchProperties.language();
+        if (!LANGUAGE.matcher(language).matches()) {
+            throw new IllegalStateException("app.search.language must be a text search configuration name: " + language);
+        }
+        ensureVector("plans", "setweight(to_tsvector('" + language + "', coalesce(name, '')), 'A') || "
+                + "setweight(to_tsvector('" + language + "', coalesce(description, '')), 'B')", language);
+        ensureVector("comments", "to_tsvector('" + language + "', text)", language);
+        ensureVector("file_texts", "to_tsvector('" + language + "', content)", language);
+
+        textExtractionService.backfill();
+    }
+
+    private void ensureVector(String table, String expression, String language) {
+        List<String> current = jdbcTemplate.queryForList("SELECT generation_expression FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'search_vector'",
+                String.class, table);
+        if (!current.isEmpty() && current.get(0) != null && current.get(0).contains("'" + language + "'")) {
+            return;
+        }
+        if (!current.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN search_vector");
+        }
+        // Добавление генерируемой колонки переписывает таблицу под блокировкой — это однократно при обновлении
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN search_vector tsvector GENERATED ALWAYS AS ("
+                + expression + ") STORED");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_search_vector ON " + table
+                + " USING GIN (search_vector)");
+        logger.info("Created full-text search column on {} ({})", table, language);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.app.config;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// quarterly_reports раньше заполнялась через IDENTITY. Сдвигаем последовательность за max(id),
+// чтобы пул идентификаторов Hibernate (allocationSize = 50) не пересекся с существующими строками.
+// Выполняется после создания бинов (схема уже обновлена), но до старта веб-сервера: ApplicationRunner
+// запускается, когда порт уже открыт, и первый POST мог бы получить занятый id
+@Component
+@RequiredArgsConstructor
+public class SequenceAlignmentRunner implements SmartInitializingSingleton {
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAlignmentRunner.class);
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM quarterly_reports", Long.class);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM quarterly_reports_seq", Long.class);
+        if (maxId != null && lastValue != null && lastValue - ALLOCATION_SIZE < maxId) {
+            jdbcTemplate.queryForObject("SELECT setval('quarterly_reports_seq', ?)", Long.class, maxId + ALLOCATION_SIZE);
+            logger.info("Moved quarterly_reports_seq past existing id {}", maxId);
+        }
+    }
+}
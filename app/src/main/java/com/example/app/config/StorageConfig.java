@@ -0,0 +1,72 @@
+package com.example.app.config;
+
+import com.example.app.service.LocalStorageBackend;
+import com.example.app.service.S3StorageBackend;
+import com.example.app.service.StorageBackend;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+@EnableConfigurationProperties({StorageProperties.class, UploadProperties.class, PreviewProperties.class,
+        PasswordProperties.class, SearchProperties.class, ReportProperties.class})
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(StorageProperties properties) {
+        return new LocalStorageBackend(Paths.get(properties.local().root()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+    public StorageBackend s3StorageBackend(StorageProperties properties) {
+        StorageProperties.S3 s3 = properties.s3();
+        if (s3.bucket() == null || s3.bucket().isBlank()) {
+            throw new IllegalStateException("app.storage.s3.bucket must be set when app.storage.type=s3");
+        }
+        // Без явных ключей — стандартная цепочка AWS (переменные окружения, профиль, роль инстанса)
+        AwsCredentialsProvider credentials = s3.accessKey() != null && !s3.accessKey().isBlank()
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(s3.accessKey(), s3.secretKey()))
+                : DefaultCredentialsProvider.create();
+        S3Configuration serviceConfiguration = S3Configuration.builder()
+                .pathStyleAccessEnabled(s3.pathStyleAccess())
+                .build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(s3.region()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(s3.region()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        if (s3.endpoint() != null && !s3.endpoint().isBlank()) {
+            // Не-AWS хранилища часто не понимают aws-chunked с контрольной суммой в trailer,
+            // которую SDK по умолчанию добавляет к каждой загрузке
+            clientBuilder.endpointOverride(URI.create(s3.endpoint()))
+                    .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED);
+        }
+        String presignEndpoint = s3.publicEndpoint() != null && !s3.publicEndpoint().isBlank()
+                ? s3.publicEndpoint() : s3.endpoint();
+        if (presignEndpoint != null && !presignEndpoint.isBlank()) {
+            presignerBuilder.endpointOverride(URI.create(presignEndpoint));
+        }
+
+        return new S3StorageBackend(clientBuilder.build(), presignerBuilder.build(), s3.bucket(),
+                s3.partSize().toBytes(), s3.uploadConcurrency(), s3.presignTtl());
+    }
+}
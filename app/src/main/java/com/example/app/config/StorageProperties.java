@@ -0,0 +1,41 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+// app.storage.type: local — файлы на диске узла; s3 — S3-совместимое хранилище (AWS, MinIO)
+@ConfigurationProperties(prefix = "app.storage")
+public record StorageProperties(
+        @DefaultValue("local") String type,
+        @DefaultValue Local local,
+        @DefaultValue S3 s3
+) {
+    // Сюда пишутся загрузки до переноса в хранилище; на том же диске, что и root, чтобы перенос был переименованием
+    public Path stagingDirectory() {
+        return Paths.get(local.root()).toAbsolutePath().normalize().resolve("tmp");
+    }
+
+    // root также служит промежуточной папкой для загрузок при любом type
+    public record Local(@DefaultValue("uploaded-files") String root) {
+    }
+
+    // publicEndpoint — адрес для presigned-ссылок, если браузер видит хранилище не там же, где приложение
+    public record S3(
+            String bucket,
+            String endpoint,
+            String publicEndpoint,
+            @DefaultValue("us-east-1") String region,
+            String accessKey,
+            String secretKey,
+            @DefaultValue("false") boolean pathStyleAccess,
+            @DefaultValue("8MB") DataSize partSize,
+            @DefaultValue("4") int uploadConcurrency,
+            @DefaultValue("15m") Duration presignTtl
+    ) {
+    }
+}
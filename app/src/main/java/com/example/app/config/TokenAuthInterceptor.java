@@ -0,0 +1,71 @@
+package com.example.app.config;
+
+import com.example.app.dto.AuthenticatedUser;
+import com.example.app.service.TokenService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.List;
+
+// Проверка access-токена из заголовка Authorization: только подпись и срок, без обращения к БД.
+// Неверный или просроченный токен — 401 (клиент обменивает refresh-токен и повторяет запрос);
+// запрос без токена проходит, только если app.auth.required=false. Адреса, которые браузер открывает сам —
+// EventSource, <img>, ссылки на скачивание, — не могут нести заголовок, поэтому для них (только GET)
+// токен можно передать параметром access_token. Токен живет 15 минут, но попадает в журналы доступа
+@RequiredArgsConstructor
+public class TokenAuthInterceptor implements HandlerInterceptor {
+    private static final String BEARER = "Bearer ";
+    private static final String TOKEN_PARAMETER = "access_token";
+    private static final List<String> LINK_PATTERNS = List.of(
+            "/api/*/*/events",
+            "/api/documents/*/download",
+            "/api/documents/*/preview",
+            "/api/files/download/*",
+            "/api/*/export");
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+    // Регистрация (страница /register) — до входа, токена еще нет
+    private static final String REGISTRATION_PATH = "/api/users";
+
+    private final TokenService tokenService;
+    private final AuthProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Повторный проход после завершения потока: токен проверен при открытии и мог с тех пор истечь
+        if (CorsUtils.isPreFlightRequest(request) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String token = null;
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            token = header.substring(BEARER.length()).trim();
+        } else if (HttpMethod.GET.matches(request.getMethod()) && isLink(request.getRequestURI())) {
+            token = request.getParameter(TOKEN_PARAMETER);
+        }
+        if (token != null && !token.isBlank()) {
+            AuthenticatedUser user = tokenService.verifyAccess(token);
+            request.setAttribute(AuthenticatedUser.ATTRIBUTE, user);
+            return true;
+        }
+        boolean registration = HttpMethod.POST.matches(request.getMethod())
+                && REGISTRATION_PATH.equals(request.getRequestURI());
+        if (properties.required() && !registration) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication required");
+        }
+        return true;
+    }
+
+    private static boolean isLink(String uri) {
+        return LINK_PATTERNS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, uri));
+    }
+}
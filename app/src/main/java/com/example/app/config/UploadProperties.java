@@ -0,0 +1,18 @@
+package com.example.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+// maxSize действует и для обычной, и для докачиваемой загрузки;
+// незавершенные докачиваемые загрузки удаляются через resumableExpiry, а загруженные файлы, на которые
+// не ссылается ни один документ, — через unreferencedExpiry после последней загрузки или удаления документа
+@ConfigurationProperties(prefix = "app.upload")
+public record UploadProperties(
+        @DefaultValue("100MB") DataSize maxSize,
+        @DefaultValue("24h") Duration resumableExpiry,
+        @DefaultValue("24h") Duration unreferencedExpiry
+) {
+}
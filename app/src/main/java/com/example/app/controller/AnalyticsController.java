@@ -0,0 +1,46 @@
+package com.example.app.controller;
+
+import com.example.app.dto.AnalyticsDto;
+import com.example.app.dto.AnalyticsFilterDto;
+import com.example.app.dto.AuthenticatedUser;
+import com.example.app.service.AnalyticsService;
+import com.example.app.service.ChangeCounterService;
+import com.example.app.service.PlanRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+    private final AnalyticsService service;
+    private final PlanRollupService planRollupService;
+    private final ChangeCounterService changeCounterService;
+
+    @GetMapping
+    public ResponseEntity<AnalyticsDto> get(AnalyticsFilterDto filter, WebRequest request) {
+        // Планы становятся завершенными со сменой даты, без изменения таблиц
+        LocalDate today = LocalDate.now();
+        return ConditionalGet.ok(request, changeCounterService.tag(today, ChangeCounterService.PLANS,
+                        ChangeCounterService.REPORTS, ChangeCounterService.USERS),
+                () -> service.getAnalytics(filter, today));
+    }
+
+    // Полный пересчет plan_quarter_rollup (первичное заполнение или восстановление)
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Integer> rebuildRollup(AuthenticatedUser user) {
+        if (!user.isAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only ADMIN can rebuild the rollup");
+        }
+        return ResponseEntity.ok(planRollupService.rebuild());
+    }
+}
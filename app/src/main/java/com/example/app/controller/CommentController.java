@@ -1,12 +1,16 @@
 package com.example.app.controller;
 
+import com.example.app.dto.AuthenticatedUser;
 import com.example.app.dto.CommentDto;
 import com.example.app.dto.CreateCommentDto;
+import com.example.app.dto.CursorPageDto;
+import com.example.app.service.ChangeCounterService;
 import com.example.app.service.CommentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,20 +19,34 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CommentController {
     private final CommentService commentService;
+    private final ChangeCounterService changeCounterService;
 
     @PostMapping
-    public ResponseEntity<CommentDto> create(@Valid @RequestBody CreateCommentDto dto) {
-        return ResponseEntity.ok(commentService.create(dto));
+    public ResponseEntity<CommentDto> create(@Valid @RequestBody CreateCommentDto dto, AuthenticatedUser user) {
+        return ResponseEntity.ok(commentService.create(dto, user.id()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CommentDto> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(commentService.getById(id));
+    public ResponseEntity<CommentDto> getById(@PathVariable Long id, WebRequest request) {
+        // authorName берется из users
+        return ConditionalGet.ok(request,
+                changeCounterService.tag(ChangeCounterService.COMMENTS, id, ChangeCounterService.USERS),
+                () -> commentService.getById(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<CommentDto>> getAll() {
-        return ResponseEntity.ok(commentService.getAll());
+    public ResponseEntity<List<CommentDto>> getAll(WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.COMMENTS, ChangeCounterService.USERS),
+                commentService::getAll);
+    }
+
+    @GetMapping(params = "reportId")
+    public ResponseEntity<CursorPageDto<CommentDto>> getForReport(@RequestParam Long reportId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.COMMENTS, ChangeCounterService.USERS),
+                () -> commentService.getFeedForReport(reportId, cursor, limit));
     }
 
     @PutMapping("/{id}")
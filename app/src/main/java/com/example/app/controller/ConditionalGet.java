@@ -0,0 +1,31 @@
+package com.example.app.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// Условный GET по ETag из ChangeCounterService. Если If-None-Match совпал, Spring отвечает 304,
+// а тело не запрашивается из БД и не сериализуется. no-cache: браузер хранит ответ, но перед
+// каждым использованием переспрашивает сервер — повторная навигация обходится ответом без тела
+final class ConditionalGet {
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    // etag == null — записи нет: тело строится как обычно и отвечает ошибкой
+    static <T> ResponseEntity<T> ok(WebRequest request, String etag, Supplier<T> body) {
+        if (etag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .body(body.get());
+    }
+}
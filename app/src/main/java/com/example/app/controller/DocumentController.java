@@ -1,22 +1,26 @@
 // src/main/java/com/example/app/controller/DocumentController.java
 package com.example.app.controller;
 
+import com.example.app.dto.AuthenticatedUser;
 import com.example.app.dto.CreateDocumentDto;
 import com.example.app.dto.DocumentDto;
+import com.example.app.service.ChangeCounterService;
 import com.example.app.service.DocumentService;
 import com.example.app.service.FileService; 
 import jakarta.persistence.EntityNotFoundException; 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger; 
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.Resource; 
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType; 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -26,28 +30,32 @@ public class DocumentController {
 
     private final DocumentService documentService;
     private final FileService fileService; 
+    private final FileResponseWriter fileResponseWriter;
+    private final ChangeCounterService changeCounterService;
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
 
     @PostMapping
-    public ResponseEntity<DocumentDto> create(@Valid @RequestBody CreateDocumentDto dto) {
-        return ResponseEntity.ok(documentService.create(dto));
+    public ResponseEntity<DocumentDto> create(@Valid @RequestBody CreateDocumentDto dto, AuthenticatedUser user) {
+        return ResponseEntity.ok(documentService.create(dto, user.id()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<DocumentDto> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(documentService.getById(id));
+    public ResponseEntity<DocumentDto> getById(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.DOCUMENTS, id),
+                () -> documentService.getById(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<DocumentDto>> getAll() {
-        return ResponseEntity.ok(documentService.getAll());
+    public ResponseEntity<List<DocumentDto>> getAll(WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.DOCUMENTS), documentService::getAll);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<DocumentDto> update(@PathVariable Long id,
-                                              @Valid @RequestBody CreateDocumentDto dto) {
-        return ResponseEntity.ok(documentService.update(id, dto));
+                                              @Valid @RequestBody CreateDocumentDto dto,
+                                              AuthenticatedUser user) {
+        return ResponseEntity.ok(documentService.update(id, dto, user.id()));
     }
 
     @DeleteMapping("/{id}")
@@ -57,33 +65,40 @@ public class DocumentController {
     }
 
     @GetMapping("/{documentId}/download")
-    public ResponseEntity<Resource> downloadDocumentFile(@PathVariable Long documentId) {
+    public void downloadDocumentFile(@PathVariable Long documentId,
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileService.StoredFile file;
+        DocumentDto documentDto;
         try {
-            DocumentDto documentDto = documentService.getById(documentId);
+            documentDto = documentService.getById(documentId);
 
             String storedFilenameOrPath = documentDto.filePath();
             if (storedFilenameOrPath == null || storedFilenameOrPath.isEmpty()) {
                  logger.error("File path is missing for document id: {}", documentId);
-                 return ResponseEntity.notFound().build();
+                 throw new ResponseStatusException(HttpStatus.NOT_FOUND);
             }
-            String filenameToDownload = new File(storedFilenameOrPath).getName();
-
-            return fileService.downloadFile(filenameToDownload)
-                    .map(resource -> ResponseEntity.ok()
-                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + documentDto.filename() + "\"")
-                            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                            .body(resource))
-                    .orElseGet(() -> {
-                        logger.warn("File resource not found by FileService for filename: {} (documentId: {})", filenameToDownload, documentId);
-                        return ResponseEntity.notFound().build();
-                    });
+            file = fileService.getStoredFile(storedFilenameOrPath);
+        } catch (EntityNotFoundException e) {
+            logger.warn("Document or file not found when trying to download file for id: {}", documentId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        fileResponseWriter.write(file, documentDto.filename(), request, response);
+    }
 
+    // Миниатюра изображения или первой страницы PDF (JPEG), чтобы список вложений не требовал скачивания оригиналов
+    @GetMapping("/{documentId}/preview")
+    public void previewDocumentFile(@PathVariable Long documentId,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileService.StoredFile preview;
+        try {
+            DocumentDto documentDto = documentService.getById(documentId);
+            if (documentDto.filePath() == null || documentDto.filePath().isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            preview = fileService.getPreview(documentDto.filePath());
         } catch (EntityNotFoundException e) {
-            logger.warn("Document not found when trying to download file for id: {}", documentId);
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            logger.error("Error downloading file for document {}: {}", documentId, e.getMessage(), e);
-            return ResponseEntity.internalServerError().build();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
+        fileResponseWriter.write(preview, null, request, response);
     }
-}
\ No newline at end of file
+}
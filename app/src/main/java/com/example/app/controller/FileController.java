@@ -1,19 +1,37 @@
 package com.example.app.controller;
 
 import com.example.app.entity.FileMetadata;
+import com.example.app.entity.UploadSession;
 import com.example.app.service.FileService;
+import com.example.app.service.ResumableUploadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.SchemaProperty;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 @RestController
 @RequestMapping("/api/files")
@@ -21,12 +39,29 @@ import org.springframework.web.multipart.MultipartFile;
 @Tag(name = "Files", description = "Загрузка и получение файлов")
 public class FileController {
 
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_METADATA = "Upload-Metadata";
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
     private final FileService fileService;
+    private final ResumableUploadService resumableUploadService;
+    private final FileResponseWriter fileResponseWriter;
 
-    @PostMapping("/upload")
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
             summary = "Загрузить файл",
-            description = "Загрузить файл на сервер с ограничением форматов до 100МБ. Поддерживаемые форматы: изображения, видео, аудио.",
+            description = "Загрузить файл на сервер с ограничением форматов до 100МБ. Поддерживаемые форматы: изображения, видео, аудио. "
+                    + "Файл читается потоком из тела запроса; содержимое должно соответствовать расширению.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = MediaType.MULTIPART_FORM_DATA_VALUE,
+                            schemaProperties = @SchemaProperty(name = "file", schema = @Schema(type = "string", format = "binary"))
+                    )
+            ),
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -36,48 +71,190 @@ public class FileController {
                     @ApiResponse(
                             responseCode = "400",
                             description = "Некорректный файл или формат"
+                    ),
+                    @ApiResponse(
+                            responseCode = "413",
+                            description = "Файл больше допустимого размера"
                     )
             }
     )
-    public ResponseEntity<FileMetadata> uploadFile(
-            @Parameter(description = "Файл для загрузки", required = true)
-            @RequestParam("file") MultipartFile file) {
-        if (file.isEmpty()) {
-            return ResponseEntity.badRequest().build();
+    public ResponseEntity<FileMetadata> uploadFile(HttpServletRequest request) throws IOException {
+        // Части разбираются прямо из тела запроса, без копии во временной папке контейнера
+        JakartaServletFileUpload<?, ?> upload = new JakartaServletFileUpload<>();
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (!item.isFormField() && "file".equals(item.getFieldName())) {
+                    try (InputStream content = item.getInputStream()) {
+                        return ResponseEntity.ok(fileService.uploadFile(item.getName(), content));
+                    }
+                }
+            }
+        } catch (FileUploadException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    @PostMapping("/uploads")
+    @Operation(
+            summary = "Начать докачиваемую загрузку",
+            description = "Создает загрузку по образцу протокола tus. Upload-Metadata: \"filename <имя в base64>\". "
+                    + "Содержимое затем дописывается запросами PATCH на адрес из Location.",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Загрузка создана, адрес в заголовке Location"),
+                    @ApiResponse(responseCode = "400", description = "Некорректное имя, формат или длина"),
+                    @ApiResponse(responseCode = "413", description = "Файл больше допустимого размера")
+            }
+    )
+    public ResponseEntity<Void> createUpload(
+            @Parameter(description = "Полный размер файла в байтах", required = true)
+            @RequestHeader(UPLOAD_LENGTH) long length,
+            @Parameter(description = "Метаданные tus, нужен ключ filename")
+            @RequestHeader(value = UPLOAD_METADATA, required = false) String metadata) {
+        UploadSession session;
+        try {
+            session = resumableUploadService.create(parseFilename(metadata), length);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(session.getId()).toUri();
+        return ResponseEntity.created(location)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .build();
+    }
 
-        FileMetadata fileMetadata = fileService.uploadFile(file);
+    @RequestMapping(value = "/uploads/{id}", method = RequestMethod.HEAD)
+    @Operation(
+            summary = "Узнать смещение докачиваемой загрузки",
+            description = "Upload-Offset — сколько байт сервер уже принял; с него клиент продолжает после обрыва.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Смещение в заголовке Upload-Offset"),
+                    @ApiResponse(responseCode = "404", description = "Загрузка не найдена, завершена или истекла")
+            }
+    )
+    public ResponseEntity<Void> getUploadOffset(@PathVariable String id) {
+        ResumableUploadService.UploadProgress progress;
+        try {
+            progress = resumableUploadService.getProgress(id);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(progress.offset()))
+                .header(UPLOAD_LENGTH, String.valueOf(progress.length()))
+                .build();
+    }
+
+    @PatchMapping(value = "/uploads/{id}", consumes = OFFSET_OCTET_STREAM)
+    @Operation(
+            summary = "Дописать часть докачиваемой загрузки",
+            description = "Тело — байты файла начиная с Upload-Offset. Пока файл не получен целиком, ответ 204; "
+                    + "на последний кусок — 200 с метаданными сохраненного файла.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Загрузка завершена, файл сохранен",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    ),
+                    @ApiResponse(responseCode = "204", description = "Часть принята, новое смещение в Upload-Offset"),
+                    @ApiResponse(responseCode = "400", description = "Содержимое не соответствует формату или длине"),
+                    @ApiResponse(responseCode = "404", description = "Загрузка не найдена, завершена или истекла"),
+                    @ApiResponse(responseCode = "409", description = "Upload-Offset не совпадает с принятым сервером")
+            }
+    )
+    public ResponseEntity<FileMetadata> appendUpload(
+            @PathVariable String id,
+            @Parameter(description = "Смещение, с которого начинается тело запроса", required = true)
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+        ResumableUploadService.UploadProgress progress;
+        try {
+            progress = resumableUploadService.append(id, offset, request.getInputStream());
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(progress.file() != null ? HttpStatus.OK : HttpStatus.NO_CONTENT)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(progress.offset()));
+        return progress.file() != null ? response.body(progress.file()) : response.build();
+    }
 
-        return ResponseEntity.ok(fileMetadata);
+    @DeleteMapping("/uploads/{id}")
+    @Operation(
+            summary = "Отменить докачиваемую загрузку",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Загрузка отменена"),
+                    @ApiResponse(responseCode = "404", description = "Загрузка не найдена")
+            }
+    )
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id) {
+        try {
+            resumableUploadService.cancel(id);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
     }
 
     @GetMapping("/download/{filename}")
     @Operation(
             summary = "Скачать файл",
-            description = "Загрузить файл с сервера по имени.",
+            description = "Загрузить файл с сервера по имени. Поддерживаются Range-запросы и условный GET по ETag.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Файл успешно найден и загружен",
                             content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
                     ),
+                    @ApiResponse(
+                            responseCode = "206",
+                            description = "Часть файла по заголовку Range"
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Файл не изменился (If-None-Match / If-Modified-Since)"
+                    ),
                     @ApiResponse(
                             responseCode = "404",
                             description = "Файл не найден"
                     )
             }
     )
-    public ResponseEntity<Resource> downloadFile(
+    public void downloadFile(
             @Parameter(description = "Имя файла для скачивания", required = true)
-            @PathVariable String filename) {
+            @PathVariable String filename,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileService.StoredFile file;
         try {
-            return fileService.downloadFile(filename)
-                    .map(file -> ResponseEntity.ok()
-                            .contentType(org.springframework.http.MediaType.APPLICATION_OCTET_STREAM)
-                            .body(file))
-                    .orElseThrow(() -> new EntityNotFoundException("Файл не найден"));
+            file = fileService.getStoredFile(filename);
         } catch (EntityNotFoundException e) {
-            return ResponseEntity.notFound().build();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        fileResponseWriter.write(file, null, request, response);
+    }
+
+    // Upload-Metadata: пары "ключ значение-в-base64" через запятую, как в tus
+    private String parseFilename(String metadata) {
+        if (metadata != null) {
+            for (String pair : metadata.split(",")) {
+                String[] parts = pair.trim().split(" ", 2);
+                if (parts[0].equals("filename") && parts.length == 2) {
+                    try {
+                        return new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8);
+                    } catch (IllegalArgumentException e) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректное имя файла в Upload-Metadata");
+                    }
+                }
+            }
         }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "В Upload-Metadata не указан filename");
     }
-}
\ No newline at end of file
+}
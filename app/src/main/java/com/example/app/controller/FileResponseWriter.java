@@ -0,0 +1,219 @@
+package com.example.app.controller;
+
+import com.example.app.service.FileService.StoredFile;
+import com.example.app.service.StorageBackend;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+// Отдача файла с диска: условный GET (ETag = SHA-256 содержимого, 304), Range/206 и передача байтов
+// через sendfile Tomcat либо FileChannel.transferTo — содержимое не копируется в кучу JVM.
+// Файлы, сжатые при загрузке, уходят как есть с Content-Encoding: gzip, если клиент его принимает,
+// иначе распаковываются потоком. Если содержимое лежит в объектном хранилище, клиент уходит туда по
+// presigned-ссылке, и байты через приложение не проходят.
+@Component
+@RequiredArgsConstructor
+public class FileResponseWriter {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Как у DefaultServlet Tomcat: мелкие файлы быстрее отдать обычной записью
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StorageBackend storageBackend;
+
+    public void write(StoredFile file, String attachmentName,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (file.path() == null) {
+            Optional<URI> downloadUrl = storageBackend.downloadUrl(file.key(), attachmentName, file.contentType().toString());
+            if (downloadUrl.isPresent()) {
+                // Ссылка живет ограниченное время, кэшировать сам редирект нельзя
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.FOUND.value());
+                response.setHeader(HttpHeaders.LOCATION, downloadUrl.get().toString());
+                return;
+            }
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        // Диапазоны считаются по исходному содержимому, поэтому для Range сжатый файл распаковывается
+        boolean passThroughGzip = file.gzipped() && rangeHeader == null
+                && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (file.gzipped()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        // У сжатого и исходного представлений разные ETag, иначе кэш может подменить одно другим
+        String etag = file.contentHash() != null && passThroughGzip ? file.contentHash() + "-gzip" : file.contentHash();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(etag, file.lastModified())) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        if (rangeHeader != null && size > 0 && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), file)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Несколько диапазонов (multipart/byteranges) не поддерживаем — отдаем файл целиком
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    if (start >= size || start > end) {
+                        throw new IllegalArgumentException("Range is not satisfiable: " + rangeHeader);
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        // Тип выставляется после проверки Range, иначе страница ошибки 416 не отрисуется
+        response.setContentType(file.contentType().toString());
+        if (attachmentName != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(attachmentName, StandardCharsets.UTF_8).build().toString());
+        }
+
+        if (passThroughGzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            start = 0;
+            end = file.storedSize() - 1;
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (file.gzipped() && !passThroughGzip) {
+            writeDecompressed(file, start, length, response.getOutputStream());
+            return;
+        }
+
+        if (file.path() == null) {
+            copyRange(storageBackend.open(file.key()), start, length, response.getOutputStream());
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat отправит файл после выхода из контроллера, end — не включительно
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private void writeDecompressed(StoredFile file, long start, long length, OutputStream out) throws IOException {
+        InputStream stored = file.path() != null ? Files.newInputStream(file.path()) : storageBackend.open(file.key());
+        copyRange(new GZIPInputStream(stored, BUFFER_SIZE), start, length, out);
+    }
+
+    private void copyRange(InputStream source, long start, long length, OutputStream out) throws IOException {
+        try (InputStream in = source) {
+            in.skipNBytes(start);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    // gzip подходит, если он (или *) указан в Accept-Encoding без q=0
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(param.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-Range: диапазон применяется, только если клиент докачивает ту же версию файла
+    private boolean ifRangeMatches(String ifRange, StoredFile file) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            return value.equals("\"" + file.contentHash() + "\"");
+        }
+        try {
+            long since = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            return file.lastModified() / 1000 <= since / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.app.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.SortedMap;
+
+// Ответ справочников id -> имя. ETag считается по содержимому, поэтому повторный запрос
+// с If-None-Match Spring сам превращает в 304; браузер минуту не спрашивает сервер вовсе
+final class NameMaps {
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(1)).cachePrivate();
+
+    private NameMaps() {
+    }
+
+    static ResponseEntity<SortedMap<Long, String>> ok(SortedMap<Long, String> names) {
+        String etag = DigestUtils.md5DigestAsHex(names.toString().getBytes(StandardCharsets.UTF_8));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .body(names);
+    }
+}
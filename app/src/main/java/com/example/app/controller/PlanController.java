@@ -1,33 +1,84 @@
 package com.example.app.controller;
 
 import com.example.app.dto.*;
+import com.example.app.service.ChangeCounterService;
+import com.example.app.service.ChangeStreamService;
+import com.example.app.service.ExportService;
+import com.example.app.service.PlanRollupService;
 import com.example.app.service.PlanService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
 import java.util.List;
+import java.util.SortedMap;
 
 @RestController
 @RequestMapping("/api/plans")
 @RequiredArgsConstructor
 public class PlanController {
     private final PlanService service;
+    private final PlanRollupService planRollupService;
+    private final ExportService exportService;
+    private final ChangeCounterService changeCounterService;
+    private final ChangeStreamService changeStreamService;
 
     @PostMapping
-    public ResponseEntity<PlanDto> create(@Valid @RequestBody CreatePlanDto dto) {
-        return ResponseEntity.ok(service.create(dto));
+    public ResponseEntity<PlanDto> create(@Valid @RequestBody CreatePlanDto dto, AuthenticatedUser user) {
+        return ResponseEntity.ok(service.create(dto, user.id()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PlanDto> get(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getById(id));
+    public ResponseEntity<PlanDto> get(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.PLANS, id),
+                () -> service.getById(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<PlanDto>> list() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<PlanDto>> list(WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.PLANS), service::getAll);
+    }
+
+    // id -> название для подписей в списках отчетов
+    @GetMapping(params = "ids")
+    public ResponseEntity<SortedMap<Long, String>> names(@RequestParam List<Long> ids) {
+        return NameMaps.ok(service.getNames(ids));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(PlanExportFilterDto filter,
+                                                        @RequestParam(defaultValue = "xlsx") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        StreamingResponseBody body = out -> exportService.writePlans(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportFormat.fileName("plans")).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/{id}/rollup")
+    public ResponseEntity<List<PlanQuarterRollupDto>> rollup(@PathVariable Long id, WebRequest request) {
+        // Сводка пересчитывается из отчетов в их же транзакции, целевое значение берется из плана
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.PLANS, ChangeCounterService.REPORTS),
+                () -> planRollupService.getForPlan(id));
+    }
+
+    // Last-Event-ID браузер присылает сам при переподключении; параметр — для нового EventSource после ошибки
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long id,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String topic = service.eventTopic(id);
+        return changeStreamService.subscribe(topic, lastEventId != null ? lastEventId : lastEventIdParam);
     }
 
     @PutMapping("/{id}")
@@ -35,6 +86,12 @@ public class PlanController {
         return ResponseEntity.ok(service.update(id, dto));
     }
 
+    // JSON Merge Patch (RFC 7396): только измененные поля, null очищает необязательное поле
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<PlanDto> patch(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return ResponseEntity.ok(service.patch(id, patch));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         service.delete(id);
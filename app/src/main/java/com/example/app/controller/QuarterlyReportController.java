@@ -1,10 +1,21 @@
 package com.example.app.controller;
 
 import com.example.app.dto.*;
+import com.example.app.service.ChangeCounterService;
+import com.example.app.service.ChangeStreamService;
+import com.example.app.service.ExportService;
+import com.example.app.service.DocumentService;
 import com.example.app.service.QuarterlyReportService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
 import java.util.List;
@@ -14,25 +25,84 @@ import java.util.List;
 @RequiredArgsConstructor
 public class QuarterlyReportController {
     private final QuarterlyReportService service;
+    private final DocumentService documentService;
+    private final ExportService exportService;
+    private final ChangeCounterService changeCounterService;
+    private final ChangeStreamService changeStreamService;
 
     @PostMapping
-    public ResponseEntity<QuarterlyReportDto> create(@Valid @RequestBody CreateQuarterlyReportDto dto) {
-        return ResponseEntity.ok(service.create(dto));
+    public ResponseEntity<QuarterlyReportDto> create(@Valid @RequestBody CreateQuarterlyReportDto dto,
+                                                     AuthenticatedUser user) {
+        return ResponseEntity.ok(service.create(dto, user.id()));
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkReportResultDto>> bulkCreate(@RequestBody List<CreateQuarterlyReportDto> dtos,
+                                                                AuthenticatedUser user) {
+        return ResponseEntity.ok(service.bulkCreate(dtos, user.id()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<QuarterlyReportDto> get(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getById(id));
+    public ResponseEntity<QuarterlyReportDto> get(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.REPORTS, id),
+                () -> service.getById(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<QuarterlyReportDto>> list() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<QuarterlyReportDto>> list(WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.REPORTS), service::getAll);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDto<QuarterlyReportDto>> page(QuarterlyReportFilterDto filter,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.REPORTS),
+                () -> service.getPage(filter, cursor, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(QuarterlyReportFilterDto filter,
+                                                        @RequestParam(defaultValue = "xlsx") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        StreamingResponseBody body = out -> exportService.writeReports(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportFormat.fileName("reports")).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/{id}/documents")
+    public ResponseEntity<CursorPageDto<DocumentDto>> documents(@PathVariable Long id,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.DOCUMENTS),
+                () -> documentService.getPageForReport(id, cursor, limit));
+    }
+
+    // Last-Event-ID браузер присылает сам при переподключении; параметр — для нового EventSource после ошибки
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long id,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String topic = service.eventTopic(id);
+        return changeStreamService.subscribe(topic, lastEventId != null ? lastEventId : lastEventIdParam);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<QuarterlyReportDto> update(@PathVariable Long id, @Valid @RequestBody CreateQuarterlyReportDto dto) {
-        return ResponseEntity.ok(service.update(id, dto));
+    public ResponseEntity<QuarterlyReportDto> update(@PathVariable Long id, @Valid @RequestBody CreateQuarterlyReportDto dto,
+                                                     AuthenticatedUser user) {
+        return ResponseEntity.ok(service.update(id, dto, user.id()));
+    }
+
+    // JSON Merge Patch (RFC 7396): только измененные поля, null очищает необязательное поле
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<QuarterlyReportDto> patch(@PathVariable Long id, @RequestBody JsonNode patch,
+                                                    AuthenticatedUser user) {
+        return ResponseEntity.ok(service.patch(id, patch, user.id()));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,33 @@
+package com.example.app.controller;
+
+import com.example.app.dto.CursorPageDto;
+import com.example.app.dto.SearchResultDto;
+import com.example.app.service.ChangeCounterService;
+import com.example.app.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+    private final SearchService searchService;
+    private final ChangeCounterService changeCounterService;
+
+    // q — запрос в синтаксисе websearch: слова, "фраза", -исключение, or
+    @GetMapping
+    public ResponseEntity<CursorPageDto<SearchResultDto>> search(@RequestParam String q,
+                                                                 @RequestParam(required = false) List<SearchResultDto.Type> types,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 WebRequest request) {
+        // Текст документов дописывается в file_texts фоновым извлечением — этот счетчик тоже в ETag
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.PLANS, ChangeCounterService.COMMENTS,
+                        ChangeCounterService.DOCUMENTS, ChangeCounterService.FILE_TEXTS, ChangeCounterService.USERS),
+                () -> searchService.search(q, types, cursor, limit));
+    }
+}
@@ -2,6 +2,8 @@
 package com.example.app.controller;
 
 import com.example.app.dto.*;
+import com.example.app.entity.UserRole;
+import com.example.app.service.ChangeCounterService;
 import com.example.app.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,10 +17,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -27,25 +34,40 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.OPTIONS})
 public class UserController {
     private final UserService userService;
+    private final ChangeCounterService changeCounterService;
 
     @PostMapping
     public ResponseEntity<UserDto> create(
             @RequestBody(description = "Данные для создания пользователя", required = true,
                          content = @Content(schema = @Schema(implementation = CreateUserDto.class)))
-            @Valid @org.springframework.web.bind.annotation.RequestBody CreateUserDto dto) {
+            @Valid @org.springframework.web.bind.annotation.RequestBody CreateUserDto dto,
+            @Nullable AuthenticatedUser user) {
+        // Саморегистрация — только исполнителем, иначе любой мог бы зарегистрироваться администратором
+        if (dto.userRole() != null && dto.userRole() != UserRole.EXECUTOR && (user == null || !user.isAdmin())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only ADMIN can assign role " + dto.userRole());
+        }
         return ResponseEntity.ok(userService.create(dto));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<UserDto> get(
             @Parameter(description = "ID пользователя для поиска", required = true, example = "1")
-            @PathVariable Long id) {
-        return ResponseEntity.ok(userService.getById(id));
+            @PathVariable Long id, WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.USERS, id),
+                () -> userService.getById(id));
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDto>> list() {
-        return ResponseEntity.ok(userService.getAll());
+    public ResponseEntity<List<UserDto>> list(WebRequest request) {
+        return ConditionalGet.ok(request, changeCounterService.tag(ChangeCounterService.USERS), userService::getAll);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "ФИО пользователей по списку ID", description = "Возвращает объект id -> ФИО одним запросом вместо запроса на каждого пользователя. Несуществующие ID пропускаются.")
+    public ResponseEntity<SortedMap<Long, String>> names(
+            @Parameter(description = "ID пользователей через запятую", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        return NameMaps.ok(userService.getNames(ids));
     }
 
     @PutMapping("/{id}") 
@@ -61,7 +83,9 @@ public class UserController {
             @PathVariable Long id,
             @RequestBody(description = "Полные новые данные пользователя (включая пароль, если меняется)", required = true,
                          content = @Content(schema = @Schema(implementation = CreateUserDto.class)))
-            @Valid @org.springframework.web.bind.annotation.RequestBody CreateUserDto dto) {
+            @Valid @org.springframework.web.bind.annotation.RequestBody CreateUserDto dto,
+            AuthenticatedUser user) {
+        checkCanModify(id, dto.userRole(), user);
         return ResponseEntity.ok(userService.update(id, dto));
     }
 
@@ -78,29 +102,68 @@ public class UserController {
             @PathVariable Long id,
             @RequestBody(description = "Данные для частичного обновления (fullName, email, userRole)", required = true,
                          content = @Content(schema = @Schema(implementation = UserPartialUpdateDto.class)))
-            @Valid @org.springframework.web.bind.annotation.RequestBody UserPartialUpdateDto dto) {
+            @Valid @org.springframework.web.bind.annotation.RequestBody UserPartialUpdateDto dto,
+            AuthenticatedUser user) {
+        checkCanModify(id, dto.userRole(), user);
         return ResponseEntity.ok(userService.partialUpdate(id, dto));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(
             @Parameter(description = "ID пользователя для удаления", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id, AuthenticatedUser user) {
+        checkCanModify(id, null, user);
         userService.delete(id);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/auth")
-    public ResponseEntity<?> auth(
+    @ApiResponse(responseCode = "429", description = "Слишком много входов одновременно", content = @Content)
+    public CompletableFuture<ResponseEntity<?>> auth(
             @RequestBody(description = "Учетные данные для входа", required = true,
                          content = @Content(schema = @Schema(implementation = AuthRequestDto.class)))
             @Valid @org.springframework.web.bind.annotation.RequestBody AuthRequestDto dto) {
         try {
-            UserDto userDto = userService.authenticate(dto.email(), dto.password());
-            return ResponseEntity.ok(userDto);
+            return userService.authenticate(dto.email(), dto.password())
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if (cause instanceof ResponseStatusException statusException) {
+                            return authError(statusException);
+                        }
+                        throw new CompletionException(cause);
+                    });
+        } catch (ResponseStatusException e) {
+            return CompletableFuture.completedFuture(authError(e));
+        }
+    }
+
+    @PostMapping("/auth/refresh")
+    @Operation(summary = "Обменять refresh-токен на новую пару токенов")
+    public ResponseEntity<?> refresh(@Valid @org.springframework.web.bind.annotation.RequestBody RefreshTokenRequestDto dto) {
+        try {
+            return ResponseEntity.ok(userService.refresh(dto.refreshToken()));
         } catch (ResponseStatusException e) {
-             AuthResponseDto errorResponse = new AuthResponseDto(e.getReason());
-             return ResponseEntity.status(e.getStatusCode()).body(errorResponse);
+            return authError(e);
         }
     }
-}
\ No newline at end of file
+
+    // Пользователя меняет или удаляет он сам либо ADMIN. Роль меняет только ADMIN: себе другие пользователи
+    // могут передать лишь ту же роль (роль из токена — та, с которой они вошли)
+    private static void checkCanModify(Long id, UserRole newRole, AuthenticatedUser user) {
+        if (user.isAdmin()) {
+            return;
+        }
+        if (!user.id().equals(id)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only ADMIN can change other users");
+        }
+        if (newRole != null && newRole != user.userRole()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only ADMIN can change the role");
+        }
+    }
+
+    private static ResponseEntity<?> authError(ResponseStatusException e) {
+        AuthResponseDto errorResponse = new AuthResponseDto(e.getReason());
+        return ResponseEntity.status(e.getStatusCode()).body(errorResponse);
+    }
+}
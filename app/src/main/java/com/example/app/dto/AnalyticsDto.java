@@ -0,0 +1,36 @@
+package com.example.app.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record AnalyticsDto(
+        PlanStats planStats,
+        PlanStatus planStatus,
+        Map<Integer, Long> scoreDistribution,
+        List<ExecutorActivity> executorActivity
+) {
+    public record PlanStats(
+            List<Long> allIds,
+            List<Long> activeIds,
+            List<Long> completedIds,
+            List<Long> overdueIds
+    ) {
+    }
+
+    public record PlanStatus(
+            long inProgress,
+            long success,
+            long satisfactory,
+            long problematic
+    ) {
+    }
+
+    public record ExecutorActivity(
+            Long userId,
+            String name,
+            long submitted,
+            long assessedCount,
+            Double averageScore
+    ) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.app.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AnalyticsFilterDto(
+        Integer year,
+        Integer quarter,
+        Long planId,
+        Long executorId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+        List<Long> planIds
+) {
+    // Фильтр отчетов: исполнитель — тот, кто отчитался; период — по дате создания отчета
+    public QuarterlyReportFilterDto toReportFilter() {
+        return new QuarterlyReportFilterDto(
+                year,
+                quarter,
+                planId,
+                executorId,
+                dateFrom != null ? dateFrom.atStartOfDay() : null,
+                dateTo != null ? dateTo.plusDays(1).atStartOfDay() : null,
+                null
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.app.dto;
+
+import com.example.app.entity.UserRole;
+
+// Пользователь из проверенного access-токена; лежит в атрибуте запроса ATTRIBUTE
+public record AuthenticatedUser(
+        Long id,
+        UserRole userRole
+) {
+    public static final String ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    public boolean isAdmin() {
+        return userRole == UserRole.ADMIN;
+    }
+}
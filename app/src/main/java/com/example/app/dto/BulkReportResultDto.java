@@ -0,0 +1,8 @@
+package com.example.app.dto;
+
+public record BulkReportResultDto(
+        int index,
+        Long id,
+        String error
+) {
+}
@@ -4,6 +4,7 @@ public record CommentDto(
         Long id,
         Long reportId,
         Long userId,
+        String authorName,
         String text
 ) {
 }
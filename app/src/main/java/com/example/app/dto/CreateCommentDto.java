@@ -4,7 +4,6 @@ import jakarta.validation.constraints.*;
 
 public record CreateCommentDto(
         @NotNull Long reportId,
-        @NotNull Long userId,
         @NotBlank String text
 ) {
 }
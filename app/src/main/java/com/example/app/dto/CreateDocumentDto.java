@@ -4,7 +4,6 @@ import jakarta.validation.constraints.*;
 
 public record CreateDocumentDto(
         @NotNull Long reportId,
-        @NotNull Long uploadedByUserId,
         @NotBlank String filename,
         @NotBlank String filePath
 ) {
@@ -13,6 +13,7 @@ public record CreatePlanDto(
         LocalDate startDate,
         LocalDate endDate,
         @NotEmpty Set<Long> executorUserIds,
-        @NotNull Long createdByUserId
+        // Версия, которую видел клиент; при расхождении — 409. Не передана — проверки нет
+        Long version
 ) {
 }
@@ -7,10 +7,12 @@ import java.math.BigDecimal;
 public record CreateQuarterlyReportDto(
         @NotNull Long planId,
         @NotNull Long reportingUserId,
-        Long assessedByUserId,
         @NotNull @Min(2000) Integer year,
         @NotNull @Min(1) @Max(4) Integer quarter,
         @NotNull BigDecimal actualValue,
-        Integer analystAssessmentScore
+        // Оценку ставит текущий пользователь: он и записывается оценившим
+        Integer analystAssessmentScore,
+        // Версия, которую видел клиент; при расхождении — 409. Не передана — проверки нет
+        Long version
 ) {
 }
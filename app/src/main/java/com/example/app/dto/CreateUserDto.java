@@ -7,6 +7,7 @@ public record CreateUserDto(
         @NotBlank @Email String email,
         @NotBlank String password,
         String fullName,
-        @NotNull UserRole userRole
+        // Без роли — EXECUTOR; другую роль назначает только ADMIN
+        UserRole userRole
 ) {
 }
@@ -0,0 +1,9 @@
+package com.example.app.dto;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
@@ -7,6 +7,7 @@ import java.util.Set;
 
 public record PlanDto(
         Long id,
+        Long version,
         String name,
         String description,
         BigDecimal targetValue,
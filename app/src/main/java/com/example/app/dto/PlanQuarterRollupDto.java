@@ -0,0 +1,16 @@
+package com.example.app.dto;
+
+import java.math.BigDecimal;
+
+public record PlanQuarterRollupDto(
+        Long planId,
+        Integer year,
+        Integer quarter,
+        long reportCount,
+        long assessedCount,
+        Double averageScore,
+        BigDecimal actualValueSum,
+        BigDecimal latestActualValue,
+        BigDecimal targetValue
+) {
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 public record QuarterlyReportDto(
         Long id,
+        Long version,
         Long planId,
         Long reportingUserId,
         Long assessedByUserId,
@@ -0,0 +1,16 @@
+package com.example.app.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+public record QuarterlyReportFilterDto(
+        Integer year,
+        Integer quarter,
+        Long planId,
+        Long reportingUserId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        Boolean assessed
+) {
+}
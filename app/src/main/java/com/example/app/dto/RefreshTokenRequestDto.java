@@ -0,0 +1,8 @@
+package com.example.app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDto(
+        @NotBlank String refreshToken
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.app.dto;
+
+// Найденный план, комментарий или документ. title — название плана, автор комментария или имя файла;
+// в snippet совпадения обрамлены символами ⟦ и ⟧, разметку из них строит клиент
+public record SearchResultDto(
+        Type type,
+        Long id,
+        String title,
+        String snippet,
+        Long planId,
+        Long reportId,
+        double rank
+) {
+    public enum Type {
+        PLAN, COMMENT, DOCUMENT
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.app.dto;
+
+// expiresIn — срок жизни access-токена в секундах
+public record TokenResponseDto(
+        UserDto user,
+        String accessToken,
+        String refreshToken,
+        long expiresIn
+) {
+}
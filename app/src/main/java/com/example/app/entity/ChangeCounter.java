@@ -0,0 +1,21 @@
+package com.example.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Счетчик изменений таблицы: растет при каждой транзакции, изменившей строки. По нему строится ETag списков —
+// проверка If-None-Match стоит одного чтения этой таблицы вместо выборки всего списка
+@Entity
+@Table(name = "change_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeCounter {
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -6,6 +6,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
 
 @Entity
 @Data
@@ -17,6 +20,8 @@ public class FileMetadata {
     public FileMetadata(String filename, String filePath) {
         this.filename = filename;
         this.filePath = filePath;
+        this.refCount = 0;
+        this.lastUsedAt = LocalDateTime.now();
     }
 
     @Id
@@ -31,4 +36,30 @@ public class FileMetadata {
     @Column(nullable = false)
     @Schema(description = "Путь к файлу")
     private String filePath;
+
+    @Column(name = "content_hash", length = 64, unique = true)
+    @Schema(description = "SHA-256 содержимого (hex): адрес файла в хранилище и ETag")
+    private String contentHash;
+
+    @Column(name = "size_bytes")
+    @Schema(description = "Размер файла в байтах")
+    private Long size;
+
+    @Column(name = "content_encoding", length = 16)
+    @Schema(description = "Сжатие содержимого на диске (gzip) или null, если файл хранится как есть")
+    private String contentEncoding;
+
+    @Column(name = "stored_size_bytes")
+    @Schema(description = "Размер файла на диске в байтах")
+    private Long storedSize;
+
+    @Column(name = "ref_count", nullable = false)
+    @ColumnDefault("0")
+    @Schema(description = "Сколько документов ссылается на это содержимое")
+    private Integer refCount;
+
+    @Column(name = "last_used_at")
+    @Schema(description = "Когда содержимое последний раз загружали или от него отказался последний документ; "
+            + "файл без документов удаляется через app.upload.unreferenced-expiry после этого момента")
+    private LocalDateTime lastUsedAt;
 }
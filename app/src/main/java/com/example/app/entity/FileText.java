@@ -0,0 +1,26 @@
+package com.example.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Текст, извлеченный из содержимого файла для полнотекстового поиска. Строка на FileMetadata (то есть на
+// содержимое, а не на загрузку); колонку search_vector с GIN-индексом добавляет SearchSchemaRunner
+@Entity
+@Table(name = "file_texts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileText {
+    @Id
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "extracted_at", nullable = false)
+    private LocalDateTime extractedAt;
+}
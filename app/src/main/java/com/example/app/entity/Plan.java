@@ -2,13 +2,22 @@ package com.example.app.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Set;
 
+// UPDATE только измененных колонок: правка названия не переписывает длинное описание
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "plans")
 @Table(name = "plans")
 @Data
 @NoArgsConstructor
@@ -19,6 +28,12 @@ public class Plan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Растет при каждом изменении строки: ETag записи и защита от одновременной правки
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @Column(nullable = false)
     private String name;
 
@@ -35,6 +50,8 @@ public class Plan {
     private LocalDate endDate;
 
     @ManyToMany
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "plan-executors")
     @JoinTable(
             name = "plan_executors",
             joinColumns = @JoinColumn(name = "plan_id"),
@@ -42,7 +59,7 @@ public class Plan {
     )
     private Set<User> executors;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_user_id", nullable = false)
     private User createdByUser;
 
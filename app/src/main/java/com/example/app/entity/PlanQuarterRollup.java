@@ -0,0 +1,49 @@
+package com.example.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Сводка отчетов по плану за квартал; пересчитывается при каждом изменении отчетов этого квартала
+@Entity
+@Table(name = "plan_quarter_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_plan_year_quarter", columnNames = {"plan_id", "year", "quarter"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanQuarterRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "plan_id", nullable = false)
+    private Long planId;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer quarter;
+
+    @Column(name = "report_count", nullable = false)
+    private Long reportCount;
+
+    @Column(name = "assessed_count", nullable = false)
+    private Long assessedCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+
+    @Column(name = "actual_value_sum", nullable = false)
+    private BigDecimal actualValueSum;
+
+    @Column(name = "latest_actual_value")
+    private BigDecimal latestActualValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,30 +2,45 @@ package com.example.app.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "quarterly_reports")
+@DynamicUpdate
+@Table(name = "quarterly_reports", indexes = {
+        @Index(name = "idx_reports_year_quarter_id", columnList = "year, quarter, id"),
+        @Index(name = "idx_reports_plan_year_quarter_id", columnList = "plan_id, year, quarter, id"),
+        @Index(name = "idx_reports_reporting_user_year_quarter_id", columnList = "reporting_user_id, year, quarter, id"),
+        @Index(name = "idx_reports_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class QuarterlyReport {
+    // Последовательность (а не IDENTITY), чтобы Hibernate мог батчить INSERT при массовом импорте
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quarterly_reports_seq")
+    @SequenceGenerator(name = "quarterly_reports_seq", sequenceName = "quarterly_reports_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "plan_id", nullable = false)
     private Plan plan;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reporting_user_id", nullable = false)
     private User reportingUser;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assessed_by_user_id")
     private User assessedByUser;
 
@@ -0,0 +1,34 @@
+package com.example.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Незавершенная докачиваемая загрузка. Принятые байты лежат во временном файле, его размер и есть
+// текущее смещение — после обрыва соединения клиент продолжает с него
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "original_filename", nullable = false)
+    private String originalFilename;
+
+    @Column(name = "length_bytes", nullable = false)
+    private Long length;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
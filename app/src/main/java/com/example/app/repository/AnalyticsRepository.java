@@ -0,0 +1,154 @@
+package com.example.app.repository;
+
+import com.example.app.dto.AnalyticsFilterDto;
+import com.example.app.entity.Plan;
+import com.example.app.entity.PlanQuarterRollup;
+import com.example.app.entity.QuarterlyReport;
+import com.example.app.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Агрегаты для /api/analytics считаются в БД через GROUP BY, в приложение приходят только итоги
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRepository {
+    private final EntityManager entityManager;
+
+    public record PlanDeadline(Long planId, LocalDate endDate) {
+    }
+
+    public record PlanReportStats(Long planId, long reportCount, long assessedCount, Double averageScore) {
+    }
+
+    public record ScoreCount(Integer score, long count) {
+    }
+
+    public record ExecutorStats(Long userId, String fullName, String email,
+                                long submitted, long assessedCount, Double averageScore) {
+    }
+
+    public List<PlanDeadline> findPlanDeadlines(AnalyticsFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Plan> plan = query.from(Plan.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.planId() != null) {
+            predicates.add(cb.equal(plan.get("id"), filter.planId()));
+        }
+        if (filter.executorId() != null) {
+            Join<Plan, User> executor = plan.join("executors");
+            predicates.add(cb.equal(executor.get("id"), filter.executorId()));
+        }
+        if (filter.dateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(plan.get("startDate"), filter.dateFrom()));
+        }
+        if (filter.dateTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(plan.get("endDate"), filter.dateTo()));
+        }
+
+        query.multiselect(plan.get("id"), plan.get("endDate"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(plan.get("id")));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(t -> new PlanDeadline(t.get(0, Long.class), t.get(1, LocalDate.class)))
+                .toList();
+    }
+
+    // Без ограничения planIds: статистика по плану не зависит от того, какие еще планы выбраны
+    public List<PlanReportStats> findReportStatsByPlan(AnalyticsFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<QuarterlyReport> report = query.from(QuarterlyReport.class);
+        Path<Long> planId = report.get("plan").get("id");
+        Path<Integer> score = report.get("analystAssessmentScore");
+
+        query.multiselect(planId, cb.count(report), cb.count(score), cb.avg(score))
+                .where(reportPredicates(filter, false, report, query, cb))
+                .groupBy(planId);
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(t -> new PlanReportStats(t.get(0, Long.class), t.get(1, Long.class),
+                        t.get(2, Long.class), t.get(3, Double.class)))
+                .toList();
+    }
+
+    // То же по plan_quarter_rollup: годится, когда фильтры не выходят за гранулярность (план, год, квартал)
+    public List<PlanReportStats> findRollupStatsByPlan(AnalyticsFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PlanQuarterRollup> rollup = query.from(PlanQuarterRollup.class);
+        Path<Long> planId = rollup.get("planId");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.year() != null) {
+            predicates.add(cb.equal(rollup.get("year"), filter.year()));
+        }
+        if (filter.quarter() != null) {
+            predicates.add(cb.equal(rollup.get("quarter"), filter.quarter()));
+        }
+        if (filter.planId() != null) {
+            predicates.add(cb.equal(planId, filter.planId()));
+        }
+
+        query.multiselect(planId, cb.sum(rollup.<Long>get("reportCount")), cb.sum(rollup.<Long>get("assessedCount")),
+                        cb.sum(rollup.<Long>get("scoreSum")))
+                .where(predicates.toArray(new Predicate[0]))
+                .groupBy(planId);
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(t -> {
+                    long assessed = t.get(2, Long.class);
+                    Double average = assessed > 0 ? (double) t.get(3, Long.class) / assessed : null;
+                    return new PlanReportStats(t.get(0, Long.class), t.get(1, Long.class), assessed, average);
+                })
+                .toList();
+    }
+
+    public List<ScoreCount> findScoreDistribution(AnalyticsFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<QuarterlyReport> report = query.from(QuarterlyReport.class);
+        Path<Integer> score = report.get("analystAssessmentScore");
+
+        query.multiselect(score, cb.count(report))
+                .where(cb.and(reportPredicates(filter, true, report, query, cb), cb.isNotNull(score)))
+                .groupBy(score);
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(t -> new ScoreCount(t.get(0, Integer.class), t.get(1, Long.class)))
+                .toList();
+    }
+
+    public List<ExecutorStats> findExecutorActivity(AnalyticsFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<QuarterlyReport> report = query.from(QuarterlyReport.class);
+        Join<QuarterlyReport, User> user = report.join("reportingUser");
+        Path<Integer> score = report.get("analystAssessmentScore");
+
+        query.multiselect(user.get("id"), user.get("fullName"), user.get("email"),
+                        cb.count(report), cb.count(score), cb.avg(score))
+                .where(reportPredicates(filter, true, report, query, cb))
+                .groupBy(user.get("id"), user.get("fullName"), user.get("email"))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(t -> new ExecutorStats(t.get(0, Long.class), t.get(1, String.class), t.get(2, String.class),
+                        t.get(3, Long.class), t.get(4, Long.class), t.get(5, Double.class)))
+                .toList();
+    }
+
+    private Predicate reportPredicates(AnalyticsFilterDto filter, boolean restrictToPlanIds,
+                                       Root<QuarterlyReport> report, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate predicate = QuarterlyReportSpecifications.matches(filter.toReportFilter())
+                .toPredicate(report, query, cb);
+        if (restrictToPlanIds && filter.planIds() != null && !filter.planIds().isEmpty()) {
+            predicate = cb.and(predicate, report.get("plan").get("id").in(filter.planIds()));
+        }
+        return predicate;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.app.repository;
+
+import com.example.app.entity.ChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, String> {
+}
@@ -1,7 +1,32 @@
 package com.example.app.repository;
 
+import com.example.app.dto.CommentDto;
 import com.example.app.entity.Comment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+import java.util.Optional;
+
+// Чтение — проекциями в CommentDto с автором через join. Сущность загружается только для изменения
+// и удаления, где старый автор не читается, поэтому графа загрузки у findById нет
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    @Query("select new com.example.app.dto.CommentDto(c.id, c.report.id, u.id, u.fullName, c.text) " +
+            "from Comment c join c.user u")
+    List<CommentDto> findAllAsDto();
+
+    @Query("select new com.example.app.dto.CommentDto(c.id, c.report.id, u.id, u.fullName, c.text) " +
+            "from Comment c join c.user u where c.id = :id")
+    Optional<CommentDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new com.example.app.dto.CommentDto(c.id, c.report.id, u.id, u.fullName, c.text) " +
+            "from Comment c join c.user u " +
+            "where c.report.id = :reportId and c.id < :beforeId " +
+            "order by c.id desc")
+    List<CommentDto> findFeedByReportId(@Param("reportId") Long reportId,
+                                        @Param("beforeId") Long beforeId,
+                                        Limit limit);
 }
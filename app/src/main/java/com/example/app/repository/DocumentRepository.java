@@ -1,7 +1,36 @@
 package com.example.app.repository;
 
+import com.example.app.dto.DocumentDto;
 import com.example.app.entity.Document;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface DocumentRepository extends JpaRepository<Document, Integer> {
+
+    @Query("select new com.example.app.dto.DocumentDto(d.id, d.report.id, d.uploadedByUser.id, d.filename, d.filePath) " +
+            "from Document d")
+    List<DocumentDto> findAllAsDto();
+
+    @Query("select new com.example.app.dto.DocumentDto(d.id, d.report.id, d.uploadedByUser.id, d.filename, d.filePath) " +
+            "from Document d where d.id = :id")
+    Optional<DocumentDto> findDtoById(@Param("id") Integer id);
+
+    @Query("select new com.example.app.dto.DocumentDto(d.id, d.report.id, d.uploadedByUser.id, d.filename, d.filePath) " +
+            "from Document d " +
+            "where d.report.id = :reportId and d.id > :afterId " +
+            "order by d.id")
+    List<DocumentDto> findPageByReportId(@Param("reportId") Long reportId,
+                                         @Param("afterId") Long afterId,
+                                         Limit limit);
+
+    // versioned: массовый update тоже увеличивает @Version документов
+    @Modifying
+    @Query("update versioned Document d set d.filePath = :newPath where d.filePath = :oldPath")
+    int repointFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
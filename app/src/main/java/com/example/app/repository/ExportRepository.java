@@ -0,0 +1,95 @@
+package com.example.app.repository;
+
+import com.example.app.dto.PlanExportFilterDto;
+import com.example.app.dto.QuarterlyReportFilterDto;
+import com.example.app.entity.Plan;
+import com.example.app.entity.QuarterlyReport;
+import com.example.app.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Строки выгрузки читаются однонаправленным курсором: драйвер отдает их порциями по FETCH_SIZE,
+// в контекст персистентности ничего не попадает. Потреблять поток нужно внутри транзакции.
+@Repository
+@RequiredArgsConstructor
+public class ExportRepository {
+    private static final int FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    public record ReportRow(Long id, Long planId, String planName, Integer year, Integer quarter,
+                            BigDecimal actualValue, Long reportingUserId, String reportingUserName,
+                            Long assessedByUserId, String assessedByUserName, Integer analystAssessmentScore,
+                            LocalDateTime createdAt) {
+    }
+
+    public record PlanRow(Long id, String name, String description, BigDecimal targetValue,
+                          LocalDate startDate, LocalDate endDate, Long createdByUserId, String executorIds) {
+    }
+
+    public Stream<ReportRow> streamReports(QuarterlyReportFilterDto filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReportRow> query = cb.createQuery(ReportRow.class);
+        Root<QuarterlyReport> report = query.from(QuarterlyReport.class);
+        Join<QuarterlyReport, Plan> plan = report.join("plan");
+        Join<QuarterlyReport, User> reportingUser = report.join("reportingUser");
+        Join<QuarterlyReport, User> assessedBy = report.join("assessedByUser", JoinType.LEFT);
+
+        query.select(cb.construct(ReportRow.class,
+                        report.get("id"), plan.get("id"), plan.get("name"),
+                        report.get("year"), report.get("quarter"), report.get("actualValue"),
+                        reportingUser.get("id"), reportingUser.get("fullName"),
+                        assessedBy.get("id"), assessedBy.get("fullName"),
+                        report.get("analystAssessmentScore"), report.get("createdAt")))
+                .where(QuarterlyReportSpecifications.matches(filter).toPredicate(report, query, cb))
+                .orderBy(cb.desc(report.get("year")), cb.desc(report.get("quarter")), cb.desc(report.get("id")));
+        return stream(entityManager.createQuery(query));
+    }
+
+    // listagg в HQL превращается в string_agg (PostgreSQL), поэтому ID исполнителей склеиваются в БД
+    public Stream<PlanRow> streamPlans(PlanExportFilterDto filter) {
+        StringBuilder jpql = new StringBuilder("""
+                select new com.example.app.repository.ExportRepository$PlanRow(
+                    p.id, p.name, p.description, p.targetValue, p.startDate, p.endDate, p.createdByUser.id,
+                    listagg(cast(e.id as String), ', ') within group (order by e.id))
+                from Plan p left join p.executors e
+                where 1 = 1""");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (filter.searchTerm() != null && !filter.searchTerm().isBlank()) {
+            jpql.append(" and (lower(p.name) like :search or lower(p.description) like :search)");
+            params.put("search", "%" + filter.searchTerm().trim().toLowerCase() + "%");
+        }
+        if (filter.startDate() != null) {
+            jpql.append(" and p.startDate >= :startDate");
+            params.put("startDate", filter.startDate());
+        }
+        if (filter.endDate() != null) {
+            jpql.append(" and p.endDate <= :endDate");
+            params.put("endDate", filter.endDate());
+        }
+        jpql.append("""
+                 group by p.id, p.name, p.description, p.targetValue, p.startDate, p.endDate, p.createdByUser.id
+                order by p.id""");
+
+        TypedQuery<PlanRow> query = entityManager.createQuery(jpql.toString(), PlanRow.class);
+        params.forEach(query::setParameter);
+        return stream(query);
+    }
+
+    private <T> Stream<T> stream(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
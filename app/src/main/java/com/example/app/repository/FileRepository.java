@@ -1,12 +1,52 @@
 package com.example.app.repository;
 
 import com.example.app.entity.FileMetadata;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FileRepository extends JpaRepository<FileMetadata, Long> {
     Optional<FileMetadata> findByFilename(String filename);
+
+    Optional<FileMetadata> findByFilePath(String filePath);
+
+    Optional<FileMetadata> findByContentHash(String contentHash);
+
+    List<FileMetadata> findByContentHashIsNull();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from FileMetadata f where f.id = :id")
+    Optional<FileMetadata> findByIdForUpdate(@Param("id") Long id);
+
+    // Повторная загрузка того же содержимого продлевает срок его хранения без документов.
+    // Атомарно, без чтения строки: 0 — запись уже удалена сборщиком, содержимое нужно сохранить заново
+    @Transactional
+    @Modifying
+    @Query("update FileMetadata f set f.lastUsedAt = :now where f.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("select f.id from FileMetadata f where f.refCount = 0 and f.lastUsedAt < :threshold")
+    List<Long> findUnreferencedIds(@Param("threshold") LocalDateTime threshold);
+
+    // Документ ссылается на файл ключом хранилища или, в старых записях, именем файла
+    @Modifying
+    @Query("""
+            update FileMetadata f set f.refCount = cast((select count(d) from Document d
+                    where d.filePath = f.filePath or d.filePath = f.filename) as Integer)""")
+    int recountReferences();
+
+    // Записи, созданные до появления last_used_at, получают полный срок хранения с момента обновления
+    @Modifying
+    @Query("update FileMetadata f set f.lastUsedAt = :now where f.lastUsedAt is null")
+    int initLastUsedAt(@Param("now") LocalDateTime now);
 }
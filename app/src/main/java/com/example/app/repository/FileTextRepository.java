@@ -0,0 +1,23 @@
+package com.example.app.repository;
+
+import com.example.app.entity.FileMetadata;
+import com.example.app.entity.FileText;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface FileTextRepository extends JpaRepository<FileText, Long> {
+
+    // Файлы, для которых текст еще не извлекался, по возрастанию id — для дозаполнения после запуска
+    @Query("select f from FileMetadata f where f.id > :afterId and f.contentHash is not null " +
+            "and not exists (select 1 from FileText t where t.fileId = f.id) order by f.id")
+    List<FileMetadata> findWithoutText(@Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query("delete from FileText t where t.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Long fileId);
+}
@@ -0,0 +1,70 @@
+package com.example.app.repository;
+
+import com.example.app.entity.PlanQuarterRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface PlanQuarterRollupRepository extends JpaRepository<PlanQuarterRollup, Long> {
+
+    interface GroupTotals {
+        Long getReportCount();
+
+        Long getAssessedCount();
+
+        Long getScoreSum();
+
+        BigDecimal getActualValueSum();
+    }
+
+    interface GroupKey {
+        Long getPlanId();
+
+        Integer getYear();
+
+        Integer getQuarter();
+    }
+
+    Optional<PlanQuarterRollup> findByPlanIdAndYearAndQuarter(Long planId, Integer year, Integer quarter);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from PlanQuarterRollup r where r.planId = :planId and r.year = :year and r.quarter = :quarter")
+    Optional<PlanQuarterRollup> findGroupForUpdate(@Param("planId") Long planId, @Param("year") Integer year,
+                                                   @Param("quarter") Integer quarter);
+
+    // Пустая строка группы, которую затем блокирует findGroupForUpdate; параллельная вставка той же группы
+    // не падает на uk_rollup_plan_year_quarter, а ждет первую транзакцию
+    @Modifying
+    @Query(value = "insert into plan_quarter_rollup (plan_id, year, quarter, report_count, assessed_count, score_sum, " +
+            "actual_value_sum) values (:planId, :year, :quarter, 0, 0, 0, 0) " +
+            "on conflict do nothing", nativeQuery = true)
+    void insertGroupIfMissing(@Param("planId") Long planId, @Param("year") Integer year,
+                              @Param("quarter") Integer quarter);
+
+    List<PlanQuarterRollup> findByPlanIdOrderByYearAscQuarterAsc(Long planId);
+
+    @Modifying
+    @Query("delete from PlanQuarterRollup r")
+    void deleteAllRows();
+
+    @Query("select count(r) as reportCount, count(r.analystAssessmentScore) as assessedCount, " +
+            "coalesce(sum(r.analystAssessmentScore), 0) as scoreSum, coalesce(sum(r.actualValue), 0) as actualValueSum " +
+            "from QuarterlyReport r where r.plan.id = :planId and r.year = :year and r.quarter = :quarter")
+    GroupTotals computeTotals(@Param("planId") Long planId, @Param("year") Integer year, @Param("quarter") Integer quarter);
+
+    @Query("select r.actualValue from QuarterlyReport r " +
+            "where r.plan.id = :planId and r.year = :year and r.quarter = :quarter " +
+            "order by r.createdAt desc, r.id desc limit 1")
+    Optional<BigDecimal> findLatestActualValue(@Param("planId") Long planId, @Param("year") Integer year,
+                                               @Param("quarter") Integer quarter);
+
+    @Query("select distinct r.plan.id as planId, r.year as year, r.quarter as quarter from QuarterlyReport r")
+    List<GroupKey> findAllReportGroups();
+}
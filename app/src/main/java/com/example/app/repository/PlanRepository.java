@@ -1,7 +1,55 @@
 package com.example.app.repository;
 
 import com.example.app.entity.Plan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface PlanRepository extends JpaRepository<Plan, Long> {
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Списки планов и исполнителей кэшируются Hibernate до первой записи в plans или plan_executors
+public interface PlanRepository extends JpaRepository<Plan, Long>, PlanRepositoryCustom {
+
+    // Колонки плана без коллекции исполнителей: её нельзя выбрать в одной строке. Записи, а не интерфейсы:
+    // интерфейсная проекция — прокси Spring на каждую строку
+    record PlanView(Long id, Long version, String name, String description, BigDecimal targetValue,
+                    LocalDate startDate, LocalDate endDate, Long createdByUserId, LocalDateTime createdAt) {
+    }
+
+    record PlanExecutorView(Long planId, Long userId) {
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.repository.PlanRepository$PlanView(p.id, p.version, p.name, p.description, " +
+            "p.targetValue, p.startDate, p.endDate, p.createdByUser.id, p.createdAt) from Plan p")
+    List<PlanView> findAllViews();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.repository.PlanRepository$PlanView(p.id, p.version, p.name, p.description, " +
+            "p.targetValue, p.startDate, p.endDate, p.createdByUser.id, p.createdAt) from Plan p where p.id = :id")
+    Optional<PlanView> findViewById(@Param("id") Long id);
+
+    // Для изменения плана: исполнители нужны сразу (diff в plan_executors и DTO ответа), одним запросом.
+    // Чтение списков и плана по id идет через проекции выше, findById остается без графа — он нужен
+    // отчетам и сводкам, которым исполнители не нужны
+    @EntityGraph(attributePaths = "executors")
+    @Query("select p from Plan p where p.id = :id")
+    Optional<Plan> findWithExecutorsById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.repository.PlanRepository$PlanExecutorView(p.id, e.id) from Plan p join p.executors e")
+    List<PlanExecutorView> findAllExecutorIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.repository.PlanRepository$PlanExecutorView(p.id, e.id) from Plan p join p.executors e where p.id in :planIds")
+    List<PlanExecutorView> findExecutorIdsByPlanIds(@Param("planIds") Collection<Long> planIds);
 }
@@ -0,0 +1,11 @@
+package com.example.app.repository;
+
+import com.example.app.entity.Plan;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PlanRepositoryCustom {
+    // Порядок результата совпадает с ids, на месте несуществующего плана — null
+    List<Plan> loadAllById(Collection<Long> ids);
+}
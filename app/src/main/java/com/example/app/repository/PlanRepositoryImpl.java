@@ -0,0 +1,26 @@
+package com.example.app.repository;
+
+import com.example.app.entity.Plan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class PlanRepositoryImpl implements PlanRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Как UserRepositoryImpl.loadAllById: сначала кэш второго уровня, недостающие — одним запросом
+    @Override
+    public List<Plan> loadAllById(Collection<Long> ids) {
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Plan.class)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(ids));
+    }
+}
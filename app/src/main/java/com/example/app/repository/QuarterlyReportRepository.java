@@ -1,7 +1,25 @@
 package com.example.app.repository;
 
+import com.example.app.dto.QuarterlyReportDto;
 import com.example.app.entity.QuarterlyReport;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface QuarterlyReportRepository extends JpaRepository<QuarterlyReport, Integer> {
+import java.util.List;
+import java.util.Optional;
+
+public interface QuarterlyReportRepository extends JpaRepository<QuarterlyReport, Integer>,
+        JpaSpecificationExecutor<QuarterlyReport> {
+
+    @Query("select new com.example.app.dto.QuarterlyReportDto(r.id, r.version, r.plan.id, r.reportingUser.id, " +
+            "r.assessedByUser.id, r.year, r.quarter, r.actualValue, r.analystAssessmentScore, r.createdAt) " +
+            "from QuarterlyReport r")
+    List<QuarterlyReportDto> findAllAsDto();
+
+    @Query("select new com.example.app.dto.QuarterlyReportDto(r.id, r.version, r.plan.id, r.reportingUser.id, " +
+            "r.assessedByUser.id, r.year, r.quarter, r.actualValue, r.analystAssessmentScore, r.createdAt) " +
+            "from QuarterlyReport r where r.id = :id")
+    Optional<QuarterlyReportDto> findDtoById(@Param("id") Integer id);
 }
@@ -0,0 +1,64 @@
+package com.example.app.repository;
+
+import com.example.app.dto.QuarterlyReportFilterDto;
+import com.example.app.entity.QuarterlyReport;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class QuarterlyReportSpecifications {
+
+    private QuarterlyReportSpecifications() {
+    }
+
+    // Добавляем только заданные фильтры, чтобы планировщик мог использовать составные индексы
+    public static Specification<QuarterlyReport> matches(QuarterlyReportFilterDto filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.year() != null) {
+                predicates.add(cb.equal(root.get("year"), filter.year()));
+            }
+            if (filter.quarter() != null) {
+                predicates.add(cb.equal(root.get("quarter"), filter.quarter()));
+            }
+            if (filter.planId() != null) {
+                predicates.add(cb.equal(root.get("plan").get("id"), filter.planId()));
+            }
+            if (filter.reportingUserId() != null) {
+                predicates.add(cb.equal(root.get("reportingUser").get("id"), filter.reportingUserId()));
+            }
+            if (filter.createdFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.createdFrom()));
+            }
+            if (filter.createdTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), filter.createdTo()));
+            }
+            if (filter.assessed() != null) {
+                predicates.add(filter.assessed()
+                        ? cb.isNotNull(root.get("analystAssessmentScore"))
+                        : cb.isNull(root.get("analystAssessmentScore")));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset-условие для сортировки (year desc, quarter desc, id desc): строки строго после курсора.
+    // Отчеты без года или квартала (старые данные) PostgreSQL при DESC ставит первыми — так же, как идет
+    // обратный обход индекса (year, quarter, id); null в курсоре — последняя строка была такой
+    public static Specification<QuarterlyReport> after(Integer year, Integer quarter, long id) {
+        return (root, query, cb) -> descAfter(cb, root.get("year"), year,
+                descAfter(cb, root.get("quarter"), quarter, cb.lessThan(root.get("id"), id)));
+    }
+
+    // Строки после значения value по ключу key (desc, null первыми); при равенстве решает tie
+    private static Predicate descAfter(CriteriaBuilder cb, Expression<Integer> key, Integer value, Predicate tie) {
+        if (value == null) {
+            return cb.or(cb.isNotNull(key), cb.and(cb.isNull(key), tie));
+        }
+        return cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), tie));
+    }
+}
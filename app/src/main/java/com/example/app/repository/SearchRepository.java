@@ -0,0 +1,95 @@
+package com.example.app.repository;
+
+import com.example.app.dto.SearchResultDto;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+
+// Полнотекстовый поиск PostgreSQL по колонкам search_vector (их создает SearchSchemaRunner):
+// совпадения выбираются по GIN-индексам, сниппеты строит ts_headline
+@Repository
+@RequiredArgsConstructor
+public class SearchRepository {
+    // Сколько совпадений ранжируется в каждой ветке. ts_rank читает вектор каждой строки целиком, и для слова,
+    // которое есть почти везде, ранжирование всех совпадений стоит сотни миллисекунд; такой запрос и так
+    // малоинформативен, поэтому лучшие результаты выбираются из первых найденных
+    private static final int MAX_CANDIDATES = 200;
+    // Фрагмент текста документа для ts_headline: разбор всего текста на каждую строку страницы слишком дорог
+    private static final int HEADLINE_SOURCE_LENGTH = 20000;
+
+    // Ветки отдают только ключи и ранг, каждая — не больше offset + limit лучших строк; текст для ts_headline
+    // читается только для строк страницы, иначе PostgreSQL распаковал бы содержимое всех найденных документов
+    private static final String SEARCH_SQL = """
+            WITH q AS (SELECT websearch_to_tsquery(cast(:language AS regconfig), :query) AS query),
+            hits AS (
+                (SELECT 'PLAN' AS type, p.id, cast(NULL AS bigint) AS file_id, ts_rank(p.search_vector, q.query, 1) AS rank
+                 FROM q CROSS JOIN (SELECT p.id, p.search_vector FROM q CROSS JOIN plans p
+                                    WHERE :plans AND p.search_vector @@ q.query LIMIT :candidates) p
+                 ORDER BY rank DESC, p.id LIMIT :window)
+                UNION ALL
+                (SELECT 'COMMENT', c.id, NULL, ts_rank(c.search_vector, q.query, 1) AS rank
+                 FROM q CROSS JOIN (SELECT c.id, c.search_vector FROM q CROSS JOIN comments c
+                                    WHERE :comments AND c.search_vector @@ q.query LIMIT :candidates) c
+                 ORDER BY rank DESC, c.id LIMIT :window)
+                UNION ALL
+                (SELECT 'DOCUMENT', d.id, t.file_id, ts_rank(t.search_vector, q.query, 1) AS rank
+                 FROM q CROSS JOIN (SELECT t.file_id, t.search_vector FROM q CROSS JOIN file_texts t
+                                    WHERE :documents AND t.search_vector @@ q.query LIMIT :candidates) t
+                 JOIN file_metadata f ON f.id = t.file_id
+                 JOIN documents d ON d.file_path IN (f.filename, f.file_path)
+                 ORDER BY rank DESC, d.id LIMIT :window)
+            ),
+            page AS (
+                SELECT * FROM hits ORDER BY rank DESC, type, id LIMIT :limit OFFSET :offset
+            )
+            SELECT page.type, page.id,
+                   CASE page.type WHEN 'PLAN' THEN p.name WHEN 'COMMENT' THEN u.full_name ELSE d.filename END,
+                   coalesce(p.id, cr.plan_id, dr.plan_id), coalesce(c.report_id, d.report_id), page.rank,
+                   ts_headline(cast(:language AS regconfig),
+                               CASE page.type WHEN 'PLAN' THEN coalesce(p.description, p.name)
+                                              WHEN 'COMMENT' THEN c.text
+                                              ELSE left(t.content, :headlineSource) END,
+                               q.query, 'StartSel=⟦, StopSel=⟧, MaxWords=35, MinWords=15, MaxFragments=2')
+            FROM q CROSS JOIN page
+            LEFT JOIN plans p ON page.type = 'PLAN' AND p.id = page.id
+            LEFT JOIN comments c ON page.type = 'COMMENT' AND c.id = page.id
+            LEFT JOIN users u ON u.id = c.user_id
+            LEFT JOIN quarterly_reports cr ON cr.id = c.report_id
+            LEFT JOIN documents d ON page.type = 'DOCUMENT' AND d.id = page.id
+            LEFT JOIN quarterly_reports dr ON dr.id = d.report_id
+            LEFT JOIN file_texts t ON t.file_id = page.file_id
+            ORDER BY page.rank DESC, page.type, page.id
+            """;
+
+    private final EntityManager entityManager;
+
+    public List<SearchResultDto> search(String language, String query, Set<SearchResultDto.Type> types,
+                                        int offset, int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(SEARCH_SQL)
+                .setParameter("language", language)
+                .setParameter("query", query)
+                .setParameter("plans", types.contains(SearchResultDto.Type.PLAN))
+                .setParameter("comments", types.contains(SearchResultDto.Type.COMMENT))
+                .setParameter("documents", types.contains(SearchResultDto.Type.DOCUMENT))
+                .setParameter("headlineSource", HEADLINE_SOURCE_LENGTH)
+                .setParameter("candidates", MAX_CANDIDATES)
+                .setParameter("window", offset + limit)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new SearchResultDto(
+                        SearchResultDto.Type.valueOf((String) row[0]),
+                        ((Number) row[1]).longValue(),
+                        (String) row[2],
+                        (String) row[6],
+                        row[3] == null ? null : ((Number) row[3]).longValue(),
+                        row[4] == null ? null : ((Number) row[4]).longValue(),
+                        ((Number) row[5]).doubleValue()))
+                .toList();
+    }
+}
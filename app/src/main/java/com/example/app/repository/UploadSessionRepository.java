@@ -0,0 +1,13 @@
+package com.example.app.repository;
+
+import com.example.app.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByCreatedAtBefore(LocalDateTime createdAt);
+}
@@ -1,11 +1,36 @@
 package com.example.app.repository;
 
+import com.example.app.dto.UserDto;
 import com.example.app.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 
-public interface UserRepository extends JpaRepository<User, Long> {
+// Запросы со справочными данными идут через кэш запросов Hibernate: любая запись в users его сбрасывает
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.dto.UserDto(u.id, u.email, u.fullName, u.userRole) from User u")
+    List<UserDto> findAllAsDto();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.app.dto.UserDto(u.id, u.email, u.fullName, u.userRole) from User u where u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Long id);
+
+    // Пересчет хеша при входе; условие на старый хеш не дает затереть пароль, смененный параллельно
+    @Transactional
+    @Modifying
+    @Query("update User u set u.passwordHash = :newHash where u.id = :id and u.passwordHash = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
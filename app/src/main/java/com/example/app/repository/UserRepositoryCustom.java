@@ -0,0 +1,11 @@
+package com.example.app.repository;
+
+import com.example.app.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    // Порядок результата совпадает с ids, на месте несуществующего пользователя — null
+    List<User> loadAllById(Collection<Long> ids);
+}
@@ -0,0 +1,27 @@
+package com.example.app.repository;
+
+import com.example.app.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // В отличие от findAllById (всегда запрос where id in), multiLoad сначала смотрит в контекст и кэш
+    // второго уровня, а за недостающими идет одним запросом
+    @Override
+    public List<User> loadAllById(Collection<Long> ids) {
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(User.class)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(ids));
+    }
+}
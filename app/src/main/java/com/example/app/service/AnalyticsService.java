@@ -0,0 +1,99 @@
+package com.example.app.service;
+
+import com.example.app.dto.AnalyticsDto;
+import com.example.app.dto.AnalyticsFilterDto;
+import com.example.app.repository.AnalyticsRepository;
+import com.example.app.repository.AnalyticsRepository.PlanDeadline;
+import com.example.app.repository.AnalyticsRepository.PlanReportStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+    private static final List<Integer> SCORES = List.of(1, 2, 3, 4, 5);
+    private static final PlanReportStats NO_REPORTS = new PlanReportStats(null, 0, 0, null);
+
+    private final AnalyticsRepository analyticsRepository;
+
+    @Transactional(readOnly = true)
+    // today задает вызывающий: от него зависят статусы планов, и ETag ответа строится по той же дате
+    public AnalyticsDto getAnalytics(AnalyticsFilterDto filter, LocalDate today) {
+        List<PlanDeadline> plans = analyticsRepository.findPlanDeadlines(filter);
+        // Без фильтров по исполнителю и датам хватает сводной таблицы: O(планов × кварталов) вместо O(отчетов)
+        boolean rollupApplicable = filter.executorId() == null && filter.dateFrom() == null && filter.dateTo() == null;
+        List<PlanReportStats> planReportStats = rollupApplicable
+                ? analyticsRepository.findRollupStatsByPlan(filter)
+                : analyticsRepository.findReportStatsByPlan(filter);
+        Map<Long, PlanReportStats> statsByPlan = planReportStats.stream()
+                .collect(Collectors.toMap(PlanReportStats::planId, Function.identity()));
+
+        // Карточки считаются по основным фильтрам, графики — с учетом выбранной категории (planIds)
+        List<Long> allIds = new ArrayList<>();
+        List<Long> activeIds = new ArrayList<>();
+        List<Long> completedIds = new ArrayList<>();
+        List<Long> overdueIds = new ArrayList<>();
+        long inProgress = 0, success = 0, satisfactory = 0, problematic = 0;
+        Set<Long> selected = filter.planIds() == null || filter.planIds().isEmpty()
+                ? null : new HashSet<>(filter.planIds());
+
+        for (PlanDeadline plan : plans) {
+            PlanReportStats stats = statsByPlan.getOrDefault(plan.planId(), NO_REPORTS);
+            // План без даты окончания считается завершенным, как и на фронтенде
+            boolean ended = plan.endDate() == null || !plan.endDate().isAfter(today);
+
+            allIds.add(plan.planId());
+            if (!ended) {
+                activeIds.add(plan.planId());
+            } else if (stats.reportCount() > 0) {
+                completedIds.add(plan.planId());
+            } else {
+                overdueIds.add(plan.planId());
+            }
+
+            if (selected != null && !selected.contains(plan.planId())) {
+                continue;
+            }
+            if (!ended) {
+                inProgress++;
+            } else if (stats.assessedCount() == 0) {
+                problematic++;
+            } else if (stats.averageScore() >= 4) {
+                success++;
+            } else if (stats.averageScore() >= 3) {
+                satisfactory++;
+            } else {
+                problematic++;
+            }
+        }
+
+        Map<Integer, Long> scoreDistribution = new LinkedHashMap<>();
+        SCORES.forEach(score -> scoreDistribution.put(score, 0L));
+        analyticsRepository.findScoreDistribution(filter).stream()
+                .filter(sc -> scoreDistribution.containsKey(sc.score()))
+                .forEach(sc -> scoreDistribution.put(sc.score(), sc.count()));
+
+        List<AnalyticsDto.ExecutorActivity> executorActivity = analyticsRepository.findExecutorActivity(filter).stream()
+                .map(e -> new AnalyticsDto.ExecutorActivity(
+                        e.userId(),
+                        e.fullName() != null && !e.fullName().isEmpty() ? e.fullName() : e.email(),
+                        e.submitted(),
+                        e.assessedCount(),
+                        e.averageScore() != null ? Math.round(e.averageScore() * 10) / 10.0 : null
+                ))
+                .collect(Collectors.toList());
+
+        return new AnalyticsDto(
+                new AnalyticsDto.PlanStats(allIds, activeIds, completedIds, overdueIds),
+                new AnalyticsDto.PlanStatus(inProgress, success, satisfactory, problematic),
+                scoreDistribution,
+                executorActivity
+        );
+    }
+}
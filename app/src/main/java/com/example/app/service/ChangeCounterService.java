@@ -0,0 +1,216 @@
+package com.example.app.service;
+
+import com.example.app.entity.ChangeCounter;
+import com.example.app.entity.Comment;
+import com.example.app.entity.Document;
+import com.example.app.entity.FileText;
+import com.example.app.entity.Plan;
+import com.example.app.entity.QuarterlyReport;
+import com.example.app.entity.User;
+import com.example.app.repository.ChangeCounterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Версии данных для ETag. У списка версия — набор счетчиков изменений таблиц, из которых он строится,
+// у отдельной записи — ее @Version (плюс счетчики таблиц, откуда в DTO попадают имена). Счетчики
+// увеличиваются в той же транзакции, что и данные, перед самым коммитом: клиент не получит новый ETag
+// со старыми данными, а блокировка строки счетчика держится только на время коммита.
+// Изменения через сущности отслеживаются слушателями Hibernate; массовые update/delete в обход
+// сущностей должны вызвать touch() сами
+@Service
+@RequiredArgsConstructor
+public class ChangeCounterService implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeCounterService.class);
+
+    public static final String PLANS = "plans";
+    public static final String REPORTS = "quarterly_reports";
+    public static final String USERS = "users";
+    public static final String COMMENTS = "comments";
+    public static final String DOCUMENTS = "documents";
+    public static final String FILE_TEXTS = "file_texts";
+
+    private static final Map<Class<?>, String> TABLES = Map.of(
+            Plan.class, PLANS,
+            QuarterlyReport.class, REPORTS,
+            User.class, USERS,
+            Comment.class, COMMENTS,
+            Document.class, DOCUMENTS,
+            FileText.class, FILE_TEXTS
+    );
+    // Сущности с @Version, для ETag отдельной записи
+    private static final Map<String, String> VERSIONED_ENTITIES = Map.of(
+            PLANS, "Plan",
+            REPORTS, "QuarterlyReport",
+            USERS, "User",
+            COMMENTS, "Comment",
+            DOCUMENTS, "Document"
+    );
+    private static final String INCREMENT_SQL = "UPDATE change_counters SET version = version + 1 WHERE table_name = ?";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final EntityManager entityManager;
+    // Таблицы, измененные в открытых транзакциях. TreeSet: счетчики обновляются в одном порядке,
+    // и две транзакции не заблокируют друг друга
+    private final Map<EventSource, Set<String>> pending = new ConcurrentHashMap<>();
+
+    // Регистрация слушателей — после конструктора: Hibernate не должен получить недостроенный объект.
+    // Бин создается при подъеме контекста, до первого запроса, поэтому изменения не пропускаются
+    @PostConstruct
+    void start() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        createMissingCounters();
+    }
+
+    // ETag списка, построенного из перечисленных таблиц
+    public String tag(String... tables) {
+        return weak(counters(tables));
+    }
+
+    // Для ответов, которые зависят еще и от текущей даты: тег меняется в полночь и без записей в таблицы
+    public String tag(LocalDate date, String... tables) {
+        return weak(counters(tables) + "@" + date);
+    }
+
+    // ETag записи; null, если ее нет — тогда запрос обрабатывается как обычно и отвечает ошибкой
+    public String tag(String table, Long id, String... dependencies) {
+        List<Long> version = entityManager.createQuery(
+                        "select e.version from " + VERSIONED_ENTITIES.get(table) + " e where e.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (version.isEmpty()) {
+            return null;
+        }
+        String own = table + "/" + id + ":" + version.get(0);
+        return weak(dependencies.length == 0 ? own : own + "," + counters(dependencies));
+    }
+
+    // Для массовых update/delete: вызывается внутри транзакции, которая меняет таблицу
+    public void touch(String table) {
+        register(entityManager.unwrap(EventSource.class), table);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getSession(), event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getSession(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getSession(), event.getPersister());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(EventSource session, EntityPersister persister) {
+        String table = TABLES.get(persister.getMappedClass());
+        if (table != null) {
+            register(session, table);
+        }
+    }
+
+    // Сессия Hibernate живет в одном потоке, поэтому набор таблиц одной сессии без синхронизации
+    private void register(EventSource session, String table) {
+        Set<String> tables = pending.get(session);
+        if (tables == null) {
+            tables = new TreeSet<>();
+            pending.put(session, tables);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::increment);
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+        }
+        tables.add(table);
+    }
+
+    // После последнего flush, в той же транзакции. Через JDBC: нативный запрос Hibernate сбросил бы кэш второго уровня
+    private void increment(SessionImplementor session) {
+        Set<String> tables = pending.remove(session);
+        if (tables == null || tables.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT_SQL)) {
+                for (String table : tables) {
+                    statement.setString(1, table);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private String counters(String... tables) {
+        Map<String, Long> versions = versions();
+        return Arrays.stream(tables)
+                .map(table -> table + ":" + versions.getOrDefault(table, 0L))
+                .collect(Collectors.joining(","));
+    }
+
+    // Слабый ETag: тело может отдаваться сжатым, побайтовое совпадение не обещаем
+    private static String weak(String value) {
+        return "W/\"" + value + "\"";
+    }
+
+    private Map<String, Long> versions() {
+        return changeCounterRepository.findAll().stream()
+                .collect(Collectors.toMap(ChangeCounter::getTableName, ChangeCounter::getVersion));
+    }
+
+    // Строки счетчиков создаются до первого запроса: UPDATE по отсутствующей строке ничего бы не записал
+    private void createMissingCounters() {
+        Set<String> existing = versions().keySet();
+        for (String table : new TreeSet<>(TABLES.values())) {
+            if (existing.contains(table)) {
+                continue;
+            }
+            try {
+                changeCounterRepository.save(new ChangeCounter(table, 0L));
+            } catch (DataIntegrityViolationException e) {
+                // Строку одновременно создал другой узел
+                logger.debug("Change counter for {} already exists", table);
+            }
+        }
+    }
+}
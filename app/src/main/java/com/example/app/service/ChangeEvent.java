@@ -0,0 +1,46 @@
+package com.example.app.service;
+
+import java.util.List;
+import java.util.Map;
+
+// Изменение отчета, его комментариев или документов. Сервисы публикуют событие внутри транзакции,
+// ChangeStreamService рассылает его подписчикам потоков только после коммита.
+// name — имя SSE-события, data — новое состояние (DTO) или {id} для удаления, topics — потоки-получатели
+public record ChangeEvent(String name, Object data, List<String> topics) {
+    public static final String COMMENT_CREATED = "comment-created";
+    public static final String COMMENT_UPDATED = "comment-updated";
+    public static final String COMMENT_DELETED = "comment-deleted";
+    public static final String DOCUMENT_CREATED = "document-created";
+    public static final String DOCUMENT_UPDATED = "document-updated";
+    public static final String DOCUMENT_DELETED = "document-deleted";
+    public static final String REPORT_CREATED = "report-created";
+    public static final String REPORT_UPDATED = "report-updated";
+    public static final String REPORT_DELETED = "report-deleted";
+    // Клиенту нужно перечитать данные целиком: пропущены события или изменено сразу много строк
+    public static final String RESET = "reset";
+
+    public static String reportTopic(Long reportId) {
+        return "report:" + reportId;
+    }
+
+    public static String planTopic(Long planId) {
+        return "plan:" + planId;
+    }
+
+    public static ChangeEvent forReport(String name, Long reportId, Object data) {
+        return new ChangeEvent(name, data, List.of(reportTopic(reportId)));
+    }
+
+    public static ChangeEvent forPlan(String name, Long planId, Object data) {
+        return new ChangeEvent(name, data, List.of(planTopic(planId)));
+    }
+
+    // События самого отчета нужны и странице отчета, и списку отчетов на странице плана
+    public static ChangeEvent forReportAndPlan(String name, Long reportId, Long planId, Object data) {
+        return new ChangeEvent(name, data, List.of(reportTopic(reportId), planTopic(planId)));
+    }
+
+    public static Map<String, Long> deleted(Long id) {
+        return Map.of("id", id);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Потоки Server-Sent Events с изменениями отчетов и планов. Открытый поток — это async-запрос без потока
+// обработки: простаивающий подписчик занимает только соединение. Событие сериализуется один раз и кладется
+// в очередь каждого подписчика, отправляет его виртуальный поток, поэтому медленный клиент не задерживает
+// ни коммит, ни остальных. Последние события хранятся в памяти: переподключившийся клиент получает
+// пропущенное по Last-Event-ID, а если оно уже вытеснено — событие reset и перечитывает данные сам.
+// Рассылка в пределах одного узла: при нескольких экземплярах нужна общая шина.
+@Service
+public class ChangeStreamService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamService.class);
+
+    // Затем EventSource переподключается сам, а сервер освобождает забытые соединения
+    private static final Duration EMITTER_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(25);
+    private static final long RECONNECT_DELAY_MILLIS = 3000;
+    private static final int MAX_SUBSCRIBERS = 10_000;
+    // Клиент, не успевающий принять столько событий, отключается и догоняет через Last-Event-ID
+    private static final int MAX_PENDING = 256;
+    private static final int REPLAY_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat;
+    // Идентификатор события — "эпоха-номер": после перезапуска номера начинаются заново, и старый
+    // Last-Event-ID узнается по другой эпохе
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Deque<Message> recent = new ArrayDeque<>(REPLAY_SIZE);
+    private long sequence;
+
+    // name == null — служебный комментарий
+    private record Message(long sequence, String id, String name, String json, List<String> topics) {
+    }
+
+    private static final Message CONNECTED = new Message(0, null, null, "connected", List.of());
+    private static final Message PING = new Message(0, null, null, "ping", List.of());
+
+    public ChangeStreamService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Комментарий раз в 25 секунд не дает прокси закрыть простаивающее соединение и выявляет отключившихся
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, HEARTBEAT_INTERVAL.toSeconds(),
+                HEARTBEAT_INTERVAL.toSeconds(), TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribe(String topic, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > MAX_SUBSCRIBERS) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT.toMillis());
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Первая запись отправляет заголовки ответа, и у клиента срабатывает onopen
+        subscriber.offer(CONNECTED);
+        // Регистрация и выбор пропущенного под одной блокировкой с publish: событие не потеряется и не придет дважды
+        synchronized (recent) {
+            // Добавление внутри compute: remove() атомарно убирает опустевшее множество
+            subscribers.compute(topic, (key, set) -> {
+                Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscriber, lastEventId.trim());
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(ChangeEvent event) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event.data());
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event", event.name(), e);
+            return;
+        }
+        synchronized (recent) {
+            long number = ++sequence;
+            Message message = new Message(number, epoch + "-" + number, event.name(), json, event.topics());
+            if (recent.size() == REPLAY_SIZE) {
+                recent.removeFirst();
+            }
+            recent.addLast(message);
+            for (String topic : event.topics()) {
+                Set<Subscriber> topicSubscribers = subscribers.get(topic);
+                if (topicSubscribers != null) {
+                    topicSubscribers.forEach(subscriber -> subscriber.offer(message));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    // Вызывается под блокировкой recent
+    private void replay(Subscriber subscriber, String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        long last = -1;
+        if (dash > 0 && lastEventId.substring(0, dash).equals(epoch)) {
+            try {
+                last = Long.parseLong(lastEventId.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                last = -1;
+            }
+        }
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.getFirst().sequence();
+        if (last < 0 || last > sequence || last + 1 < oldest) {
+            subscriber.offer(new Message(0, null, ChangeEvent.RESET, "{}", List.of()));
+            return;
+        }
+        for (Message message : recent) {
+            if (message.sequence() > last && message.topics().contains(subscriber.topic)) {
+                subscriber.offer(message);
+            }
+        }
+    }
+
+    private void sendHeartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(PING)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.removed.compareAndSet(false, true)) {
+            subscriber.closed = true;
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.topic, (topic, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    // Очередь одного подписчика; отправкой занимается не больше одного виртуального потока за раз
+    private final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        private void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            if (pending.incrementAndGet() > MAX_PENDING) {
+                // Сам emitter закрывает отправляющий поток: complete() отсюда ждал бы зависшую запись
+                closed = true;
+                queue.clear();
+                logger.debug("Dropping slow event subscriber for {}", topic);
+            } else {
+                queue.add(message);
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Message message;
+                    while (!closed && (message = queue.poll()) != null) {
+                        pending.decrementAndGet();
+                        emitter.send(toEvent(message));
+                    }
+                    if (closed) {
+                        emitter.complete();
+                        remove(this);
+                        return;
+                    }
+                    draining.set(false);
+                    // Сообщение могло прийти между poll() и сбросом флага
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился; emitter уже завершен контейнером или завершится по ошибке
+                remove(this);
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toEvent(Message message) {
+            if (message == CONNECTED) {
+                return SseEmitter.event().comment(message.json()).reconnectTime(RECONNECT_DELAY_MILLIS);
+            }
+            if (message.name() == null) {
+                return SseEmitter.event().comment(message.json());
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(message.name()).data(message.json());
+            return message.id() != null ? event.id(message.id()) : event;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.app.service;
 
 import com.example.app.dto.CommentDto;
 import com.example.app.dto.CreateCommentDto;
+import com.example.app.dto.CursorPageDto;
 import com.example.app.entity.Comment;
 import com.example.app.entity.QuarterlyReport;
 import com.example.app.entity.User;
@@ -10,23 +11,29 @@ import com.example.app.repository.QuarterlyReportRepository;
 import com.example.app.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CommentService {
+
     private final CommentRepository commentRepository;
     private final QuarterlyReportRepository reportRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CommentDto create(CreateCommentDto dto) {
+    // userId — автор комментария, пользователь из access-токена
+    @Transactional
+    public CommentDto create(CreateCommentDto dto, Long userId) {
         QuarterlyReport report = reportRepository.findById(Math.toIntExact(dto.reportId()))
                 .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + dto.reportId()));
-        User user = userRepository.findById(dto.userId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id " + dto.userId()));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId));
 
         Comment comment = Comment.builder()
                 .report(report)
@@ -34,41 +41,63 @@ public class CommentService {
                 .text(dto.text())
                 .build();
         Comment saved = commentRepository.save(comment);
-        return toDto(saved);
+        CommentDto result = toDto(saved);
+        eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.COMMENT_CREATED, result.reportId(), result));
+        return result;
     }
 
+    @Transactional(readOnly = true)
     public CommentDto getById(Long id) {
-        Comment comment = commentRepository.findById(id)
+        return commentRepository.findDtoById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Comment not found with id " + id));
-        return toDto(comment);
     }
 
+    @Transactional(readOnly = true)
     public List<CommentDto> getAll() {
-        return commentRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return commentRepository.findAllAsDto();
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentDto> getFeedForReport(Long reportId, String cursor, Integer limit) {
+        int pageSize = CursorPaging.pageSize(limit);
+        long beforeId = CursorPaging.parseLong(cursor, Long.MAX_VALUE);
+
+        // Новые сверху
+        List<CommentDto> rows = commentRepository.findFeedByReportId(reportId, beforeId, Limit.of(pageSize + 1));
+        return CursorPaging.page(rows, pageSize, last -> String.valueOf(last.id()));
     }
 
+    // Автор при правке не меняется
+    @Transactional
     public CommentDto update(Long id, CreateCommentDto dto) {
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Comment not found with id " + id));
         QuarterlyReport report = reportRepository.findById(Math.toIntExact(dto.reportId()))
                 .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + dto.reportId()));
-        User user = userRepository.findById(dto.userId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id " + dto.userId()));
 
+        Long oldReportId = comment.getReport().getId();
         comment.setReport(report);
-        comment.setUser(user);
         comment.setText(dto.text());
         Comment updated = commentRepository.save(comment);
-        return toDto(updated);
+        CommentDto result = toDto(updated);
+        if (oldReportId.equals(result.reportId())) {
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.COMMENT_UPDATED, result.reportId(), result));
+        } else {
+            // Для потоков перенос — удаление из одного отчета и появление в другом
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.COMMENT_DELETED, oldReportId,
+                    ChangeEvent.deleted(id)));
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.COMMENT_CREATED, result.reportId(), result));
+        }
+        return result;
     }
 
+    @Transactional
     public void delete(Long id) {
-        if (!commentRepository.existsById(id)) {
-            throw new EntityNotFoundException("Comment not found with id " + id);
-        }
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Comment not found with id " + id));
+        Long reportId = comment.getReport().getId();
+        commentRepository.delete(comment);
+        eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.COMMENT_DELETED, reportId, ChangeEvent.deleted(id)));
     }
 
     private CommentDto toDto(Comment comment) {
@@ -76,6 +105,7 @@ public class CommentService {
                 comment.getId(),
                 comment.getReport().getId(),
                 comment.getUser().getId(),
+                comment.getUser().getFullName(),
                 comment.getText()
         );
     }
@@ -0,0 +1,88 @@
+package com.example.app.service;
+
+import com.example.app.dto.CursorPageDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Общее для постраничных выборок по курсору: размер страницы из limit, разбор курсора (ошибка — 400)
+// и сборка страницы. Репозиторий выбирает на одну строку больше страницы: лишняя строка означает,
+// что есть следующая, и обходится без count-запроса
+final class CursorPaging {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private CursorPaging() {
+    }
+
+    static int pageSize(Integer limit) {
+        return pageSize(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+    }
+
+    static int pageSize(Integer limit, int defaultSize, int maxSize) {
+        return limit == null ? defaultSize : Math.min(Math.max(limit, 1), maxSize);
+    }
+
+    // Курсор из одного числа (id последней строки или смещение); не передан — initial
+    static long parseLong(String cursor, long initial) {
+        if (cursor == null || cursor.isBlank()) {
+            return initial;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    // Составной курсор: значения ключей сортировки последней строки через ':' в base64url, null — пустая строка
+    static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(':');
+            }
+            if (keys[i] != null) {
+                raw.append(keys[i]);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null — курсор не передан; null среди значений — ключ последней строки был null
+    static Long[] decode(String cursor, int keys) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != keys) {
+                throw invalid(cursor);
+            }
+            Long[] values = new Long[keys];
+            for (int i = 0; i < keys; i++) {
+                values[i] = parts[i].isEmpty() ? null : Long.valueOf(parts[i]);
+            }
+            return values;
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    // rows — выборка размером до pageSize + 1; cursorOf строит курсор по последней строке страницы
+    static <T> CursorPageDto<T> page(List<T> rows, int pageSize, Function<? super T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new CursorPageDto<>(page, cursorOf.apply(page.get(pageSize - 1)));
+    }
+
+    static ResponseStatusException invalid(String cursor) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.app.service;
 
 import com.example.app.dto.DocumentDto;
 import com.example.app.dto.CreateDocumentDto;
+import com.example.app.dto.CursorPageDto;
 import com.example.app.entity.Document;
 import com.example.app.entity.QuarterlyReport;
 import com.example.app.entity.User;
@@ -13,11 +14,13 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory; 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -25,21 +28,20 @@ public class DocumentService {
     private final DocumentRepository documentRepository;
     private final QuarterlyReportRepository reportRepository;
     private final UserRepository userRepository;             
+    private final FileService fileService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
 
+    // userId — кто загрузил документ, пользователь из access-токена
     @Transactional
-    public DocumentDto create(CreateDocumentDto dto) {
-        logger.info("Attempting to create document with reportId: {}, uploadedById: {}", dto.reportId(), dto.uploadedByUserId());
+    public DocumentDto create(CreateDocumentDto dto, Long userId) {
+        logger.info("Attempting to create document with reportId: {}, uploadedById: {}", dto.reportId(), userId);
 
         if (dto.reportId() == null) {
             logger.error("Error creating document: reportId is null");
             throw new IllegalArgumentException("Report ID must not be null");
         }
-        if (dto.uploadedByUserId() == null) {
-            logger.error("Error creating document: uploadedByUserId is null");
-            throw new IllegalArgumentException("Uploaded User ID must not be null");
-        }
 
         QuarterlyReport report = reportRepository.findById(Math.toIntExact(dto.reportId()))
                 .orElseThrow(() -> {
@@ -47,10 +49,10 @@ public class DocumentService {
                      return new EntityNotFoundException("Report not found with id " + dto.reportId());
                 });
 
-        User user = userRepository.findById(dto.uploadedByUserId())
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> {
-                    logger.error("User not found with id: {}", dto.uploadedByUserId());
-                    return new EntityNotFoundException("User not found with id " + dto.uploadedByUserId());
+                    logger.error("User not found with id: {}", userId);
+                    return new EntityNotFoundException("User not found with id " + userId);
                 });
 
         logger.info("Found Report: {}, Found User: {}", report.getId(), user.getId());
@@ -61,51 +63,78 @@ public class DocumentService {
                 .filename(dto.filename())
                 .filePath(dto.filePath())
                 .build();
+        fileService.addReference(dto.filePath());
 
         try {
             Document saved = documentRepository.save(document);
             logger.info("Successfully saved document with id: {}", saved.getId());
-            return toDto(saved);
+            DocumentDto result = toDto(saved);
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.DOCUMENT_CREATED, result.reportId(), result));
+            return result;
         } catch (Exception e) {
             logger.error("Error saving document to repository", e);
             throw new RuntimeException("Failed to save document", e);
         }
     }
 
+    @Transactional(readOnly = true)
     public DocumentDto getById(Long id) { 
          if (id == null) {
             throw new IllegalArgumentException("Document ID must not be null");
          }
-        Document document = documentRepository.findById(Math.toIntExact(id))
+        return documentRepository.findDtoById(Math.toIntExact(id))
                 .orElseThrow(() -> new EntityNotFoundException("Document not found with id " + id));
-        return toDto(document);
     }
 
+    @Transactional(readOnly = true)
     public List<DocumentDto> getAll() {
-        return documentRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return documentRepository.findAllAsDto();
     }
 
+    // Проекция сразу в DocumentDto: без загрузки Document/QuarterlyReport/User
+    @Transactional(readOnly = true)
+    public CursorPageDto<DocumentDto> getPageForReport(Long reportId, String cursor, Integer limit) {
+        if (reportId == null) {
+            throw new IllegalArgumentException("Report ID must not be null");
+        }
+        int pageSize = CursorPaging.pageSize(limit);
+        long afterId = CursorPaging.parseLong(cursor, 0L);
+
+        List<DocumentDto> rows = documentRepository.findPageByReportId(reportId, afterId, Limit.of(pageSize + 1));
+        return CursorPaging.page(rows, pageSize, last -> String.valueOf(last.id()));
+    }
+
+    // Новый файл записывается загруженным текущим пользователем (userId из access-токена)
     @Transactional 
-    public DocumentDto update(Long id, CreateDocumentDto dto) {
+    public DocumentDto update(Long id, CreateDocumentDto dto, Long userId) {
         if (id == null) { throw new IllegalArgumentException("Document ID for update must not be null"); }
         if (dto.reportId() == null) { throw new IllegalArgumentException("Report ID must not be null"); }
-        if (dto.uploadedByUserId() == null) { throw new IllegalArgumentException("Uploaded User ID must not be null"); }
 
         Document document = documentRepository.findById(Math.toIntExact(id))
                 .orElseThrow(() -> new EntityNotFoundException("Document not found with id " + id));
         QuarterlyReport report = reportRepository.findById(Math.toIntExact(dto.reportId()))
                 .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + dto.reportId()));
-        User user = userRepository.findById(dto.uploadedByUserId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id " + dto.uploadedByUserId()));
 
+        Long oldReportId = document.getReport().getId();
         document.setReport(report);
-        document.setUploadedByUser(user);
         document.setFilename(dto.filename());
+        if (!Objects.equals(document.getFilePath(), dto.filePath())) {
+            document.setUploadedByUser(userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId)));
+            fileService.addReference(dto.filePath());
+            fileService.release(document.getFilePath());
+        }
         document.setFilePath(dto.filePath());
         Document updated = documentRepository.save(document);
-        return toDto(updated);
+        DocumentDto result = toDto(updated);
+        if (oldReportId.equals(result.reportId())) {
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.DOCUMENT_UPDATED, result.reportId(), result));
+        } else {
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.DOCUMENT_DELETED, oldReportId,
+                    ChangeEvent.deleted(id)));
+            eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.DOCUMENT_CREATED, result.reportId(), result));
+        }
+        return result;
     }
 
     @Transactional 
@@ -114,10 +143,12 @@ public class DocumentService {
             throw new IllegalArgumentException("Document ID for delete must not be null");
          }
         int intId = Math.toIntExact(id); 
-        if (!documentRepository.existsById(intId)) {
-            throw new EntityNotFoundException("Document not found with id " + id);
-        }
-        documentRepository.deleteById(intId);
+        Document document = documentRepository.findById(intId)
+                .orElseThrow(() -> new EntityNotFoundException("Document not found with id " + id));
+        documentRepository.delete(document);
+        fileService.release(document.getFilePath());
+        eventPublisher.publishEvent(ChangeEvent.forReport(ChangeEvent.DOCUMENT_DELETED, document.getReport().getId(),
+                ChangeEvent.deleted(id)));
         logger.info("Deleted document with id: {}", id);
     }
 
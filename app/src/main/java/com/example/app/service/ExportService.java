@@ -0,0 +1,219 @@
+package com.example.app.service;
+
+import com.example.app.dto.PlanExportFilterDto;
+import com.example.app.dto.QuarterlyReportFilterDto;
+import com.example.app.repository.ExportRepository;
+import com.example.app.repository.ExportRepository.PlanRow;
+import com.example.app.repository.ExportRepository.ReportRow;
+import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Выгрузка пишется прямо в поток ответа: строки из курсора БД сразу уходят в CSV/XLSX,
+// поэтому память не зависит от количества отчетов. Колонки совпадают с шаблонами импорта на фронтенде.
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    // Сколько строк SXSSF держит в памяти, остальные сбрасываются во временный файл
+    private static final int XLSX_WINDOW_SIZE = 100;
+
+    private static final List<String> REPORT_HEADERS = List.of(
+            "ID Отчета", "ID Плана", "Название Плана", "Год", "Квартал", "Фактическое значение",
+            "ID Отчитавшегося", "Отчитался", "ID Оценившего", "Оценил", "Оценка Аналитика", "Дата Создания");
+    private static final int[] REPORT_WIDTHS = {10, 10, 30, 8, 10, 20, 15, 25, 15, 25, 18, 18};
+
+    private static final List<String> PLAN_HEADERS = List.of(
+            "ID Плана (только для информации)", "Название Плана", "Описание", "Целевое Значение",
+            "Дата Начала (ГГГГ-ММ-ДД)", "Дата Окончания (ГГГГ-ММ-ДД)",
+            "ID Создателя (только для информации)", "ID Исполнителей (через запятую)");
+    private static final int[] PLAN_WIDTHS = {10, 40, 50, 20, 18, 18, 15, 30};
+
+    private final ExportRepository exportRepository;
+
+    public enum Format {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String fileName(String prefix) {
+            return prefix + "_export_" + LocalDate.now() + "." + extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeReports(QuarterlyReportFilterDto filter, Format format, OutputStream out) throws IOException {
+        try (Stream<ReportRow> rows = exportRepository.streamReports(filter);
+             RowWriter writer = open(format, out, "Отчеты", REPORT_HEADERS, REPORT_WIDTHS)) {
+            for (ReportRow r : (Iterable<ReportRow>) rows::iterator) {
+                writer.row(
+                        r.id(),
+                        r.planId(),
+                        r.planName() != null ? r.planName() : "План " + r.planId(),
+                        r.year(),
+                        r.quarter(),
+                        r.actualValue(),
+                        r.reportingUserId(),
+                        r.reportingUserName() != null ? r.reportingUserName() : "Пользователь " + r.reportingUserId(),
+                        r.assessedByUserId(),
+                        r.assessedByUserId() == null ? "Не оценен"
+                                : r.assessedByUserName() != null ? r.assessedByUserName() : "Пользователь " + r.assessedByUserId(),
+                        r.analystAssessmentScore(),
+                        r.createdAt() != null ? r.createdAt().toLocalDate() : null);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writePlans(PlanExportFilterDto filter, Format format, OutputStream out) throws IOException {
+        try (Stream<PlanRow> rows = exportRepository.streamPlans(filter);
+             RowWriter writer = open(format, out, "Планы", PLAN_HEADERS, PLAN_WIDTHS)) {
+            for (PlanRow p : (Iterable<PlanRow>) rows::iterator) {
+                writer.row(
+                        p.id(),
+                        p.name(),
+                        p.description(),
+                        p.targetValue(),
+                        p.startDate(),
+                        p.endDate(),
+                        p.createdByUserId(),
+                        p.executorIds());
+            }
+        }
+    }
+
+    private RowWriter open(Format format, OutputStream out, String sheetName,
+                           List<String> headers, int[] widths) throws IOException {
+        RowWriter writer = format == Format.CSV
+                ? new CsvRowWriter(out)
+                : new XlsxRowWriter(out, sheetName, widths);
+        writer.row(headers.toArray());
+        return writer;
+    }
+
+    private interface RowWriter extends Closeable {
+        void row(Object... cells) throws IOException;
+    }
+
+    // Разделитель «;» и BOM — так русский Excel открывает файл без мастера импорта
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public void row(Object... cells) throws IOException {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    writer.write(';');
+                }
+                writer.write(escape(format(cells[i])));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(';') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Поток ответа закрывает контейнер, здесь только сбрасываем буфер
+            writer.flush();
+        }
+    }
+
+    private static final class XlsxRowWriter implements RowWriter {
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private int rowIndex;
+
+        XlsxRowWriter(OutputStream out, String sheetName, int[] widths) {
+            this.out = out;
+            this.workbook = new SXSSFWorkbook(XLSX_WINDOW_SIZE);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet(sheetName);
+            for (int i = 0; i < widths.length; i++) {
+                sheet.setColumnWidth(i, widths[i] * 256);
+            }
+        }
+
+        @Override
+        public void row(Object... cells) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < cells.length; i++) {
+                Object value = cells[i];
+                if (value == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (value instanceof Number number) {
+                    cell.setCellValue(number instanceof BigDecimal decimal ? decimal.doubleValue() : number.doubleValue());
+                } else {
+                    cell.setCellValue(format(value));
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+            } finally {
+                workbook.close();
+            }
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof LocalDate date) {
+            return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+        return value.toString();
+    }
+}
@@ -1,75 +1,467 @@
 package com.example.app.service;
 
+import com.example.app.config.StorageProperties;
+import com.example.app.config.UploadProperties;
 import com.example.app.entity.FileMetadata;
+import com.example.app.repository.DocumentRepository;
 import com.example.app.repository.FileRepository;
+import com.example.app.repository.FileTextRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+// Хранилище адресуется содержимым: файл лежит один раз под своим SHA-256 (ключ blobs/ab/abcd...),
+// а FileMetadata.refCount считает документы, которые на него ссылаются. Счетчик меняет только DocumentService
+// (addReference/release); загрузка лишь продлевает lastUsedAt. Содержимое без документов удаляет
+// removeUnreferenced — не раньше чем через unreferencedExpiry после последней загрузки или освобождения.
+// Где лежат байты, решает StorageBackend.
 @Service
 @RequiredArgsConstructor
 public class FileService {
 
-    //TODO Сжимать файлы
-    //TODO Подключиться S3
     private static final List<String> ALLOWED_EXTENSIONS = List.of(
         "jpg", "jpeg", "png", "gif", "bmp", "tiff", "webp", "svg", "mp3", "wav", "ogg", "aac", "flac", "m4a", "mp4", "mkv", "avi", "mov", "wmv", "webm", "pdf", "doc", "docx", "docm", "txt", "odt", "rtf", "xls", "xlsx", "xlsm", "ods", "csv", "ppt", "pptx", "odp", "zip", "rar", "7z", "tar", "gz", "bz2"
 );
 
+    // Форматы, которые заметно сжимаются. docx/xlsx/odt и т.п. — уже zip-архивы, медиа тоже сжаты
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "txt", "csv", "rtf", "svg", "doc", "xls", "ppt", "bmp", "tiff");
+    public static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(FileService.class);
 
     private final FileRepository fileRepository;
-    private final Path fileStorageLocation = Paths.get("uploaded-files").toAbsolutePath().normalize();
+    private final DocumentRepository documentRepository;
+    private final StorageBackend storageBackend;
+    private final StorageProperties storageProperties;
+    private final UploadProperties uploadProperties;
+    private final PreviewService previewService;
+    private final FileTextRepository fileTextRepository;
+    private final TextExtractionService textExtractionService;
+    private final ChangeCounterService changeCounterService;
+    private final TransactionTemplate transactionTemplate;
 
-    public FileMetadata uploadFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("Файл не может быть пустым");
+    // Загрузка потоком из тела запроса: содержимое один раз пишется во временный файл рядом с хранилищем,
+    // попутно считаются SHA-256 и размер и проверяется сигнатура формата
+    public FileMetadata uploadFile(String originalFilename, InputStream content) {
+        String fileExtension = validateFilename(originalFilename);
+        Path tmp = newStagingFile();
+        try {
+            // Сжимаемые форматы сразу пишутся через gzip, чтобы не переписывать файл второй раз
+            boolean compressible = COMPRESSIBLE_EXTENSIONS.contains(fileExtension);
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream out = compressible
+                    ? new GZIPOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE)
+                    : Files.newOutputStream(tmp)) {
+                size = copyVerified(fileExtension, content, out, digest);
+            }
+            String contentEncoding = compressible ? GZIP : null;
+            if (compressible && Files.size(tmp) >= size) {
+                inflate(tmp);
+                contentEncoding = null;
+            }
+            return store(originalFilename, tmp, HexFormat.of().formatHex(digest.digest()), size, contentEncoding);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось сохранить файл", e);
+        } finally {
+            deleteQuietly(tmp);
         }
+    }
 
-        String fileExtension = getFileExtension(file.getOriginalFilename());
+    // Завершение докачиваемой загрузки: файл уже целиком на диске, остается проверить его и перенести в хранилище
+    public FileMetadata uploadStaged(String originalFilename, Path staged) {
+        String fileExtension = validateFilename(originalFilename);
+        Path compressed = staged.resolveSibling(staged.getFileName() + ".gz");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = Files.newInputStream(staged)) {
+                size = copyVerified(fileExtension, in, OutputStream.nullOutputStream(), digest);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            if (COMPRESSIBLE_EXTENSIONS.contains(fileExtension) && compress(staged, compressed)) {
+                return store(originalFilename, compressed, contentHash, size, GZIP);
+            }
+            return store(originalFilename, staged, contentHash, size, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось сохранить файл", e);
+        } finally {
+            deleteQuietly(staged);
+            deleteQuietly(compressed);
+        }
+    }
+
+    // Возвращает расширение файла; недопустимое имя — IllegalArgumentException
+    public String validateFilename(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new IllegalArgumentException("Не указано имя файла");
+        }
+        String fileExtension = getFileExtension(originalFilename);
         if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
             throw new IllegalArgumentException("Неподдерживаемый формат файла");
         }
+        return fileExtension;
+    }
+
+    public Path newStagingFile() {
+        try {
+            Path staging = Files.createDirectories(storageProperties.stagingDirectory());
+            return staging.resolve("upload-" + UUID.randomUUID() + ".tmp");
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось подготовить временный каталог", e);
+        }
+    }
 
-        String newFilename = generateUniqueFilename(file.getOriginalFilename());
+    // Переносит подготовленный файл в хранилище; повторная загрузка того же содержимого только продлевает его срок
+    private FileMetadata store(String originalFilename, Path staged, String contentHash,
+                               long size, String contentEncoding) throws IOException {
+        Optional<FileMetadata> existing = touch(contentHash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
 
+        String key = blobKey(contentHash);
+        String filename = generateUniqueFilename(originalFilename);
+        long storedSize = Files.size(staged);
+        storageBackend.store(key, staged, contentTypeOf(filename).toString(), contentEncoding);
+
+        FileMetadata fileMetadata = new FileMetadata(filename, key);
+        fileMetadata.setContentHash(contentHash);
+        fileMetadata.setSize(size);
+        fileMetadata.setContentEncoding(contentEncoding);
+        fileMetadata.setStoredSize(storedSize);
         try {
-            Files.createDirectories(fileStorageLocation);
+            FileMetadata saved = fileRepository.save(fileMetadata);
+            previewService.schedule(saved);
+            textExtractionService.schedule(saved);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // Такое же содержимое одновременно сохранила параллельная загрузка
+            return touch(contentHash).orElseThrow(() -> e);
+        }
+    }
+
+    // Копирует содержимое, считая хэш и размер; сигнатура проверяется по первым байтам до записи
+    private long copyVerified(String fileExtension, InputStream content, OutputStream out,
+                              MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read = content.readNBytes(buffer, 0, FileSignatures.HEADER_SIZE);
+        if (read == 0) {
+            throw new IllegalArgumentException("Файл не может быть пустым");
+        }
+        if (!FileSignatures.matches(fileExtension, buffer, read)) {
+            throw new IllegalArgumentException("Содержимое файла не соответствует формату " + fileExtension);
+        }
+        long maxSize = uploadProperties.maxSize().toBytes();
+        long size = 0;
+        while (read >= 0) {
+            size += read;
+            if (size > maxSize) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Размер файла больше " + uploadProperties.maxSize().toMegabytes() + "МБ");
+            }
+            digest.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+            read = content.read(buffer);
+        }
+        return size;
+    }
+
+    // Ссылка документа на файл; вызывается в транзакции документа. Строка блокируется: сборщик,
+    // уже решивший удалить файл, доводит удаление до конца, и тогда документ получает 400 — файл нужно загрузить заново
+    @Transactional
+    public void addReference(String reference) {
+        FileMetadata fileMetadata = findByReference(reference)
+                .flatMap(found -> fileRepository.findByIdForUpdate(found.getId()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Файл " + reference + " не найден или удален как не привязанный к документу; загрузите его заново"));
+        fileMetadata.setRefCount(fileMetadata.getRefCount() + 1);
+    }
 
-            Path targetLocation = fileStorageLocation.resolve(newFilename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    // Освобождает ссылку документа на файл. Содержимое не удаляется сразу: его может прямо сейчас загружать
+    // другой пользователь, а удаленный документ — вернуть отменой; это делает removeUnreferenced по сроку
+    @Transactional
+    public void release(String reference) {
+        if (reference == null || reference.isEmpty()) {
+            return;
+        }
+        findByReference(reference)
+                .flatMap(found -> fileRepository.findByIdForUpdate(found.getId()))
+                .ifPresent(fileMetadata -> {
+                    int remaining = Math.max(0, fileMetadata.getRefCount() - 1);
+                    fileMetadata.setRefCount(remaining);
+                    if (remaining == 0) {
+                        fileMetadata.setLastUsedAt(LocalDateTime.now());
+                    }
+                });
+    }
+
+    // Сборщик файлов без документов: загрузки, так и не ставшие документом, и файлы удаленных документов.
+    // Каждый файл — в своей транзакции под блокировкой строки, условие перепроверяется после блокировки.
+    // Содержимое удаляется из хранилища до коммита: загрузка того же содержимого ждет блокировку в touch,
+    // видит удаленную строку и сохраняет файл заново уже после удаления, а не перед ним
+    @Scheduled(fixedDelayString = "${app.upload.unreferenced-sweep-interval:1h}",
+            initialDelayString = "${app.upload.unreferenced-sweep-interval:1h}")
+    public void removeUnreferenced() {
+        LocalDateTime threshold = LocalDateTime.now().minus(uploadProperties.unreferencedExpiry());
+        for (Long id : fileRepository.findUnreferencedIds(threshold)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> removeIfUnreferenced(id, threshold));
+            } catch (RuntimeException e) {
+                // Строка остается, следующий проход попробует снова
+                logger.warn("Failed to remove unreferenced file {}", id, e);
+            }
+        }
+    }
 
-            FileMetadata fileMetadata = new FileMetadata(newFilename, targetLocation.toString());
-            fileRepository.save(fileMetadata);
+    private void removeIfUnreferenced(Long id, LocalDateTime threshold) {
+        fileRepository.findByIdForUpdate(id)
+                .filter(fileMetadata -> fileMetadata.getRefCount() == 0
+                        && fileMetadata.getLastUsedAt().isBefore(threshold))
+                .ifPresent(fileMetadata -> {
+                    fileRepository.delete(fileMetadata);
+                    if (fileTextRepository.deleteByFileId(fileMetadata.getId()) > 0) {
+                        changeCounterService.touch(ChangeCounterService.FILE_TEXTS);
+                    }
+                    fileRepository.flush();
+                    try {
+                        storageBackend.delete(fileMetadata.getFilePath());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    String contentHash = fileMetadata.getContentHash();
+                    afterCommit(() -> previewService.evict(contentHash));
+                    logger.info("Removed unreferenced file {} ({})", fileMetadata.getFilename(), contentHash);
+                });
+    }
 
-            return fileMetadata;
+    // Пересчет ссылок по документам: после переноса старых файлов и для записей, где refCount считал загрузки
+    @Transactional
+    public void recountReferences() {
+        int updated = fileRepository.recountReferences();
+        fileRepository.initLastUsedAt(LocalDateTime.now());
+        logger.info("Recounted document references for {} files", updated);
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Не удалось сохранить файл", e);
+    // Файл в хранилище и все, что нужно для заголовков ответа: ETag, Last-Modified, Content-Length, Content-Type.
+    // size — исходный размер, storedSize — размер в хранилище (отличается, если contentEncoding = gzip).
+    // path заполнен, только если содержимое лежит на диске этого узла
+    public record StoredFile(String key, Path path, String contentHash, long size, long lastModified,
+                             MediaType contentType, String contentEncoding, long storedSize) {
+        public boolean gzipped() {
+            return GZIP.equals(contentEncoding);
         }
     }
 
-    public Optional<Resource> downloadFile(String filename) {
-        FileMetadata fileMetadata = fileRepository.findByFilename(filename)
+    // reference — имя файла из URL или ключ, сохраненный в документе
+    @Transactional(readOnly = true)
+    public StoredFile getStoredFile(String reference) {
+        FileMetadata fileMetadata = findByReference(reference)
                 .orElseThrow(() -> new EntityNotFoundException("Файл не найден"));
+        String key = fileMetadata.getFilePath();
+        long size = fileMetadata.getSize() != null ? fileMetadata.getSize() : -1;
+        long storedSize = fileMetadata.getStoredSize() != null ? fileMetadata.getStoredSize() : size;
 
-        Path filePath = Paths.get(fileMetadata.getFilePath());
-        Resource resource = new FileSystemResource(filePath);
+        Path filePath = storageBackend.localPath(key).orElse(null);
+        long lastModified = -1;
+        if (filePath != null) {
+            if (!Files.isReadable(filePath)) {
+                throw new EntityNotFoundException("Файл не найден");
+            }
+            try {
+                storedSize = Files.size(filePath);
+                lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            } catch (IOException e) {
+                throw new RuntimeException("Не удалось прочитать файл", e);
+            }
+        }
+        return new StoredFile(
+                key,
+                filePath,
+                fileMetadata.getContentHash(),
+                size >= 0 ? size : storedSize,
+                lastModified,
+                contentTypeOf(fileMetadata.getFilename()),
+                fileMetadata.getContentEncoding(),
+                storedSize);
+    }
 
-        return Optional.of(resource);
+    // Миниатюра файла для просмотра списка без скачивания оригинала. ETag — хэш оригинала с суффиксом,
+    // чтобы не совпадать с ETag самого файла. Без транзакции: построение может занять несколько секунд
+    public StoredFile getPreview(String reference) {
+        FileMetadata fileMetadata = findByReference(reference)
+                .orElseThrow(() -> new EntityNotFoundException("Файл не найден"));
+        Path preview = previewService.getPreview(fileMetadata)
+                .orElseThrow(() -> new EntityNotFoundException("Для этого файла нет миниатюры"));
+        try {
+            long size = Files.size(preview);
+            return new StoredFile(null, preview, fileMetadata.getContentHash() + "-preview", size,
+                    Files.getLastModifiedTime(preview).toMillis(), MediaType.IMAGE_JPEG, null, size);
+        } catch (IOException e) {
+            throw new EntityNotFoundException("Для этого файла нет миниатюры");
+        }
+    }
+
+    // Переносит файлы, сохраненные на диск до появления хранилища по хэшу: считает хэш, склеивает дубликаты
+    // и перенаправляет документы на единственную копию. Ссылки после этого пересчитывает recountReferences
+    @Transactional
+    public void adoptLegacyFiles() {
+        for (FileMetadata legacy : fileRepository.findByContentHashIsNull()) {
+            Path path = Paths.get(legacy.getFilePath());
+            if (!Files.isReadable(path)) {
+                logger.warn("Skipping legacy file {}: {} is not readable", legacy.getFilename(), path);
+                continue;
+            }
+            try {
+                String contentHash;
+                try (InputStream in = Files.newInputStream(path)) {
+                    contentHash = hash(in);
+                }
+                long size = Files.size(path);
+
+                Optional<FileMetadata> canonical = fileRepository.findByContentHash(contentHash);
+                if (canonical.isPresent()) {
+                    FileMetadata target = canonical.get();
+                    documentRepository.repointFilePath(legacy.getFilePath(), target.getFilePath());
+                    changeCounterService.touch(ChangeCounterService.DOCUMENTS);
+                    fileRepository.delete(legacy);
+                    afterCommit(() -> Files.deleteIfExists(path));
+                    logger.info("Merged duplicate file {} into {}", legacy.getFilename(), target.getFilename());
+                } else {
+                    String key = blobKey(contentHash);
+                    storageBackend.store(key, path, contentTypeOf(legacy.getFilename()).toString(), null);
+                    documentRepository.repointFilePath(legacy.getFilePath(), key);
+                    changeCounterService.touch(ChangeCounterService.DOCUMENTS);
+                    legacy.setFilePath(key);
+                    legacy.setContentHash(contentHash);
+                    legacy.setSize(size);
+                    legacy.setStoredSize(size);
+                }
+                // Следующая итерация ищет дубликаты запросом, поэтому изменения должны быть видны в БД
+                fileRepository.flush();
+            } catch (IOException e) {
+                logger.error("Failed to move legacy file {} into content-addressed storage", legacy.getFilename(), e);
+            }
+        }
+    }
+
+    // Если gzip не дал выигрыша, сжатый файл удаляется и содержимое хранится как есть
+    private boolean compress(Path source, Path target) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+            Files.copy(source, out);
+        }
+        if (Files.size(target) < Files.size(source)) {
+            return true;
+        }
+        Files.delete(target);
+        return false;
+    }
+
+    // Обратная операция для редкого случая, когда сжатие на лету оказалось невыгодным
+    private void inflate(Path compressed) throws IOException {
+        Path plain = compressed.resolveSibling(compressed.getFileName() + ".plain");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed), BUFFER_SIZE)) {
+            Files.copy(in, plain);
+        }
+        Files.move(plain, compressed, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary file {}", path, e);
+        }
+    }
+
+    private Optional<FileMetadata> touch(String contentHash) {
+        return fileRepository.findByContentHash(contentHash)
+                .filter(fileMetadata -> fileRepository.touch(fileMetadata.getId(), LocalDateTime.now()) > 0)
+                .flatMap(fileMetadata -> fileRepository.findById(fileMetadata.getId()));
+    }
+
+    private Optional<FileMetadata> findByReference(String reference) {
+        return fileRepository.findByFilename(reference)
+                .or(() -> fileRepository.findByFilePath(reference))
+                .or(() -> fileRepository.findByFilename(Paths.get(reference).getFileName().toString()));
+    }
+
+    private static String blobKey(String contentHash) {
+        return "blobs/" + contentHash.substring(0, 2) + "/" + contentHash;
+    }
+
+    private static MediaType contentTypeOf(String filename) {
+        return MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private interface StorageAction {
+        void run() throws IOException;
+    }
+
+    private void afterCommit(StorageAction action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to delete file after commit", e);
+                }
+            }
+        });
+    }
+
+    private static String hash(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream digestIn = new DigestInputStream(in, digest)) {
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    private String getFileExtension(String filename) {
+    private static String getFileExtension(String filename) {
         int lastIndexOf = filename.lastIndexOf(".");
         if (lastIndexOf == -1) {
             return "";
@@ -77,9 +469,10 @@ public class FileService {
         return filename.substring(lastIndexOf + 1).toLowerCase();
     }
 
-    private String generateUniqueFilename(String originalFilename) {
+    // Пакетная видимость — для бенчмарков в app-benchmarks
+    static String generateUniqueFilename(String originalFilename) {
         String fileExtension = getFileExtension(originalFilename);
         String timestamp = String.valueOf(System.currentTimeMillis());
         return originalFilename.replaceAll("[^a-zA-Z0-9]", "_") + "-" + timestamp + "." + fileExtension;
     }
-}
\ No newline at end of file
+}
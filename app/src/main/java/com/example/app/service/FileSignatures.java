@@ -0,0 +1,102 @@
+package com.example.app.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// Проверка "магических" байт в начале файла: расширение должно соответствовать содержимому.
+// Для текстовых форматов (txt, csv, svg) сигнатуры нет — проверяем только, что это не двоичный файл
+final class FileSignatures {
+    // Сколько байт начала файла нужно для проверки (tar хранит сигнатуру по смещению 257)
+    static final int HEADER_SIZE = 512;
+
+    private record Signature(int offset, byte[] bytes) {
+        boolean matches(byte[] header, int length) {
+            if (length < offset + bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (header[offset + i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final Signature ZIP = hex(0, "504B0304");
+    private static final Signature OLE = hex(0, "D0CF11E0A1B11AE1");
+    private static final Signature RIFF = ascii(0, "RIFF");
+    private static final Signature FTYP = ascii(4, "ftyp");
+    private static final Signature EBML = hex(0, "1A45DFA3");
+
+    private static final Map<String, List<Signature>> SIGNATURES = Map.ofEntries(
+            Map.entry("jpg", List.of(hex(0, "FFD8FF"))),
+            Map.entry("jpeg", List.of(hex(0, "FFD8FF"))),
+            Map.entry("png", List.of(hex(0, "89504E470D0A1A0A"))),
+            Map.entry("gif", List.of(ascii(0, "GIF87a"), ascii(0, "GIF89a"))),
+            Map.entry("bmp", List.of(ascii(0, "BM"))),
+            Map.entry("tiff", List.of(hex(0, "49492A00"), hex(0, "4D4D002A"))),
+            Map.entry("webp", List.of(RIFF)),
+            Map.entry("mp3", List.of(ascii(0, "ID3"), hex(0, "FFFB"), hex(0, "FFF3"), hex(0, "FFF2"))),
+            Map.entry("wav", List.of(RIFF)),
+            Map.entry("ogg", List.of(ascii(0, "OggS"))),
+            Map.entry("aac", List.of(hex(0, "FFF1"), hex(0, "FFF9"), ascii(0, "ID3"))),
+            Map.entry("flac", List.of(ascii(0, "fLaC"))),
+            Map.entry("m4a", List.of(FTYP)),
+            Map.entry("mp4", List.of(FTYP)),
+            Map.entry("mov", List.of(FTYP, ascii(4, "moov"), ascii(4, "mdat"), ascii(4, "wide"))),
+            Map.entry("mkv", List.of(EBML)),
+            Map.entry("webm", List.of(EBML)),
+            Map.entry("avi", List.of(RIFF)),
+            Map.entry("wmv", List.of(hex(0, "3026B2758E66CF11"))),
+            Map.entry("pdf", List.of(ascii(0, "%PDF"))),
+            Map.entry("doc", List.of(OLE)),
+            Map.entry("xls", List.of(OLE)),
+            Map.entry("ppt", List.of(OLE)),
+            Map.entry("docx", List.of(ZIP)),
+            Map.entry("docm", List.of(ZIP)),
+            Map.entry("xlsx", List.of(ZIP)),
+            Map.entry("xlsm", List.of(ZIP)),
+            Map.entry("pptx", List.of(ZIP)),
+            Map.entry("odt", List.of(ZIP)),
+            Map.entry("ods", List.of(ZIP)),
+            Map.entry("odp", List.of(ZIP)),
+            Map.entry("zip", List.of(ZIP, hex(0, "504B0506"))),
+            Map.entry("rtf", List.of(ascii(0, "{\\rtf"))),
+            Map.entry("rar", List.of(ascii(0, "Rar!"))),
+            Map.entry("7z", List.of(hex(0, "377ABCAF271C"))),
+            Map.entry("tar", List.of(ascii(257, "ustar"))),
+            Map.entry("gz", List.of(hex(0, "1F8B"))),
+            Map.entry("bz2", List.of(ascii(0, "BZh")))
+    );
+
+    private FileSignatures() {
+    }
+
+    static boolean matches(String extension, byte[] header, int length) {
+        List<Signature> signatures = SIGNATURES.get(extension);
+        if (signatures == null) {
+            return !containsNul(header, length);
+        }
+        return signatures.stream().anyMatch(signature -> signature.matches(header, length));
+    }
+
+    private static boolean containsNul(byte[] header, int length) {
+        for (int i = 0; i < length; i++) {
+            if (header[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Signature hex(int offset, String hex) {
+        return new Signature(offset, HexFormat.of().parseHex(hex));
+    }
+
+    private static Signature ascii(int offset, String text) {
+        return new Signature(offset, text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
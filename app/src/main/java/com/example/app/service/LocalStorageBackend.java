@@ -0,0 +1,65 @@
+package com.example.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+// Хранение на диске узла приложения. Ключи — пути относительно root; абсолютные пути
+// (записи, сохраненные до появления ключей) используются как есть.
+public class LocalStorageBackend implements StorageBackend {
+    private final Path root;
+
+    public LocalStorageBackend(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void store(String key, Path source, String contentType, String contentEncoding) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Источник на другом разделе: содержимое то же, поэтому обычного перемещения достаточно
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public Optional<URI> downloadUrl(String key, String attachmentName, String contentType) {
+        return Optional.empty();
+    }
+
+    private Path resolve(String key) {
+        Path path = Paths.get(key);
+        if (path.isAbsolute()) {
+            return path;
+        }
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Storage key points outside of storage root: " + key);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Тело JSON Merge Patch (RFC 7396) для плоских DTO: отсутствующее поле не меняется, null очищает значение,
+// массив заменяется целиком. Record с Optional тут не подходит: Jackson не отличает отсутствующее поле от null
+final class MergePatch {
+    private final JsonNode fields;
+    private final ObjectMapper objectMapper;
+
+    private MergePatch(JsonNode fields, ObjectMapper objectMapper) {
+        this.fields = fields;
+        this.objectMapper = objectMapper;
+    }
+
+    // Неизвестные и неизменяемые поля (id, createdAt) — 400, а не молча пропущенная правка
+    static MergePatch of(JsonNode body, Set<String> allowedFields, ObjectMapper objectMapper) {
+        if (body == null || !body.isObject()) {
+            throw badRequest("Patch body must be a JSON object");
+        }
+        List<String> unknown = new ArrayList<>();
+        body.fieldNames().forEachRemaining(name -> {
+            if (!allowedFields.contains(name)) {
+                unknown.add(name);
+            }
+        });
+        if (!unknown.isEmpty()) {
+            throw badRequest("Fields cannot be patched: " + String.join(", ", unknown));
+        }
+        return new MergePatch(body, objectMapper);
+    }
+
+    boolean has(String field) {
+        return fields.has(field);
+    }
+
+    // null — если поле отсутствует или явно null
+    <T> T value(String field, Class<T> type) {
+        JsonNode node = fields.get(field);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (IOException | IllegalArgumentException e) {
+            throw badRequest("Invalid value of " + field);
+        }
+    }
+
+    // Для полей, которые нельзя очистить
+    <T> T required(String field, Class<T> type) {
+        T value = value(field, type);
+        if (value == null) {
+            throw badRequest(field + " must not be null");
+        }
+        return value;
+    }
+
+    <T> List<T> requiredList(String field, Class<T> elementType) {
+        JsonNode node = fields.get(field);
+        if (node == null || !node.isArray()) {
+            throw badRequest(field + " must be an array");
+        }
+        try {
+            List<T> values = objectMapper.readerForListOf(elementType).readValue(node);
+            if (values.contains(null)) {
+                throw badRequest(field + " must not contain null");
+            }
+            return values;
+        } catch (IOException e) {
+            throw badRequest("Invalid value of " + field);
+        }
+    }
+
+    static ResponseStatusException badRequest(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.app.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Защита от одновременной правки по @Version. Клиент присылает версию, которую видел; если запись с тех пор
+// изменили — 409, а не молча перезаписанные чужие изменения. Гонку двух транзакций, прочитавших одну
+// версию, ловит UPDATE ... WHERE version = ? самого Hibernate
+final class OptimisticLocking {
+    private OptimisticLocking() {
+    }
+
+    // expected == null — клиент версию не передал, проверяется только гонка при записи
+    static void check(String entity, Long id, Long current, Long expected) {
+        if (expected != null && !expected.equals(current)) {
+            throw conflict(entity, id);
+        }
+    }
+
+    // Flush здесь, а не при коммите: там исключение уже не превратить в 409
+    static <T> T saveAndFlush(JpaRepository<T, ?> repository, T entity, String name, Long id) {
+        try {
+            return repository.saveAndFlush(entity);
+        } catch (OptimisticLockingFailureException e) {
+            throw conflict(name, id);
+        }
+    }
+
+    private static ResponseStatusException conflict(String entity, Long id) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                entity + " " + id + " was modified by another user; reload it and repeat the change");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.app.service;
+
+import com.example.app.config.PasswordProperties;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// BCrypt считается на отдельном ограниченном пуле: всплеск входов в начале отчетного периода занимает
+// только его потоки, а не весь пул Tomcat. Если очередь полна, запрос сразу получает 429.
+// Хеши с другим cost пересчитываются при успешном входе, поэтому cost можно менять без сброса паролей
+@Service
+public class PasswordHasher implements DisposableBean {
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    // rehash заполнен, если пароль верный, а хеш посчитан с устаревшим cost
+    public record Verification(boolean matches, String rehash) {
+    }
+
+    public PasswordHasher(PasswordProperties properties) {
+        if (properties.cost() < 4 || properties.cost() > 31) {
+            throw new IllegalStateException("app.password.cost must be between 4 and 31");
+        }
+        this.cost = properties.cost();
+        int threads = properties.threads() > 0 ? properties.threads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.queueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Для создания и смены пароля: вызывающий поток ждет результат, но считает его пул
+    public String hash(String rawPassword) {
+        try {
+            return submit(() -> BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost))).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public CompletableFuture<Verification> verify(String rawPassword, String hash) {
+        return submit(() -> {
+            if (!BCrypt.checkpw(rawPassword, hash)) {
+                return new Verification(false, null);
+            }
+            // Новый хеш считается в той же задаче: второй раз в очередь не встаем
+            String rehash = costOf(hash) != cost ? BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost)) : null;
+            return new Verification(true, rehash);
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Слишком много входов одновременно, повторите позже");
+        }
+    }
+
+    // Хеш вида $2a$10$<соль и хеш>: cost — две цифры после второго '$'
+    private static int costOf(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.app.service;
+
+import com.example.app.dto.PlanQuarterRollupDto;
+import com.example.app.entity.Plan;
+import com.example.app.entity.PlanQuarterRollup;
+import com.example.app.repository.PlanQuarterRollupRepository;
+import com.example.app.repository.PlanRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class PlanRollupService {
+    private final PlanQuarterRollupRepository rollupRepository;
+    private final PlanRepository planRepository;
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanRollupService.class);
+
+    // Вызывается из транзакции, изменившей отчеты, поэтому сводка фиксируется вместе с ними.
+    // Итоги считаются только под блокировкой строки группы: параллельные изменения отчетов одного квартала
+    // выстраиваются в очередь, и каждое видит отчеты, зафиксированные предыдущими
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Long planId, Integer year, Integer quarter) {
+        PlanQuarterRollup rollup = lockGroup(planId, year, quarter);
+        PlanQuarterRollupRepository.GroupTotals totals = rollupRepository.computeTotals(planId, year, quarter);
+        if (totals.getReportCount() == 0) {
+            rollupRepository.delete(rollup);
+            return;
+        }
+
+        rollup.setReportCount(totals.getReportCount());
+        rollup.setAssessedCount(totals.getAssessedCount());
+        rollup.setScoreSum(totals.getScoreSum());
+        rollup.setActualValueSum(totals.getActualValueSum());
+        rollup.setLatestActualValue(rollupRepository.findLatestActualValue(planId, year, quarter).orElse(null));
+        rollup.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private PlanQuarterRollup lockGroup(Long planId, Integer year, Integer quarter) {
+        // Строку могла удалить транзакция, которую мы ждали на блокировке (в группе не осталось отчетов)
+        while (true) {
+            rollupRepository.insertGroupIfMissing(planId, year, quarter);
+            Optional<PlanQuarterRollup> rollup = rollupRepository.findGroupForUpdate(planId, year, quarter);
+            if (rollup.isPresent()) {
+                return rollup.get();
+            }
+        }
+    }
+
+    @Transactional
+    public int rebuild() {
+        rollupRepository.deleteAllRows();
+        List<PlanQuarterRollupRepository.GroupKey> groups = rollupRepository.findAllReportGroups();
+        groups.forEach(g -> refresh(g.getPlanId(), g.getYear(), g.getQuarter()));
+        logger.info("Rebuilt plan_quarter_rollup: {} groups", groups.size());
+        return groups.size();
+    }
+
+    // Первичное заполнение для базы, где отчеты появились раньше сводной таблицы
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<PlanQuarterRollupDto> getForPlan(Long planId) {
+        Plan plan = planRepository.findById(planId)
+                .orElseThrow(() -> new EntityNotFoundException("Plan not found"));
+        return rollupRepository.findByPlanIdOrderByYearAscQuarterAsc(planId).stream()
+                .map(r -> new PlanQuarterRollupDto(
+                        r.getPlanId(),
+                        r.getYear(),
+                        r.getQuarter(),
+                        r.getReportCount(),
+                        r.getAssessedCount(),
+                        r.getAssessedCount() > 0 ? (double) r.getScoreSum() / r.getAssessedCount() : null,
+                        r.getActualValueSum(),
+                        r.getLatestActualValue(),
+                        plan.getTargetValue()
+                ))
+                .collect(Collectors.toList());
+    }
+}
@@ -3,10 +3,17 @@ package com.example.app.service;
 import com.example.app.dto.*;
 import com.example.app.entity.*;
 import com.example.app.repository.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -14,16 +21,21 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class PlanService {
+    private static final int MAX_NAMES_BATCH = 500;
+    // Автор и дата создания не меняются ни PUT, ни PATCH
+    private static final Set<String> PATCH_FIELDS = Set.of("version", "name", "description", "targetValue",
+            "startDate", "endDate", "executorUserIds");
+
     private final PlanRepository planRepository;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
 
-    public PlanDto create(CreatePlanDto dto) {
-        User creator = userRepository.findById(dto.createdByUserId())
+    // userId — автор плана, пользователь из access-токена
+    @Transactional
+    public PlanDto create(CreatePlanDto dto, Long userId) {
+        User creator = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        Set<User> execs = dto.executorUserIds().stream()
-                .map(id -> userRepository.findById(id)
-                        .orElseThrow(() -> new EntityNotFoundException("Executor user not found: " + id)))
-                .collect(Collectors.toSet());
+        Set<User> execs = loadExecutors(dto.executorUserIds());
 
         Plan p = Plan.builder()
                 .name(dto.name())
@@ -39,43 +51,151 @@ public class PlanService {
         return toDto(saved);
     }
 
+    @Transactional(readOnly = true)
     public PlanDto getById(Long id) {
-        Plan p = planRepository.findById(id)
+        PlanRepository.PlanView view = planRepository.findViewById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Plan not found"));
-        return toDto(p);
+        Set<Long> execIds = planRepository.findExecutorIdsByPlanIds(List.of(id)).stream()
+                .map(PlanRepository.PlanExecutorView::userId)
+                .collect(Collectors.toSet());
+        return toDto(view, execIds);
     }
 
+    @Transactional(readOnly = true)
     public List<PlanDto> getAll() {
-        return planRepository.findAll().stream()
-                .map(this::toDto)
+        Map<Long, Set<Long>> execIdsByPlan = planRepository.findAllExecutorIds().stream()
+                .collect(Collectors.groupingBy(PlanRepository.PlanExecutorView::planId,
+                        Collectors.mapping(PlanRepository.PlanExecutorView::userId, Collectors.toSet())));
+        return planRepository.findAllViews().stream()
+                .map(v -> toDto(v, execIdsByPlan.getOrDefault(v.id(), Set.of())))
                 .collect(Collectors.toList());
     }
 
+    // Названия для подписей в списках: id -> название, несуществующие id просто отсутствуют в ответе
+    @Transactional(readOnly = true)
+    public SortedMap<Long, String> getNames(Collection<Long> ids) {
+        if (ids.size() > MAX_NAMES_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не больше " + MAX_NAMES_BATCH + " id за запрос");
+        }
+        SortedMap<Long, String> names = new TreeMap<>();
+        for (Plan plan : planRepository.loadAllById(new TreeSet<>(ids))) {
+            if (plan != null) {
+                names.put(plan.getId(), plan.getName());
+            }
+        }
+        return names;
+    }
+
+    @Transactional
     public PlanDto update(Long id, CreatePlanDto dto) {
-        Plan p = planRepository.findById(id)
+        Plan p = planRepository.findWithExecutorsById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Plan not found"));
+        OptimisticLocking.check("Plan", id, p.getVersion(), dto.version());
         p.setName(dto.name());
         p.setDescription(dto.description());
         p.setTargetValue(dto.targetValue());
         p.setStartDate(dto.startDate());
         p.setEndDate(dto.endDate());
-        Set<User> execs = dto.executorUserIds().stream()
-                .map(uid -> userRepository.findById(uid)
-                        .orElseThrow(() -> new EntityNotFoundException("User not found: " + uid)))
-                .collect(Collectors.toSet());
-        p.setExecutors(execs);
-        return toDto(planRepository.save(p));
+        replaceExecutors(p, dto.executorUserIds());
+        return toDto(OptimisticLocking.saveAndFlush(planRepository, p, "Plan", id));
     }
 
+    // JSON Merge Patch: меняются только переданные поля, UPDATE пишет только их колонки
+    @Transactional
+    public PlanDto patch(Long id, JsonNode body) {
+        MergePatch patch = MergePatch.of(body, PATCH_FIELDS, objectMapper);
+        Plan p = planRepository.findWithExecutorsById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Plan not found"));
+        OptimisticLocking.check("Plan", id, p.getVersion(), patch.value("version", Long.class));
+        if (patch.has("name")) {
+            String name = patch.required("name", String.class);
+            if (name.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name must not be blank");
+            }
+            p.setName(name);
+        }
+        if (patch.has("description")) {
+            p.setDescription(patch.value("description", String.class));
+        }
+        if (patch.has("targetValue")) {
+            p.setTargetValue(patch.value("targetValue", BigDecimal.class));
+        }
+        if (patch.has("startDate")) {
+            p.setStartDate(patch.value("startDate", LocalDate.class));
+        }
+        if (patch.has("endDate")) {
+            p.setEndDate(patch.value("endDate", LocalDate.class));
+        }
+        if (patch.has("executorUserIds")) {
+            replaceExecutors(p, patch.requiredList("executorUserIds", Long.class));
+        }
+        return toDto(OptimisticLocking.saveAndFlush(planRepository, p, "Plan", id));
+    }
+
+    @Transactional
     public void delete(Long id) {
         planRepository.deleteById(id);
     }
 
-    private PlanDto toDto(Plan p) {
+    // Тема потока изменений отчетов плана (подписка — ChangeStreamService)
+    public String eventTopic(Long id) {
+        if (!planRepository.existsById(id)) {
+            throw new EntityNotFoundException("Plan not found with id " + id);
+        }
+        return ChangeEvent.planTopic(id);
+    }
+
+    // Все исполнители за одно обращение: из кэша второго уровня, недостающие — одним запросом
+    private Set<User> loadExecutors(Collection<Long> executorUserIds) {
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(executorUserIds));
+        List<User> users = userRepository.loadAllById(ids);
+        Set<User> execs = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (users.get(i) == null) {
+                throw new EntityNotFoundException("Executor user not found: " + ids.get(i));
+            }
+            execs.add(users.get(i));
+        }
+        return execs;
+    }
+
+    // Коллекция меняется на месте: в plan_executors удаляются и вставляются только отличающиеся строки,
+    // а уже назначенные исполнители не загружаются заново
+    private void replaceExecutors(Plan p, Collection<Long> executorUserIds) {
+        if (executorUserIds == null || executorUserIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "executorUserIds must not be empty");
+        }
+        Set<Long> added = new HashSet<>(executorUserIds);
+        Set<User> execs = p.getExecutors();
+        execs.removeIf(user -> !added.contains(user.getId()));
+        execs.forEach(user -> added.remove(user.getId()));
+        if (!added.isEmpty()) {
+            execs.addAll(loadExecutors(added));
+        }
+    }
+
+    private PlanDto toDto(PlanRepository.PlanView v, Set<Long> execIds) {
+        return new PlanDto(
+                v.id(),
+                v.version(),
+                v.name(),
+                v.description(),
+                v.targetValue(),
+                v.startDate(),
+                v.endDate(),
+                execIds,
+                v.createdByUserId(),
+                v.createdAt()
+        );
+    }
+
+    // Пакетная видимость — для бенчмарков в app-benchmarks
+    PlanDto toDto(Plan p) {
         Set<Long> execIds = p.getExecutors().stream()
                 .map(User::getId).collect(Collectors.toSet());
         return new PlanDto(
                 p.getId(),
+                p.getVersion(),
                 p.getName(),
                 p.getDescription(),
                 p.getTargetValue(),
@@ -0,0 +1,280 @@
+package com.example.app.service;
+
+import com.example.app.config.PreviewProperties;
+import com.example.app.config.StorageProperties;
+import com.example.app.entity.FileMetadata;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+// Миниатюры изображений и первой страницы PDF. Строятся в фоне на ограниченном пуле сразу после загрузки
+// и лежат на диске под SHA-256 оригинала: одинаковое содержимое дает одну миниатюру, а новое содержимое —
+// новый ключ, поэтому кэш не нужно инвалидировать. Если очередь переполнена или файл загружен раньше,
+// миниатюра строится по первому запросу.
+@Service
+public class PreviewService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PreviewService.class);
+
+    // Форматы, которые читает ImageIO из JDK; webp и svg без сторонних плагинов не читаются
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "tiff");
+    private static final String PDF = "pdf";
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final StorageBackend storageBackend;
+    private final StorageProperties storageProperties;
+    private final PreviewProperties previewProperties;
+    private final ThreadPoolExecutor executor;
+    // Запрос и фоновая задача для одного содержимого ждут одно построение
+    private final ConcurrentMap<String, CompletableFuture<Optional<Path>>> inFlight = new ConcurrentHashMap<>();
+
+    // Все, что нужно задаче: сущность JPA в другой поток не передаем
+    private record Source(String contentHash, String key, String contentEncoding, String extension) {
+    }
+
+    public PreviewService(StorageBackend storageBackend, StorageProperties storageProperties,
+                          PreviewProperties previewProperties) {
+        this.storageBackend = storageBackend;
+        this.storageProperties = storageProperties;
+        this.previewProperties = previewProperties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(previewProperties.threads(), previewProperties.threads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(previewProperties.queueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "preview-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static boolean supports(String filename) {
+        String extension = extensionOf(filename);
+        return IMAGE_EXTENSIONS.contains(extension) || PDF.equals(extension);
+    }
+
+    // Вызывается после сохранения нового содержимого; загрузку не задерживает
+    public void schedule(FileMetadata file) {
+        Source source = sourceOf(file);
+        if (source == null || Files.exists(previewPath(source.contentHash()))) {
+            return;
+        }
+        try {
+            submit(source);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Preview queue is full, {} will be rendered on first request", file.getFilename());
+        }
+    }
+
+    // Готовая миниатюра; если ее еще нет — строит и ждет не дольше waitTimeout.
+    // Пусто, если формат не поддерживается или файл не удалось прочитать
+    public Optional<Path> getPreview(FileMetadata file) {
+        Source source = sourceOf(file);
+        if (source == null) {
+            return Optional.empty();
+        }
+        Path path = previewPath(source.contentHash());
+        if (Files.exists(path)) {
+            return Optional.of(path);
+        }
+        try {
+            return submit(source).get(previewProperties.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Миниатюра еще строится");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Миниатюра еще строится");
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void evict(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(previewPath(contentHash));
+        } catch (IOException e) {
+            logger.warn("Failed to delete preview {}", contentHash, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Optional<Path>> submit(Source source) {
+        String contentHash = source.contentHash();
+        return inFlight.computeIfAbsent(contentHash, hash -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return render(source);
+            } finally {
+                inFlight.remove(hash);
+            }
+        }, executor));
+    }
+
+    private Optional<Path> render(Source source) {
+        Path target = previewPath(source.contentHash());
+        if (Files.exists(target)) {
+            return Optional.of(target);
+        }
+        Path original = null;
+        boolean temporary = false;
+        try {
+            Optional<Path> localPath = storageBackend.localPath(source.key());
+            if (localPath.isPresent() && source.contentEncoding() == null) {
+                original = localPath.get();
+            } else {
+                // PDFBox и ImageIO читают файл с произвольным доступом, поэтому удаленное или сжатое
+                // содержимое сначала выкладывается во временный файл
+                Files.createDirectories(storageProperties.stagingDirectory());
+                original = storageProperties.stagingDirectory().resolve("preview-" + UUID.randomUUID() + ".tmp");
+                temporary = true;
+                try (InputStream in = storageBackend.open(source.key());
+                     InputStream content = FileService.GZIP.equals(source.contentEncoding()) ? new GZIPInputStream(in) : in) {
+                    Files.copy(content, original);
+                }
+            }
+
+            BufferedImage image = PDF.equals(source.extension()) ? renderFirstPage(original) : readImage(original);
+            if (image == null) {
+                return Optional.empty();
+            }
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            writeJpeg(scale(image), tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return Optional.of(target);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to render preview for {}", source.contentHash(), e);
+            return Optional.empty();
+        } finally {
+            if (temporary) {
+                try {
+                    Files.deleteIfExists(original);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete temporary file {}", original, e);
+                }
+            }
+        }
+    }
+
+    private BufferedImage readImage(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Прореживание при чтении: снимок на десятки мегапикселей не разворачивается в память целиком
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (previewProperties.size() * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage renderFirstPage(Path original) throws IOException {
+        try (PDDocument document = Loader.loadPDF(original.toFile())) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            // Масштаб в пикселях на точку: страница рендерится сразу вдвое больше миниатюры, а не в 72/300 dpi
+            PDRectangle box = document.getPage(0).getCropBox();
+            float scale = previewProperties.size() * 2f / Math.max(box.getWidth(), box.getHeight());
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) previewProperties.size() / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // У JPEG нет прозрачности: прозрачные PNG и GIF кладем на белый фон
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Source sourceOf(FileMetadata file) {
+        if (file.getContentHash() == null || !supports(file.getFilename())) {
+            return null;
+        }
+        return new Source(file.getContentHash(), file.getFilePath(), file.getContentEncoding(),
+                extensionOf(file.getFilename()));
+    }
+
+    private Path previewPath(String contentHash) {
+        return Paths.get(previewProperties.directory()).toAbsolutePath().normalize()
+                .resolve(contentHash.substring(0, 2))
+                .resolve(contentHash + ".jpg");
+    }
+
+    private static String extensionOf(String filename) {
+        int lastIndexOf = filename == null ? -1 : filename.lastIndexOf(".");
+        return lastIndexOf == -1 ? "" : filename.substring(lastIndexOf + 1).toLowerCase();
+    }
+}
@@ -1,37 +1,75 @@
 package com.example.app.service;
 
+import com.example.app.config.ReportProperties;
+import com.example.app.dto.BulkReportResultDto;
 import com.example.app.dto.CreateQuarterlyReportDto;
+import com.example.app.dto.CursorPageDto;
 import com.example.app.dto.QuarterlyReportDto;
+import com.example.app.dto.QuarterlyReportFilterDto;
 import com.example.app.entity.Plan;
 import com.example.app.entity.QuarterlyReport;
 import com.example.app.entity.User;
 import com.example.app.repository.PlanRepository;
 import com.example.app.repository.QuarterlyReportRepository;
+import com.example.app.repository.QuarterlyReportSpecifications;
 import com.example.app.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class QuarterlyReportService {
+    // Совпадает с hibernate.jdbc.batch_size: после каждой пачки сбрасываем persistence context
+    private static final int BULK_FLUSH_SIZE = 50;
+    // id и дата создания не меняются; оценивший — тот, кто поставил оценку. assessedByUserId принимается
+    // и игнорируется до следующего релиза, как и в POST/PUT: старые клиенты еще присылают его
+    private static final Set<String> PATCH_FIELDS = Set.of("version", "planId", "reportingUserId",
+            "year", "quarter", "actualValue", "analystAssessmentScore", "assessedByUserId");
+    private static final Sort KEYSET_SORT = Sort.by(
+            Sort.Order.desc("year"), Sort.Order.desc("quarter"), Sort.Order.desc("id"));
+
     private final QuarterlyReportRepository quarterlyReportRepository;
     private final PlanRepository planRepository;
     private final UserRepository userRepository;
+    private final PlanRollupService planRollupService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ReportProperties reportProperties;
+
+    private record ReportGroup(Long planId, Integer year, Integer quarter) {
+    }
 
-    public QuarterlyReportDto create(CreateQuarterlyReportDto dto) {
+    // userId — пользователь из access-токена; если в отчете есть оценка, он записывается оценившим
+    @Transactional
+    public QuarterlyReportDto create(CreateQuarterlyReportDto dto, Long userId) {
         Plan plan = planRepository.findById(dto.planId())
                 .orElseThrow(() -> new EntityNotFoundException("Plan not found with id " + dto.planId()));
         User reportingUser = userRepository.findById(dto.reportingUserId())
                 .orElseThrow(() -> new EntityNotFoundException("Reporting user not found with id " + dto.reportingUserId()));
         User assessedByUser = null;
-        if (dto.assessedByUserId() != null) {
-            assessedByUser = userRepository.findById(dto.assessedByUserId())
-                    .orElseThrow(() -> new EntityNotFoundException("Assessed user not found with id " + dto.assessedByUserId()));
+        if (dto.analystAssessmentScore() != null) {
+            assessedByUser = userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId));
         }
 
         QuarterlyReport report = QuarterlyReport.builder()
@@ -45,57 +83,294 @@ public class QuarterlyReportService {
                 .createdAt(LocalDateTime.now())
                 .build();
         QuarterlyReport saved = quarterlyReportRepository.save(report);
-        return toDto(saved);
+        planRollupService.refresh(plan.getId(), saved.getYear(), saved.getQuarter());
+        QuarterlyReportDto result = toDto(saved);
+        eventPublisher.publishEvent(ChangeEvent.forReportAndPlan(ChangeEvent.REPORT_CREATED, result.id(),
+                result.planId(), result));
+        return result;
     }
 
+    @Transactional
+    public List<BulkReportResultDto> bulkCreate(List<CreateQuarterlyReportDto> dtos, Long userId) {
+        if (dtos.size() > reportProperties.bulkMaxSize()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + reportProperties.bulkMaxSize() + " reports per request, got " + dtos.size());
+        }
+        // Планы и пользователи проверяются двумя запросами на весь импорт, а не по findById на строку
+        Set<Long> planIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(userId);
+        for (CreateQuarterlyReportDto dto : dtos) {
+            if (dto == null) {
+                continue;
+            }
+            if (dto.planId() != null) planIds.add(dto.planId());
+            if (dto.reportingUserId() != null) userIds.add(dto.reportingUserId());
+        }
+        Map<Long, Plan> plans = planRepository.findAllById(planIds).stream()
+                .collect(Collectors.toMap(Plan::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        User assessor = users.get(userId);
+        if (assessor == null) {
+            throw new EntityNotFoundException("User not found with id " + userId);
+        }
+
+        List<BulkReportResultDto> results = new ArrayList<>(dtos.size());
+        List<QuarterlyReport> pending = new ArrayList<>(BULK_FLUSH_SIZE);
+        List<Integer> pendingIndexes = new ArrayList<>(BULK_FLUSH_SIZE);
+        Set<ReportGroup> touchedGroups = new LinkedHashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            CreateQuarterlyReportDto dto = dtos.get(i);
+            String error = validateBulkRow(dto, plans, users);
+            if (error != null) {
+                results.add(new BulkReportResultDto(i, null, error));
+                continue;
+            }
+
+            QuarterlyReport report = QuarterlyReport.builder()
+                    .plan(plans.get(dto.planId()))
+                    .reportingUser(users.get(dto.reportingUserId()))
+                    .assessedByUser(dto.analystAssessmentScore() != null ? assessor : null)
+                    .year(dto.year())
+                    .quarter(dto.quarter())
+                    .actualValue(dto.actualValue())
+                    .analystAssessmentScore(dto.analystAssessmentScore())
+                    .createdAt(now)
+                    .build();
+            entityManager.persist(report);
+            pending.add(report);
+            pendingIndexes.add(i);
+            touchedGroups.add(new ReportGroup(dto.planId(), dto.year(), dto.quarter()));
+
+            if (pending.size() == BULK_FLUSH_SIZE) {
+                flushBulkBatch(pending, pendingIndexes, results);
+            }
+        }
+        flushBulkBatch(pending, pendingIndexes, results);
+
+        touchedGroups.forEach(g -> planRollupService.refresh(g.planId(), g.year(), g.quarter()));
+        // Отчеты импорта не рассылаются по одному: страницам затронутых планов достаточно перечитать список
+        touchedGroups.stream().map(ReportGroup::planId).distinct().forEach(planId ->
+                eventPublisher.publishEvent(ChangeEvent.forPlan(ChangeEvent.RESET, planId, Map.of())));
+        results.sort(Comparator.comparingInt(BulkReportResultDto::index));
+        return results;
+    }
+
+    @Transactional(readOnly = true)
     public QuarterlyReportDto getById(Long id) {
-        QuarterlyReport report = quarterlyReportRepository.findById(Math.toIntExact(id))
+        return quarterlyReportRepository.findDtoById(Math.toIntExact(id))
                 .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + id));
-        return toDto(report);
     }
 
+    @Transactional(readOnly = true)
     public List<QuarterlyReportDto> getAll() {
-        return quarterlyReportRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return quarterlyReportRepository.findAllAsDto();
     }
 
-    public QuarterlyReportDto update(Long id, CreateQuarterlyReportDto dto) {
+    @Transactional(readOnly = true)
+    public CursorPageDto<QuarterlyReportDto> getPage(QuarterlyReportFilterDto filter, String cursor, Integer limit) {
+        int pageSize = CursorPaging.pageSize(limit);
+
+        Specification<QuarterlyReport> spec = QuarterlyReportSpecifications.matches(filter);
+        // Позиция — год, квартал и id последней строки предыдущей страницы; год и квартал могут быть null
+        Long[] position = CursorPaging.decode(cursor, 3);
+        if (position != null) {
+            if (position[2] == null) {
+                throw CursorPaging.invalid(cursor);
+            }
+            spec = spec.and(QuarterlyReportSpecifications.after(
+                    toInt(position[0], cursor), toInt(position[1], cursor), position[2]));
+        }
+
+        List<QuarterlyReport> rows = quarterlyReportRepository.findBy(spec,
+                q -> q.sortBy(KEYSET_SORT).limit(pageSize + 1).all());
+        CursorPageDto<QuarterlyReport> page = CursorPaging.page(rows, pageSize,
+                last -> CursorPaging.encode(last.getYear(), last.getQuarter(), last.getId()));
+        return new CursorPageDto<>(
+                page.items().stream().map(this::toDto).collect(Collectors.toList()),
+                page.nextCursor()
+        );
+    }
+
+    @Transactional
+    public QuarterlyReportDto update(Long id, CreateQuarterlyReportDto dto, Long userId) {
         QuarterlyReport report = quarterlyReportRepository.findById(Math.toIntExact(id))
                 .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + id));
-        Plan plan = planRepository.findById(dto.planId())
-                .orElseThrow(() -> new EntityNotFoundException("Plan not found with id " + dto.planId()));
-        User reportingUser = userRepository.findById(dto.reportingUserId())
-                .orElseThrow(() -> new EntityNotFoundException("Reporting user not found with id " + dto.reportingUserId()));
-        User assessedByUser = null;
-        if (dto.assessedByUserId() != null) {
-            assessedByUser = userRepository.findById(dto.assessedByUserId())
-                    .orElseThrow(() -> new EntityNotFoundException("Assessed user not found with id " + dto.assessedByUserId()));
-        }
+        OptimisticLocking.check("Report", id, report.getVersion(), dto.version());
+        ReportGroup oldGroup = groupOf(report);
 
-        report.setPlan(plan);
-        report.setReportingUser(reportingUser);
-        report.setAssessedByUser(assessedByUser);
+        setPlan(report, dto.planId());
+        setReportingUser(report, dto.reportingUserId());
         report.setYear(dto.year());
         report.setQuarter(dto.quarter());
         report.setActualValue(dto.actualValue());
-        report.setAnalystAssessmentScore(dto.analystAssessmentScore());
-        QuarterlyReport updated = quarterlyReportRepository.save(report);
-        return toDto(updated);
+        assess(report, dto.analystAssessmentScore(), userId);
+        return saveUpdated(id, report, oldGroup);
     }
 
+    // JSON Merge Patch: меняются только переданные поля, UPDATE пишет только их колонки
+    @Transactional
+    public QuarterlyReportDto patch(Long id, JsonNode body, Long userId) {
+        MergePatch patch = MergePatch.of(body, PATCH_FIELDS, objectMapper);
+        QuarterlyReport report = quarterlyReportRepository.findById(Math.toIntExact(id))
+                .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + id));
+        OptimisticLocking.check("Report", id, report.getVersion(), patch.value("version", Long.class));
+        ReportGroup oldGroup = groupOf(report);
+
+        if (patch.has("planId")) {
+            setPlan(report, patch.required("planId", Long.class));
+        }
+        if (patch.has("reportingUserId")) {
+            setReportingUser(report, patch.required("reportingUserId", Long.class));
+        }
+        if (patch.has("year")) {
+            report.setYear(patch.required("year", Integer.class));
+        }
+        if (patch.has("quarter")) {
+            report.setQuarter(patch.required("quarter", Integer.class));
+        }
+        if (patch.has("actualValue")) {
+            report.setActualValue(patch.required("actualValue", BigDecimal.class));
+        }
+        if (patch.has("analystAssessmentScore")) {
+            assess(report, patch.value("analystAssessmentScore", Integer.class), userId);
+        }
+        return saveUpdated(id, report, oldGroup);
+    }
+
+    @Transactional
     public void delete(Long id) {
+        QuarterlyReport report = quarterlyReportRepository.findById(Math.toIntExact(id))
+                .orElseThrow(() -> new EntityNotFoundException("Report not found with id " + id));
+        quarterlyReportRepository.delete(report);
+        planRollupService.refresh(report.getPlan().getId(), report.getYear(), report.getQuarter());
+        eventPublisher.publishEvent(ChangeEvent.forReportAndPlan(ChangeEvent.REPORT_DELETED, report.getId(),
+                report.getPlan().getId(), ChangeEvent.deleted(report.getId())));
+    }
+
+    // Тема потока изменений отчета, его комментариев и документов (подписка — ChangeStreamService)
+    public String eventTopic(Long id) {
         if (!quarterlyReportRepository.existsById(Math.toIntExact(id))) {
             throw new EntityNotFoundException("Report not found with id " + id);
         }
-        quarterlyReportRepository.deleteById(Math.toIntExact(id));
+        return ChangeEvent.reportTopic(id);
+    }
+
+    // Связи перечитываются, только если id изменился: прежние план и пользователи остаются ссылками без запроса
+    private void setPlan(QuarterlyReport report, Long planId) {
+        if (planId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "planId must not be null");
+        }
+        if (!planId.equals(report.getPlan().getId())) {
+            report.setPlan(planRepository.findById(planId)
+                    .orElseThrow(() -> new EntityNotFoundException("Plan not found with id " + planId)));
+        }
+    }
+
+    private void setReportingUser(QuarterlyReport report, Long userId) {
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "reportingUserId must not be null");
+        }
+        if (!userId.equals(report.getReportingUser().getId())) {
+            report.setReportingUser(userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("Reporting user not found with id " + userId)));
+        }
+    }
+
+    // Оценивший — тот, кто поставил или изменил оценку; снятая оценка снимает и его.
+    // Правка других полей отчета с прежней оценкой оценившего не меняет
+    private void assess(QuarterlyReport report, Integer score, Long userId) {
+        if (score == null) {
+            report.setAssessedByUser(null);
+        } else if (!score.equals(report.getAnalystAssessmentScore()) || report.getAssessedByUser() == null) {
+            report.setAssessedByUser(userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId)));
+        }
+        report.setAnalystAssessmentScore(score);
+    }
+
+    // Общая часть PUT и PATCH: запись с проверкой версии, пересчет сводок и события
+    private QuarterlyReportDto saveUpdated(Long id, QuarterlyReport report, ReportGroup oldGroup) {
+        if (report.getYear() == null || report.getYear() < 2000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "year must be 2000 or later");
+        }
+        if (report.getQuarter() == null || report.getQuarter() < 1 || report.getQuarter() > 4) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quarter must be between 1 and 4");
+        }
+        if (report.getActualValue() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "actualValue must not be null");
+        }
+        QuarterlyReport updated = OptimisticLocking.saveAndFlush(quarterlyReportRepository, report, "Report", id);
+        ReportGroup group = groupOf(updated);
+        planRollupService.refresh(group.planId(), group.year(), group.quarter());
+        if (!group.equals(oldGroup)) {
+            planRollupService.refresh(oldGroup.planId(), oldGroup.year(), oldGroup.quarter());
+        }
+        QuarterlyReportDto result = toDto(updated);
+        eventPublisher.publishEvent(ChangeEvent.forReportAndPlan(ChangeEvent.REPORT_UPDATED, result.id(),
+                result.planId(), result));
+        if (!oldGroup.planId().equals(result.planId())) {
+            eventPublisher.publishEvent(ChangeEvent.forPlan(ChangeEvent.REPORT_DELETED, oldGroup.planId(),
+                    ChangeEvent.deleted(id)));
+        }
+        return result;
+    }
+
+    private static ReportGroup groupOf(QuarterlyReport report) {
+        return new ReportGroup(report.getPlan().getId(), report.getYear(), report.getQuarter());
+    }
+
+    // Ограничения — те же аннотации CreateQuarterlyReportDto, что проверяет @Valid у одиночного создания;
+    // ошибка строки не прерывает импорт, а попадает в ее результат
+    private String validateBulkRow(CreateQuarterlyReportDto dto, Map<Long, Plan> plans, Map<Long, User> users) {
+        if (dto == null) return "Empty row";
+        Set<ConstraintViolation<CreateQuarterlyReportDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!plans.containsKey(dto.planId())) return "Plan not found with id " + dto.planId();
+        if (!users.containsKey(dto.reportingUserId())) return "Reporting user not found with id " + dto.reportingUserId();
+        return null;
+    }
+
+    private void flushBulkBatch(List<QuarterlyReport> pending, List<Integer> pendingIndexes,
+                                List<BulkReportResultDto> results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int j = 0; j < pending.size(); j++) {
+            results.add(new BulkReportResultDto(pendingIndexes.get(j), pending.get(j).getId(), null));
+        }
+        // Отчеты больше не нужны в контексте; планы и пользователи остаются ссылками по id
+        pending.forEach(entityManager::detach);
+        pending.clear();
+        pendingIndexes.clear();
+    }
+
+    private static Integer toInt(Long value, String cursor) {
+        if (value == null) {
+            return null;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw CursorPaging.invalid(cursor);
+        }
+        return value.intValue();
     }
 
-    private QuarterlyReportDto toDto(QuarterlyReport report) {
+    // Пакетная видимость — для бенчмарков в app-benchmarks
+    QuarterlyReportDto toDto(QuarterlyReport report) {
         Long assessedById = report.getAssessedByUser() != null
                 ? report.getAssessedByUser().getId() : null;
         return new QuarterlyReportDto(
                 report.getId(),
+                report.getVersion(),
                 report.getPlan().getId(),
                 report.getReportingUser().getId(),
                 assessedById,
@@ -0,0 +1,185 @@
+package com.example.app.service;
+
+import com.example.app.config.StorageProperties;
+import com.example.app.config.UploadProperties;
+import com.example.app.entity.FileMetadata;
+import com.example.app.entity.UploadSession;
+import com.example.app.repository.UploadSessionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Докачиваемая загрузка по образцу протокола tus: клиент создает загрузку известной длины и дописывает ее
+// кусками с явным смещением, а после обрыва узнает у сервера, сколько байт дошло, и продолжает с этого места.
+// Когда получен последний байт, файл проходит те же проверки, что и обычная загрузка, и переносится в хранилище.
+@Service
+@RequiredArgsConstructor
+public class ResumableUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileService fileService;
+    private final StorageProperties storageProperties;
+    private final UploadProperties uploadProperties;
+
+    // Дописывать в одну загрузку может только один запрос, иначе смещения перепутаются
+    private final Set<String> activeUploads = ConcurrentHashMap.newKeySet();
+
+    // file заполнен, когда загрузка завершена
+    public record UploadProgress(long offset, long length, FileMetadata file) {
+    }
+
+    public UploadSession create(String originalFilename, long length) {
+        fileService.validateFilename(originalFilename);
+        if (length <= 0) {
+            throw new IllegalArgumentException("Файл не может быть пустым");
+        }
+        if (length > uploadProperties.maxSize().toBytes()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Размер файла больше " + uploadProperties.maxSize().toMegabytes() + "МБ");
+        }
+        removeExpired();
+
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .originalFilename(originalFilename)
+                .length(length)
+                .createdAt(LocalDateTime.now())
+                .build();
+        try {
+            Files.createDirectories(storageProperties.stagingDirectory());
+            Files.createFile(partFile(session.getId()));
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать загрузку", e);
+        }
+        return uploadSessionRepository.save(session);
+    }
+
+    public UploadProgress getProgress(String id) {
+        UploadSession session = find(id);
+        return new UploadProgress(receivedBytes(session), session.getLength(), null);
+    }
+
+    public UploadProgress append(String id, long offset, InputStream content) {
+        UploadSession session = find(id);
+        if (!activeUploads.add(id)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Загрузка уже дописывается другим запросом");
+        }
+        try {
+            long received = receivedBytes(session);
+            if (offset != received) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Смещение " + offset + " не совпадает с принятым " + received);
+            }
+            long length = session.getLength();
+            Path part = partFile(id);
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                long remaining = length - received;
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (remaining > 0 && (read = content.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                if (remaining == 0 && content.read() >= 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Данных больше, чем объявлено в Upload-Length");
+                }
+            } catch (IOException e) {
+                // Дошедшие до обрыва байты остаются в файле, клиент продолжит с нового смещения
+                throw new RuntimeException("Загрузка прервана", e);
+            }
+
+            received = receivedBytes(session);
+            if (offset < FileSignatures.HEADER_SIZE) {
+                verifySignature(session, part, received);
+            }
+            if (received < length) {
+                return new UploadProgress(received, length, null);
+            }
+            uploadSessionRepository.delete(session);
+            return new UploadProgress(received, length, fileService.uploadStaged(session.getOriginalFilename(), part));
+        } finally {
+            activeUploads.remove(id);
+        }
+    }
+
+    public void cancel(String id) {
+        UploadSession session = find(id);
+        if (activeUploads.contains(id)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Загрузка уже дописывается другим запросом");
+        }
+        remove(session);
+    }
+
+    // Неподходящий файл отклоняется сразу после первых байт, а не после передачи всего содержимого
+    private void verifySignature(UploadSession session, Path part, long received) {
+        if (received < Math.min(FileSignatures.HEADER_SIZE, session.getLength())) {
+            return;
+        }
+        String fileExtension = fileService.validateFilename(session.getOriginalFilename());
+        byte[] header = new byte[FileSignatures.HEADER_SIZE];
+        int headerLength;
+        try (InputStream in = Files.newInputStream(part)) {
+            headerLength = in.readNBytes(header, 0, header.length);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать загрузку", e);
+        }
+        if (!FileSignatures.matches(fileExtension, header, headerLength)) {
+            remove(session);
+            throw new IllegalArgumentException("Содержимое файла не соответствует формату " + fileExtension);
+        }
+    }
+
+    private void removeExpired() {
+        List<UploadSession> expired = uploadSessionRepository.findByCreatedAtBefore(
+                LocalDateTime.now().minus(uploadProperties.resumableExpiry()));
+        expired.stream().filter(session -> !activeUploads.contains(session.getId())).forEach(this::remove);
+    }
+
+    private void remove(UploadSession session) {
+        uploadSessionRepository.delete(session);
+        try {
+            Files.deleteIfExists(partFile(session.getId()));
+        } catch (IOException e) {
+            logger.warn("Failed to delete upload {}", session.getId(), e);
+        }
+    }
+
+    private UploadSession find(String id) {
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Загрузка не найдена"));
+    }
+
+    // Смещение не хранится в БД: размер файла всегда точен, даже если запрос оборвался посреди записи
+    private long receivedBytes(UploadSession session) {
+        try {
+            return Files.size(partFile(session.getId()));
+        } catch (IOException e) {
+            throw new EntityNotFoundException("Загрузка не найдена");
+        }
+    }
+
+    private Path partFile(String id) {
+        return storageProperties.stagingDirectory().resolve("resumable-" + id + ".part");
+    }
+}
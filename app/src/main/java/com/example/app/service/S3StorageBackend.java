@@ -0,0 +1,197 @@
+package com.example.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.ContentDisposition;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Хранение в S3-совместимом хранилище. Крупные файлы грузятся multipart-ом с параллельной отправкой частей,
+// каждая часть читается с диска потоком; скачивание отдается клиенту presigned-ссылкой.
+public class S3StorageBackend implements StorageBackend, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final long partSize;
+    private final Duration presignTtl;
+    private final ExecutorService uploadExecutor;
+
+    public S3StorageBackend(S3Client s3, S3Presigner presigner, String bucket,
+                            long partSize, int uploadConcurrency, Duration presignTtl) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.presignTtl = presignTtl;
+        this.uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency);
+    }
+
+    @Override
+    public void store(String key, Path source, String contentType, String contentEncoding) throws IOException {
+        long size = Files.size(source);
+        if (size <= partSize) {
+            s3.putObject(b -> b.bucket(bucket).key(key).contentType(contentType).contentEncoding(contentEncoding),
+                    RequestBody.fromFile(source));
+        } else {
+            uploadMultipart(key, source, size, contentType, contentEncoding);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private void uploadMultipart(String key, Path source, long size,
+                                 String contentType, String contentEncoding) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(key)
+                .contentType(contentType).contentEncoding(contentEncoding)).uploadId();
+        try {
+            List<Future<CompletedPart>> futures = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                int number = partNumber;
+                long start = offset;
+                futures.add(uploadExecutor.submit(() -> {
+                    // Провайдер открывает файл заново на каждую попытку, поэтому повторы SDK безопасны
+                    RequestBody body = RequestBody.fromContentProvider(
+                            () -> openSlice(source, start, length), length, "application/octet-stream");
+                    String etag = s3.uploadPart(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                            .partNumber(number).contentLength(length), body).eTag();
+                    return CompletedPart.builder().partNumber(number).eTag(etag).build();
+                }));
+            }
+
+            List<CompletedPart> parts = new ArrayList<>();
+            for (Future<CompletedPart> future : futures) {
+                parts.add(future.get());
+            }
+            parts.sort(Comparator.comparing(CompletedPart::partNumber));
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(parts)));
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            logger.warn("Aborting multipart upload {} of {}", uploadId, key);
+            s3.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Multipart upload of " + key + " failed", e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return s3.getObject(b -> b.bucket(bucket).key(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(b -> b.bucket(bucket).key(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<URI> downloadUrl(String key, String attachmentName, String contentType) {
+        String disposition = attachmentName != null
+                ? ContentDisposition.attachment().filename(attachmentName, StandardCharsets.UTF_8).build().toString()
+                : null;
+        URI url = URI.create(presigner.presignGetObject(p -> p.signatureDuration(presignTtl)
+                        .getObjectRequest(g -> g.bucket(bucket).key(key)
+                                .responseContentType(contentType)
+                                .responseContentDisposition(disposition)))
+                .url().toString());
+        return Optional.of(url);
+    }
+
+    @Override
+    public void destroy() {
+        uploadExecutor.shutdown();
+        presigner.close();
+        s3.close();
+    }
+
+    private static InputStream openSlice(Path source, long start, long length) {
+        try {
+            InputStream in = Files.newInputStream(source);
+            in.skipNBytes(start);
+            return new SliceInputStream(in, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Не дает прочитать больше length байт: часть multipart-загрузки заканчивается раньше файла
+    private static final class SliceInputStream extends FilterInputStream {
+        private long remaining;
+
+        SliceInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
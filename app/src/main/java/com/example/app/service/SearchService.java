@@ -0,0 +1,79 @@
+package com.example.app.service;
+
+import com.example.app.config.SearchProperties;
+import com.example.app.dto.CursorPageDto;
+import com.example.app.dto.SearchResultDto;
+import com.example.app.repository.SearchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Поиск по планам, комментариям и тексту документов. Отчеты своих текстовых полей не имеют
+// и находятся через комментарии и документы (в результате есть reportId)
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_QUERY_LENGTH = 200;
+    // Дальше по ранжированию смотреть незачем, а глубокий OFFSET ранжирует все совпадения заново
+    private static final int MAX_OFFSET = 1000;
+
+    private final SearchRepository searchRepository;
+    private final SearchProperties searchProperties;
+    private final DataSource dataSource;
+
+    private volatile Boolean supported;
+
+    // cursor — смещение следующей страницы: результаты упорядочены по рангу, а не по id
+    public CursorPageDto<SearchResultDto> search(String query, Collection<SearchResultDto.Type> types,
+                                                 String cursor, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must not be blank");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query must not be longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (!isSupported()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Full-text search requires PostgreSQL");
+        }
+        int pageSize = CursorPaging.pageSize(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        long offset = CursorPaging.parseLong(cursor, 0L);
+        if (offset < 0 || offset > MAX_OFFSET) {
+            throw CursorPaging.invalid(cursor);
+        }
+        Set<SearchResultDto.Type> searched = types == null || types.isEmpty()
+                ? EnumSet.allOf(SearchResultDto.Type.class)
+                : EnumSet.copyOf(types);
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<SearchResultDto> rows = searchRepository.search(searchProperties.language(), query.strip(), searched,
+                (int) offset, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize && offset + pageSize <= MAX_OFFSET;
+        List<SearchResultDto> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        return new CursorPageDto<>(page, hasNext ? String.valueOf(offset + pageSize) : null);
+    }
+
+    private boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                result = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to read database metadata", e);
+            }
+            supported = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Где физически лежит содержимое файлов. Ключи вида blobs/ab/<sha256> выдает FileService,
+// метаданные и счетчики ссылок остаются в БД.
+public interface StorageBackend {
+
+    // Переносит подготовленный локальный файл в хранилище; после вызова source больше не существует
+    void store(String key, Path source, String contentType, String contentEncoding) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Файл на диске приложения (для sendfile); пусто, если содержимое хранится удаленно
+    Optional<Path> localPath(String key);
+
+    // Прямая ссылка для скачивания в обход приложения; пусто, если хранилище так не умеет
+    Optional<URI> downloadUrl(String key, String attachmentName, String contentType);
+}
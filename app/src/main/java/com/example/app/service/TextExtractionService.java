@@ -0,0 +1,151 @@
+package com.example.app.service;
+
+import com.example.app.config.SearchProperties;
+import com.example.app.config.StorageProperties;
+import com.example.app.entity.FileMetadata;
+import com.example.app.entity.FileText;
+import com.example.app.repository.FileTextRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+// Извлечение текста документов для поиска. Идет в фоне на ограниченном пуле, как и миниатюры: загрузка
+// не ждет разбора PDF. Что не попало в очередь или было загружено раньше, дозаполняет backfill() при запуске
+@Service
+public class TextExtractionService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(TextExtractionService.class);
+    private static final int BACKFILL_BATCH = 100;
+
+    private final StorageBackend storageBackend;
+    private final StorageProperties storageProperties;
+    private final SearchProperties searchProperties;
+    private final FileTextRepository fileTextRepository;
+    private final ThreadPoolExecutor executor;
+
+    // Все, что нужно задаче: сущность JPA в другой поток не передаем
+    private record Source(Long fileId, String key, String contentEncoding, String extension) {
+    }
+
+    public TextExtractionService(StorageBackend storageBackend, StorageProperties storageProperties,
+                                 SearchProperties searchProperties, FileTextRepository fileTextRepository) {
+        this.storageBackend = storageBackend;
+        this.storageProperties = storageProperties;
+        this.searchProperties = searchProperties;
+        this.fileTextRepository = fileTextRepository;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(searchProperties.extractionThreads(), searchProperties.extractionThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(searchProperties.extractionQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "text-extraction-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    // Вызывается после сохранения нового содержимого
+    public void schedule(FileMetadata file) {
+        Source source = sourceOf(file);
+        if (source == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> extract(source));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Text extraction queue is full, {} will be indexed on next start", file.getFilename());
+        }
+    }
+
+    // Одна задача проходит по всем файлам без текста порциями; файлы неподдерживаемых форматов пропускаются
+    public void backfill() {
+        try {
+            executor.execute(() -> {
+                long afterId = 0;
+                int extracted = 0;
+                List<FileMetadata> batch;
+                do {
+                    batch = fileTextRepository.findWithoutText(afterId, Limit.of(BACKFILL_BATCH));
+                    for (FileMetadata file : batch) {
+                        afterId = file.getId();
+                        Source source = sourceOf(file);
+                        if (source != null && extract(source)) {
+                            extracted++;
+                        }
+                    }
+                } while (batch.size() == BACKFILL_BATCH && !Thread.currentThread().isInterrupted());
+                if (extracted > 0) {
+                    logger.info("Extracted text from {} previously uploaded files", extracted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Text extraction queue is full, backfill skipped");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private boolean extract(Source source) {
+        int maxLength = searchProperties.maxTextLength();
+        Path temporary = null;
+        try {
+            String text;
+            try (InputStream in = storageBackend.open(source.key());
+                 InputStream content = FileService.GZIP.equals(source.contentEncoding()) ? new GZIPInputStream(in) : in) {
+                if (TextExtractor.PDF.equals(source.extension())) {
+                    // PDFBox читает файл с произвольным доступом
+                    Files.createDirectories(storageProperties.stagingDirectory());
+                    temporary = storageProperties.stagingDirectory().resolve("text-" + UUID.randomUUID() + ".tmp");
+                    Files.copy(content, temporary);
+                    text = TextExtractor.extractPdf(temporary, maxLength);
+                } else {
+                    text = TextExtractor.extract(source.extension(), content, maxLength);
+                }
+            }
+            fileTextRepository.save(new FileText(source.fileId(), text, LocalDateTime.now()));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to extract text from file {}", source.fileId(), e);
+            return false;
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete temporary file {}", temporary, e);
+                }
+            }
+        }
+    }
+
+    private Source sourceOf(FileMetadata file) {
+        String extension = extensionOf(file.getFilename());
+        if (file.getContentHash() == null || !TextExtractor.supports(extension)) {
+            return null;
+        }
+        return new Source(file.getId(), file.getFilePath(), file.getContentEncoding(), extension);
+    }
+
+    private static String extensionOf(String filename) {
+        int lastIndexOf = filename == null ? -1 : filename.lastIndexOf(".");
+        return lastIndexOf == -1 ? "" : filename.substring(lastIndexOf + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.app.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.rtf.RTFEditorKit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Текст документа для поиска. Офисные форматы — zip с XML внутри, поэтому читаются без сторонних
+// библиотек: берется только текст абзацев, без разметки. Старые двоичные doc/xls/ppt не поддерживаются
+final class TextExtractor {
+    static final String PDF = "pdf";
+
+    private static final Set<String> PLAIN = Set.of("txt", "csv");
+    private static final Set<String> ODF = Set.of("odt", "ods", "odp");
+    // Где лежит текст в OOXML: документ Word, общие строки Excel, слайды PowerPoint
+    private static final Map<String, Predicate<String>> OOXML_PARTS = Map.of(
+            "docx", name -> name.equals("word/document.xml"),
+            "docm", name -> name.equals("word/document.xml"),
+            "xlsx", name -> name.equals("xl/sharedStrings.xml"),
+            "xlsm", name -> name.equals("xl/sharedStrings.xml"),
+            "pptx", name -> name.startsWith("ppt/slides/slide") && name.endsWith(".xml")
+    );
+    // Элементы, после которых ставится пробел: абзацы, ячейки, табуляции и переводы строк
+    private static final Set<String> SEPARATORS = Set.of("p", "h", "si", "tab", "br", "s", "line-break");
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private TextExtractor() {
+    }
+
+    static boolean supports(String extension) {
+        return PDF.equals(extension) || PLAIN.contains(extension) || ODF.contains(extension)
+                || OOXML_PARTS.containsKey(extension) || "rtf".equals(extension);
+    }
+
+    // PDF читается с произвольным доступом, поэтому ему нужен файл; остальные форматы — поток
+    static String extractPdf(Path file, int maxLength) throws IOException {
+        try (PDDocument document = Loader.loadPDF(file.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            StringBuilder text = new StringBuilder();
+            // Постранично, чтобы не разбирать весь документ, когда лимит уже набран
+            for (int page = 1; page <= document.getNumberOfPages() && text.length() < maxLength; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                text.append(stripper.getText(document)).append('\n');
+            }
+            return clean(text, maxLength);
+        }
+    }
+
+    static String extract(String extension, InputStream in, int maxLength) throws IOException {
+        if (PLAIN.contains(extension)) {
+            return clean(readText(in, maxLength), maxLength);
+        }
+        if ("rtf".equals(extension)) {
+            return extractRtf(in, maxLength);
+        }
+        Predicate<String> parts = ODF.contains(extension) ? name -> name.equals("content.xml") : OOXML_PARTS.get(extension);
+        if (parts == null) {
+            return "";
+        }
+        // В OOXML текст только внутри <t>; в ODF текст абзацев лежит прямо в элементах text:p/text:span
+        boolean onlyT = !ODF.contains(extension);
+        StringBuilder text = new StringBuilder();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null && text.length() < maxLength) {
+                if (!entry.isDirectory() && parts.test(entry.getName())) {
+                    appendXmlText(zip, onlyT, text, maxLength);
+                }
+            }
+        }
+        return clean(text, maxLength);
+    }
+
+    private static void appendXmlText(InputStream in, boolean onlyT, StringBuilder text, int maxLength) throws IOException {
+        try {
+            XMLStreamReader reader = XML.createXMLStreamReader(new NonClosingInputStream(in));
+            try {
+                int textDepth = 0;
+                while (reader.hasNext() && text.length() < maxLength) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> {
+                            if ("t".equals(reader.getLocalName())) {
+                                textDepth++;
+                            }
+                        }
+                        case XMLStreamConstants.END_ELEMENT -> {
+                            String name = reader.getLocalName();
+                            if ("t".equals(name)) {
+                                textDepth--;
+                            } else if (SEPARATORS.contains(name)) {
+                                text.append(' ');
+                            }
+                        }
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                            if (!onlyT || textDepth > 0) {
+                                text.append(reader.getText());
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed document XML", e);
+        }
+    }
+
+    private static String extractRtf(InputStream in, int maxLength) throws IOException {
+        RTFEditorKit kit = new RTFEditorKit();
+        Document document = kit.createDefaultDocument();
+        try {
+            kit.read(in, document, 0);
+            return clean(new StringBuilder(document.getText(0, Math.min(document.getLength(), maxLength))), maxLength);
+        } catch (BadLocationException e) {
+            throw new IOException("Malformed RTF", e);
+        }
+    }
+
+    // Текстовые файлы бывают не в UTF-8: неверные байты заменяются, а не валят извлечение
+    private static StringBuilder readText(InputStream in, int maxLength) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while (text.length() < maxLength && (read = reader.read(buffer)) >= 0) {
+            text.append(buffer, 0, read);
+        }
+        return text;
+    }
+
+    // PostgreSQL не принимает NUL в TEXT; пробелы схлопываются, чтобы лимит тратился на слова
+    private static String clean(StringBuilder text, int maxLength) {
+        String cleaned = text.toString().replace('\u0000', ' ').replaceAll("\\s+", " ").trim();
+        return cleaned.length() > maxLength ? cleaned.substring(0, maxLength) : cleaned;
+    }
+
+    // Парсер XML закрывает поток по окончании, а закрывать ZipInputStream на каждой записи нельзя
+    private static final class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.app.service;
+
+import com.example.app.config.AuthProperties;
+import com.example.app.dto.AuthenticatedUser;
+import com.example.app.dto.TokenResponseDto;
+import com.example.app.dto.UserDto;
+import com.example.app.entity.User;
+import com.example.app.entity.UserRole;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+// Токены в формате JWT с подписью HS256. Access-токен проверяется только по подписи и сроку — без
+// обращения к БД, поэтому роль в нем может устареть не больше чем на accessTtl. Refresh-токен живет
+// дольше и при обмене сверяется с БД: после удаления пользователя или смены пароля он перестает работать
+@Service
+public class TokenService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final AuthProperties properties;
+    private final SecretKeySpec key;
+
+    // pwd — отпечаток хеша пароля, только в refresh-токене
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Claims(String sub, String typ, UserRole role, String pwd, long exp) {
+    }
+
+    public record RefreshClaims(Long userId, String passwordFingerprint) {
+    }
+
+    public TokenService(ObjectMapper objectMapper, AuthProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        byte[] secret;
+        if (properties.secret() == null || properties.secret().isBlank()) {
+            logger.warn("app.auth.secret is not set: tokens are signed with a random key and will not survive a restart");
+            secret = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = properties.secret().getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("app.auth.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public TokenResponseDto issue(User user, UserDto dto) {
+        long now = Instant.now().getEpochSecond();
+        String subject = String.valueOf(user.getId());
+        String accessToken = sign(new Claims(subject, ACCESS, user.getUserRole(), null,
+                now + properties.accessTtl().toSeconds()));
+        String refreshToken = sign(new Claims(subject, REFRESH, null, passwordFingerprint(user.getPasswordHash()),
+                now + properties.refreshTtl().toSeconds()));
+        return new TokenResponseDto(dto, accessToken, refreshToken, properties.accessTtl().toSeconds());
+    }
+
+    public AuthenticatedUser verifyAccess(String token) {
+        Claims claims = verify(token, ACCESS);
+        return new AuthenticatedUser(Long.valueOf(claims.sub()), claims.role());
+    }
+
+    public RefreshClaims verifyRefresh(String token) {
+        Claims claims = verify(token, REFRESH);
+        return new RefreshClaims(Long.valueOf(claims.sub()), claims.pwd());
+    }
+
+    // Сам хеш пароля в токен не попадает, только подпись от него
+    public String passwordFingerprint(String passwordHash) {
+        byte[] mac = mac(passwordHash.getBytes(StandardCharsets.UTF_8));
+        return ENCODER.encodeToString(mac).substring(0, 16);
+    }
+
+    private String sign(Claims claims) {
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String unsigned = HEADER + "." + payload;
+            return unsigned + "." + ENCODER.encodeToString(mac(unsigned.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize token", e);
+        }
+    }
+
+    private Claims verify(String token, String type) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot || !HEADER.equals(token.substring(0, firstDot))) {
+            throw invalid();
+        }
+        Claims claims;
+        try {
+            byte[] signature = DECODER.decode(token.substring(lastDot + 1));
+            byte[] expected = mac(token.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(signature, expected)) {
+                throw invalid();
+            }
+            claims = objectMapper.readValue(DECODER.decode(token.substring(firstDot + 1, lastDot)), Claims.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw invalid();
+        }
+        if (!type.equals(claims.typ()) || claims.sub() == null) {
+            throw invalid();
+        }
+        if (claims.exp() <= Instant.now().getEpochSecond()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token expired");
+        }
+        return claims;
+    }
+
+    // Mac не потокобезопасен; новый экземпляр с готовым ключом стоит микросекунды
+    private byte[] mac(byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
+    }
+}
@@ -6,51 +6,81 @@ import com.example.app.entity.User;
 import com.example.app.entity.UserRole; // Убедитесь, что UserRole импортирован
 import com.example.app.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.mindrot.jbcrypt.BCrypt;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.transaction.annotation.Transactional; // Для методов изменения
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_NAMES_BATCH = 500;
+
     private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
+    // Хеш считается до начала транзакции: пока запрос стоит в очереди BCrypt, соединение из пула не занято
+    private final TransactionTemplate transactionTemplate;
+    // Пул Spring для асинхронных запросов: работа с БД после проверки пароля не занимает потоки BCrypt
+    private final AsyncTaskExecutor taskExecutor;
 
-    @Transactional
     public UserDto create(CreateUserDto dto) {
         // Проверка, не занят ли email
         if (userRepository.findByEmail(dto.email()).isPresent()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already in use: " + dto.email());
         }
-        String hash = BCrypt.hashpw(dto.password(), BCrypt.gensalt());
+        String hash = passwordHasher.hash(dto.password());
         User u = User.builder()
                 .email(dto.email())
                 .passwordHash(hash)
                 .fullName(dto.fullName())
-                .userRole(dto.userRole())
+                .userRole(dto.userRole() != null ? dto.userRole() : UserRole.EXECUTOR)
                 .build();
-        return toDto(userRepository.save(u));
+        return transactionTemplate.execute(status -> toDto(userRepository.save(u)));
     }
 
+    @Transactional(readOnly = true)
     public UserDto getById(Long id) {
-        User u = userRepository.findById(id)
+        return userRepository.findDtoById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id " + id));
-        return toDto(u);
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getAll() {
-        return userRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return userRepository.findAllAsDto();
+    }
+
+    // Имена для подписей в списках: id -> ФИО, несуществующие id просто отсутствуют в ответе
+    @Transactional(readOnly = true)
+    public SortedMap<Long, String> getNames(Collection<Long> ids) {
+        if (ids.size() > MAX_NAMES_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не больше " + MAX_NAMES_BATCH + " id за запрос");
+        }
+        SortedMap<Long, String> names = new TreeMap<>();
+        for (User user : userRepository.loadAllById(new TreeSet<>(ids))) {
+            if (user != null) {
+                names.put(user.getId(), user.getFullName());
+            }
+        }
+        return names;
     }
 
-    @Transactional
     public UserDto update(Long id, CreateUserDto dto) {
+        String hash = dto.password() != null && !dto.password().isEmpty() ? passwordHasher.hash(dto.password()) : null;
+        return transactionTemplate.execute(status -> update(id, dto, hash));
+    }
+
+    private UserDto update(Long id, CreateUserDto dto, String passwordHash) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id " + id));
 
@@ -62,8 +92,8 @@ public class UserService {
         if (dto.email() != null) {
             user.setEmail(dto.email());
         }
-        if (dto.password() != null && !dto.password().isEmpty()) {
-             user.setPasswordHash(BCrypt.hashpw(dto.password(), BCrypt.gensalt()));
+        if (passwordHash != null) {
+            user.setPasswordHash(passwordHash);
         }
         if (dto.fullName() != null) {
             user.setFullName(dto.fullName());
@@ -114,10 +144,10 @@ public class UserService {
 
     @Transactional
     public void delete(Long id) {
-         if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User not found with id " + id);
-         }
-        userRepository.deleteById(id);
+        // findById берет пользователя из кэша второго уровня; delete убирает запись и из кэша
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id " + id));
+        userRepository.delete(user);
     }
 
     private UserDto toDto(User u) {
@@ -129,13 +159,33 @@ public class UserService {
         );
     }
 
-    public UserDto authenticate(String email, String rawPassword) {
+    // Проверка пароля идет на пуле PasswordHasher, поток запроса освобождается до ее окончания.
+    // Запись нового хеша и выдача токенов — уже на taskExecutor: потоки BCrypt только считают
+    public CompletableFuture<TokenResponseDto> authenticate(String email, String rawPassword) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with email: " + email));
 
-        if (!BCrypt.checkpw(rawPassword, user.getPasswordHash())) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
-        }
-        return toDto(user);
+        String passwordHash = user.getPasswordHash();
+        return passwordHasher.verify(rawPassword, passwordHash).thenApplyAsync(verification -> {
+            if (!verification.matches()) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+            }
+            if (verification.rehash() != null
+                    && userRepository.replacePasswordHash(user.getId(), passwordHash, verification.rehash()) > 0) {
+                user.setPasswordHash(verification.rehash());
+            }
+            return tokenService.issue(user, toDto(user));
+        }, taskExecutor);
+    }
+
+    // Новая пара токенов по refresh-токену: пароль не проверяется, но пользователь должен существовать
+    // и не менять пароль после выдачи токена; роль берется текущая
+    @Transactional(readOnly = true)
+    public TokenResponseDto refresh(String refreshToken) {
+        TokenService.RefreshClaims claims = tokenService.verifyRefresh(refreshToken);
+        User user = userRepository.findById(claims.userId())
+                .filter(u -> tokenService.passwordFingerprint(u.getPasswordHash()).equals(claims.passwordFingerprint()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token"));
+        return tokenService.issue(user, toDto(user));
     }
-}
\ No newline at end of file
+}
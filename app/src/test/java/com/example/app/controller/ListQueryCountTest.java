@@ -0,0 +1,176 @@
+package com.example.app.controller;
+
+import com.example.app.dto.CreateCommentDto;
+import com.example.app.dto.CreateDocumentDto;
+import com.example.app.dto.CreatePlanDto;
+import com.example.app.dto.CreateQuarterlyReportDto;
+import com.example.app.dto.CreateUserDto;
+import com.example.app.entity.UserRole;
+import com.example.app.service.CommentService;
+import com.example.app.service.DocumentService;
+import com.example.app.service.FileService;
+import com.example.app.service.PlanService;
+import com.example.app.service.QuarterlyReportService;
+import com.example.app.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Списки планов, отчетов, комментариев и документов не должны делать запрос на каждую строку (N+1): число SQL-запросов
+// на ответ одно и то же при любом числе строк. Кэш второго уровня сбрасывается перед каждым замером,
+// иначе запросы скрыл бы он. Пакетная подгрузка тоже отключена: до 100 строк она прячет N+1 в один запрос
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListQueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PlanService planService;
+    @Autowired
+    private QuarterlyReportService reportService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private DocumentService documentService;
+    @Autowired
+    private FileService fileService;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private Long reportId;
+    private String filePath;
+    private String accessToken;
+
+    @BeforeEach
+    void seed() {
+        String email = null;
+        for (int i = 0; i < 3; i++) {
+            email = "count" + System.nanoTime() + "@test.local";
+            userIds.add(userService.create(new CreateUserDto(email, "password",
+                    "Пользователь " + i, UserRole.EXECUTOR)).id());
+        }
+        accessToken = userService.authenticate(email, "password").join().accessToken();
+        Long planId = addPlans(1).get(0);
+        reportId = reportService.bulkCreate(List.of(new CreateQuarterlyReportDto(planId, userIds.get(0),
+                2024, 1, BigDecimal.TEN, null, null)), userIds.get(0)).get(0).id();
+        filePath = fileService.uploadFile("отчет.txt", new ByteArrayInputStream(
+                ("Содержимое " + System.nanoTime()).getBytes(StandardCharsets.UTF_8))).getFilePath();
+    }
+
+    @Test
+    void planListQueriesDoNotGrowWithPlans() throws Exception {
+        addPlans(2);
+        long few = statementsFor("/api/plans");
+        addPlans(20);
+        long many = statementsFor("/api/plans");
+
+        assertThat(few).isPositive();
+        assertThat(many).isEqualTo(few);
+    }
+
+    @Test
+    void commentListQueriesDoNotGrowWithComments() throws Exception {
+        addComments(2);
+        long fewAll = statementsFor("/api/comments");
+        long fewFeed = statementsFor("/api/comments?reportId=" + reportId);
+        addComments(20);
+        long manyAll = statementsFor("/api/comments");
+        long manyFeed = statementsFor("/api/comments?reportId=" + reportId);
+
+        assertThat(fewAll).isPositive();
+        assertThat(manyAll).isEqualTo(fewAll);
+        assertThat(manyFeed).isEqualTo(fewFeed);
+    }
+
+    @Test
+    void reportListQueriesDoNotGrowWithReports() throws Exception {
+        addReports(2);
+        long fewAll = statementsFor("/api/reports");
+        long fewPage = statementsFor("/api/reports/page");
+        addReports(20);
+        long manyAll = statementsFor("/api/reports");
+        long manyPage = statementsFor("/api/reports/page");
+
+        assertThat(fewAll).isPositive();
+        assertThat(manyAll).isEqualTo(fewAll);
+        assertThat(manyPage).isEqualTo(fewPage);
+    }
+
+    @Test
+    void documentListQueriesDoNotGrowWithDocuments() throws Exception {
+        addDocuments(2);
+        long few = statementsFor("/api/reports/" + reportId + "/documents");
+        addDocuments(20);
+        long many = statementsFor("/api/reports/" + reportId + "/documents");
+
+        assertThat(few).isPositive();
+        assertThat(many).isEqualTo(few);
+    }
+
+    private List<Long> addPlans(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(planService.create(new CreatePlanDto("План " + i, null, BigDecimal.ONE, null, null,
+                    Set.copyOf(userIds), null), userIds.get(0)).id());
+        }
+        return ids;
+    }
+
+    // Каждый отчет — в своем плане, с оценкой и разными исполнителями и оценившими: все связи разные
+    private void addReports(int count) {
+        for (int i = 0; i < count; i++) {
+            Long planId = addPlans(1).get(0);
+            Long userId = userIds.get(i % userIds.size());
+            reportService.bulkCreate(List.of(new CreateQuarterlyReportDto(planId, userId, 2024, 1 + i % 4,
+                    BigDecimal.valueOf(i), 1 + i % 5, null)), userIds.get((i + 1) % userIds.size()));
+        }
+    }
+
+    private void addDocuments(int count) {
+        for (int i = 0; i < count; i++) {
+            documentService.create(new CreateDocumentDto(reportId, "Документ " + i + ".txt", filePath),
+                    userIds.get(i % userIds.size()));
+        }
+    }
+
+    private void addComments(int count) {
+        for (int i = 0; i < count; i++) {
+            // Авторы разные: имя каждого берется из users
+            commentService.create(new CreateCommentDto(reportId, "Комментарий " + i), userIds.get(i % userIds.size()));
+        }
+    }
+
+    private long statementsFor(String url) throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAll();
+        sessionFactory.getCache().evictQueryRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
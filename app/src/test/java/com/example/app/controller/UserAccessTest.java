@@ -0,0 +1,93 @@
+package com.example.app.controller;
+
+import com.example.app.dto.CreateUserDto;
+import com.example.app.entity.UserRole;
+import com.example.app.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Роль из токена: регистрация без токена — только исполнителем, чужого пользователя и роли меняет только ADMIN
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserAccessTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+
+    private Long adminId;
+    private Long executorId;
+    private String adminToken;
+    private String executorToken;
+
+    @BeforeEach
+    void seed() {
+        String adminEmail = "admin" + System.nanoTime() + "@test.local";
+        String executorEmail = "executor" + System.nanoTime() + "@test.local";
+        adminId = userService.create(new CreateUserDto(adminEmail, "password", "Администратор", UserRole.ADMIN)).id();
+        executorId = userService.create(new CreateUserDto(executorEmail, "password", "Исполнитель", null)).id();
+        adminToken = userService.authenticate(adminEmail, "password").join().accessToken();
+        executorToken = userService.authenticate(executorEmail, "password").join().accessToken();
+    }
+
+    @Test
+    void anonymousRegistrationCreatesOnlyExecutors() throws Exception {
+        mockMvc.perform(json(post("/api/users"), registration(UserRole.ADMIN)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(post("/api/users"), registration(null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userRole").value("EXECUTOR"));
+        mockMvc.perform(json(post("/api/users"), registration(UserRole.ANALYST))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + executorToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(post("/api/users"), registration(UserRole.ANALYST))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userRole").value("ANALYST"));
+    }
+
+    @Test
+    void onlySelfOrAdminChangesUser() throws Exception {
+        mockMvc.perform(json(patch("/api/users/" + adminId), "{\"fullName\":\"Взлом\"}")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + executorToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/users/" + adminId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + executorToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(patch("/api/users/" + executorId), "{\"userRole\":\"ADMIN\"}")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + executorToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(patch("/api/users/" + executorId), "{\"fullName\":\"Новое имя\"}")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + executorToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(json(patch("/api/users/" + executorId), "{\"userRole\":\"ANALYST\"}")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userRole").value("ANALYST"));
+    }
+
+    private static String registration(UserRole role) {
+        String email = "new" + System.nanoTime() + "@test.local";
+        return "{\"email\":\"" + email + "\",\"password\":\"password\",\"fullName\":\"Новый\""
+                + (role != null ? ",\"userRole\":\"" + role + "\"" : "") + "}";
+    }
+
+    private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, String body) {
+        return request.contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+}
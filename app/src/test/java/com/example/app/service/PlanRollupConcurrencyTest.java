@@ -0,0 +1,75 @@
+package com.example.app.service;
+
+import com.example.app.dto.CreatePlanDto;
+import com.example.app.dto.CreateQuarterlyReportDto;
+import com.example.app.dto.CreateUserDto;
+import com.example.app.dto.PlanQuarterRollupDto;
+import com.example.app.entity.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Параллельные отчеты одного квартала не теряются в сводке и не падают на уникальном ключе группы
+@SpringBootTest
+@ActiveProfiles("test")
+class PlanRollupConcurrencyTest {
+    private static final int REPORTS = 30;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PlanService planService;
+    @Autowired
+    private QuarterlyReportService reportService;
+    @Autowired
+    private PlanRollupService planRollupService;
+
+    @Test
+    void parallelReportsOfOneQuarterAreAllCounted() throws Exception {
+        Long userId = userService.create(new CreateUserDto("rollup" + System.nanoTime() + "@test.local",
+                "password", "Исполнитель", UserRole.EXECUTOR)).id();
+        Long planId = planService.create(new CreatePlanDto("План", null, BigDecimal.TEN, null, null,
+                Set.of(userId), null), userId).id();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < REPORTS; i++) {
+                BigDecimal value = BigDecimal.valueOf(i + 1);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    await(start);
+                    reportService.create(new CreateQuarterlyReportDto(planId, userId, 2025, 1, value, 3, null), userId);
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        List<PlanQuarterRollupDto> rollups = planRollupService.getForPlan(planId);
+        assertThat(rollups).hasSize(1);
+        assertThat(rollups.get(0).reportCount()).isEqualTo(REPORTS);
+        assertThat(rollups.get(0).assessedCount()).isEqualTo(REPORTS);
+        assertThat(rollups.get(0).actualValueSum()).isEqualByComparingTo(BigDecimal.valueOf(REPORTS * (REPORTS + 1) / 2));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.app.service;
+
+import com.adobe.testing.s3mock.junit5.S3MockExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// S3StorageBackend против S3Mock в том же процессе: клиент и подписывающий ссылки настроены так же,
+// как StorageConfig настраивает их для не-AWS хранилища
+class S3StorageBackendTest {
+    private static final String BUCKET = "files";
+    private static final int PART_SIZE = 5 * 1024 * 1024; // минимальный размер части в S3
+
+    // S3Mock — отдельное приложение Spring Boot на том же classpath: БД приложения ему не нужна
+    @RegisterExtension
+    static final S3MockExtension S3_MOCK = S3MockExtension.builder().silent().withInitialBuckets(BUCKET)
+            .withProperty("spring.autoconfigure.exclude",
+                    "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                            + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration")
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    private S3Client s3;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        URI endpoint = URI.create("http://localhost:" + S3_MOCK.getHttpPort());
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("foo", "bar"));
+        S3Configuration serviceConfiguration = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        s3 = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration)
+                .endpointOverride(endpoint)
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .build();
+        S3Presigner presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration)
+                .endpointOverride(endpoint)
+                .build();
+        backend = new S3StorageBackend(s3, presigner, BUCKET, PART_SIZE, 2, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.destroy();
+    }
+
+    @Test
+    void storesSmallFileInOnePut() throws IOException {
+        byte[] content = randomBytes(1000);
+        Path source = write(content);
+
+        backend.store("blobs/aa/small", source, "application/pdf", null);
+
+        assertThat(source).doesNotExist();
+        assertThat(read("blobs/aa/small")).isEqualTo(content);
+        HeadObjectResponse head = s3.headObject(b -> b.bucket(BUCKET).key("blobs/aa/small"));
+        assertThat(head.contentType()).isEqualTo("application/pdf");
+    }
+
+    @Test
+    void storesLargeFileInParts() throws IOException {
+        // Две полные части и неполная третья
+        byte[] content = randomBytes(2 * PART_SIZE + 12345);
+        Path source = write(content);
+
+        backend.store("blobs/bb/large", source, "text/plain", "gzip");
+
+        assertThat(source).doesNotExist();
+        assertThat(read("blobs/bb/large")).isEqualTo(content);
+        HeadObjectResponse head = s3.headObject(b -> b.bucket(BUCKET).key("blobs/bb/large"));
+        assertThat(head.contentEncoding()).isEqualTo("gzip");
+        // ETag составного объекта: хеш хешей частей и их число через дефис
+        assertThat(head.eTag()).endsWith("-3\"");
+    }
+
+    @Test
+    void presignedUrlServesRanges() throws Exception {
+        byte[] content = randomBytes(4096);
+        backend.store("blobs/cc/range", write(content), "application/octet-stream", null);
+
+        URI url = backend.downloadUrl("blobs/cc/range", "отчет.pdf", "application/pdf").orElseThrow();
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(url).header("Range", "bytes=100-199").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+        assertThat(response.headers().firstValue("Content-Range")).hasValue("bytes 100-199/4096");
+        // Заголовки ответа S3 подставляет из подписанных параметров ссылки; S3Mock их не применяет,
+        // поэтому проверяется сама ссылка
+        assertThat(url.getRawQuery())
+                .contains("response-content-type=application%2Fpdf")
+                .contains("response-content-disposition=attachment")
+                .contains("X-Amz-Expires=300");
+    }
+
+    @Test
+    void deleteRemovesObject() throws IOException {
+        backend.store("blobs/dd/gone", write(randomBytes(10)), "text/plain", null);
+
+        backend.delete("blobs/dd/gone");
+
+        assertThatThrownBy(() -> backend.open("blobs/dd/gone")).isInstanceOf(NoSuchKeyException.class);
+        assertThat(backend.localPath("blobs/dd/gone")).isEmpty();
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream in = backend.open(key)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "upload", ".tmp"), content);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
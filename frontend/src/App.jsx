@@ -19,6 +19,7 @@ import UserManagementPage from './pages/Admin/UserManagementPage';
 import EditPlanPage from './pages/Plans/components/EditPlanPage';
 import NotFoundPage from './pages/NotFoundPage';
 import AnalyticsPage from './pages/Analytics/AnalyticsPage';
+import SearchPage from './pages/Search/SearchPage';
 
 function App() {
   console.log("Rendering App - Applying route protection");
@@ -50,6 +51,8 @@ function App() {
             <Route path="/reports/:id" element={ <RequireAuth> <ReportDetailsPage /> </RequireAuth> } />
              {/* --- Конец секции Отчеты --- */}
 
+            <Route path="/search" element={ <RequireAuth> <SearchPage /> </RequireAuth> } />
+
             <Route
                 path="/admin/users"
                 element={
@@ -48,6 +48,7 @@ const Layout = () => {
               <Link to="/">Главная</Link>
               <Link to="/plans">Планы</Link>
               <Link to="/reports">Отчеты</Link>
+              <Link to="/search">Поиск</Link>
               {user.userRole === 'ADMIN' && (
                 <Link to="/admin/users">Управление пользователями</Link>
               )}
@@ -1,14 +1,14 @@
 // src/contexts/AuthContext.js
 import React, { createContext, useState, useEffect } from 'react';
 import authService from '../services/authService'; // Путь: ../services/
-import api from '../services/api';                 // Путь: ../services/
+import api, { REFRESH_TOKEN_KEY, AUTH_LOGOUT_EVENT } from '../services/api'; // Путь: ../services/
 
 const AuthContext = createContext(null);
 
 export const AuthProvider = ({ children }) => {
   // user будет хранить UserDto { id, email, fullName, userRole } или null
   const [user, setUser] = useState(null);
-  // Состояние для токена (для будущего JWT, сейчас может быть null)
+  // Access-токен (JWT); refresh-токен хранится только в localStorage и используется api.js
   const [token, setToken] = useState(localStorage.getItem('authToken') || null);
   // Флаг для отслеживания начальной загрузки пользователя из localStorage
   const [loading, setLoading] = useState(true);
@@ -66,19 +66,14 @@ export const AuthProvider = ({ children }) => {
     console.log("AuthContext: Attempting login...");
     try {
       const response = await authService.login(email, password);
-      // Ожидаем, что response.data - это UserDto { id, email, fullName, userRole }
-      const loggedInUser = response.data;
+      // response.data - { user: UserDto, accessToken, refreshToken, expiresIn }
+      const { user: loggedInUser, accessToken, refreshToken } = response.data;
       console.log("AuthContext: Login successful, user data:", loggedInUser);
 
-      // --- Обработка токена (задел на будущее) ---
-      // Если бэкенд возвращал токен в теле: const { token: newToken, ...userDataFromResponse } = response.data; const loggedInUser = userDataFromResponse;
-      // Если токен в хедере: const newToken = response.headers['authorization']?.split(' ')[1];
-      const newToken = null; // <--- Пока нет реального JWT
-      // ---
-
       localStorage.setItem('authUser', JSON.stringify(loggedInUser));
+      localStorage.setItem(REFRESH_TOKEN_KEY, refreshToken);
       setUser(loggedInUser);
-      setToken(newToken); // Устанавливаем токен (будет null, пока не реализован JWT)
+      setToken(accessToken);
 
       return true; // Успех
     } catch (error) {
@@ -86,6 +81,7 @@ export const AuthProvider = ({ children }) => {
       // Очищаем все при ошибке
       localStorage.removeItem('authUser');
       localStorage.removeItem('authToken');
+      localStorage.removeItem(REFRESH_TOKEN_KEY);
       setUser(null);
       setToken(null);
       return false; // Неудача
@@ -95,13 +91,26 @@ export const AuthProvider = ({ children }) => {
   // Функция выхода из системы
   const logout = () => {
     console.log("AuthContext: Logging out user.");
-    // TODO: Опционально: вызвать эндпоинт выхода на бэкенде, если он появится
+    // Токены без состояния на сервере: выход — это удаление их на клиенте
     localStorage.removeItem('authUser');
     localStorage.removeItem('authToken');
+    localStorage.removeItem(REFRESH_TOKEN_KEY);
     setUser(null);
     setToken(null); // Сбрасываем токен
   };
 
+  // api.js сообщает, что refresh-токен больше не принимается (истек, пароль сменен) — нужен повторный вход
+  useEffect(() => {
+    const handleForcedLogout = () => {
+      console.log("AuthContext: Session expired, logging out.");
+      localStorage.removeItem('authUser');
+      setUser(null);
+      setToken(null);
+    };
+    window.addEventListener(AUTH_LOGOUT_EVENT, handleForcedLogout);
+    return () => window.removeEventListener(AUTH_LOGOUT_EVENT, handleForcedLogout);
+  }, []);
+
   // Функция для обновления данных текущего пользователя в контексте (и localStorage)
   const updateUserInContext = (newUserData) => {
     // newUserData должен быть объектом, содержащим поля пользователя,
@@ -121,7 +130,7 @@ export const AuthProvider = ({ children }) => {
   // Значение, предоставляемое контекстом
   const value = {
       user,
-      token,    // Предоставляем токен, даже если он пока не используется активно для JWT
+      token,    // Текущий access-токен
       loading,  // Флаг начальной загрузки пользователя
       login,
       logout,
@@ -0,0 +1,23 @@
+// src/hooks/useEventStream.js
+import { useEffect, useRef } from 'react';
+import subscribeToEvents from '../services/eventStream';
+
+// Подписка компонента на поток изменений. Обработчики берутся из ref, поэтому новые функции
+// на каждом рендере не переоткрывают соединение; оно пересоздается только при смене path
+// или набора имен событий
+function useEventStream(path, handlers) {
+    const handlersRef = useRef(handlers);
+    handlersRef.current = handlers;
+    const names = Object.keys(handlers).sort().join(',');
+
+    useEffect(() => {
+        if (!path) return undefined;
+        const proxies = {};
+        names.split(',').filter(Boolean).forEach(name => {
+            proxies[name] = (data) => handlersRef.current[name]?.(data);
+        });
+        return subscribeToEvents(path, proxies);
+    }, [path, names]);
+}
+
+export default useEventStream;
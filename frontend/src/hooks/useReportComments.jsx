@@ -1,7 +1,7 @@
 // src/hooks/useReportComments.js
 import { useState, useEffect, useCallback } from 'react';
 import commentService from '../services/commentService'; // Путь: ../services/
-import userService from '../services/userService';     // Путь: ../services/
+import useEventStream from './useEventStream';
 
 // Хук для управления комментариями к отчету
 function useReportComments(reportId) {
@@ -11,32 +11,20 @@ function useReportComments(reportId) {
     const [loadingComments, setLoadingComments] = useState(true);
     const [commentError, setCommentError] = useState('');
     const [isProcessing, setIsProcessing] = useState(false); // Общий флаг для post/delete
+    const [nextCursor, setNextCursor] = useState(null); // Курсор следующей страницы, null — больше нет
 
-    // --- Загрузка авторов ---
-    const fetchCommentAuthors = useCallback(async (commentsData, signal) => {
-        const authorIdsToFetch = [
-            ...new Set(commentsData.map(c => c.userId).filter(id => id != null && !commentAuthors[id]))
-        ];
-        if (authorIdsToFetch.length === 0) return;
-
+    // --- Авторы приходят вместе с комментариями (authorName), отдельные запросы не нужны ---
+    const mergeCommentAuthors = useCallback((commentsData) => {
         const authorsData = {};
-        const authorPromises = authorIdsToFetch.map(async (authorId) => {
-            try {
-                const response = await userService.getUserById(authorId, signal);
-                authorsData[authorId] = response.data;
-            } catch (err) {
-                if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
-                    console.error(`Failed to fetch comment author (ID: ${authorId}):`, err);
-                    authorsData[authorId] = { id: authorId, fullName: `(Неизвестный автор)` };
-                }
+        commentsData.forEach(c => {
+            if (c.userId != null) {
+                authorsData[c.userId] = { id: c.userId, fullName: c.authorName || `(Неизвестный автор)` };
             }
         });
-        await Promise.all(authorPromises);
         if (Object.keys(authorsData).length > 0) {
-            // Используем функциональное обновление для слияния
             setCommentAuthors(prev => ({ ...prev, ...authorsData }));
         }
-    }, [commentAuthors]); // Зависит от кэша commentAuthors
+    }, []);
 
     // --- Перезагрузка комментариев ---
     const reloadComments = useCallback(async (signal) => {
@@ -45,14 +33,12 @@ function useReportComments(reportId) {
         // setCommentError('');
         try {
             const response = await commentService.getCommentsForReport(reportId, signal);
-            const commentsData = response.data || [];
+            const commentsData = response.data?.items || [];
             setComments(commentsData);
+            setNextCursor(response.data?.nextCursor ?? null);
              // Сбрасываем ошибку только при успешной загрузке
              setCommentError('');
-            // Загружаем авторов для полученных комментов
-            if (commentsData.length > 0) {
-                await fetchCommentAuthors(commentsData, signal);
-            }
+            mergeCommentAuthors(commentsData);
         } catch (err) {
             if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
                 console.error("Failed to reload comments:", err);
@@ -65,7 +51,25 @@ function useReportComments(reportId) {
                 setLoadingComments(false);
              }
         }
-    }, [reportId, fetchCommentAuthors]); // Зависит от reportId и стабильной fetchCommentAuthors
+    }, [reportId, mergeCommentAuthors]); // Зависит от reportId и стабильной mergeCommentAuthors
+
+    // --- Догрузка следующей страницы ---
+    const loadMoreComments = useCallback(async () => {
+        if (!nextCursor) return;
+        setLoadingComments(true);
+        try {
+            const response = await commentService.getCommentsForReport(reportId, undefined, nextCursor);
+            const commentsData = response.data?.items || [];
+            setComments(prev => [...prev, ...commentsData]);
+            setNextCursor(response.data?.nextCursor ?? null);
+            mergeCommentAuthors(commentsData);
+        } catch (err) {
+            console.error("Failed to load more comments:", err);
+            setCommentError('Не удалось загрузить комментарии.');
+        } finally {
+            setLoadingComments(false);
+        }
+    }, [reportId, nextCursor, mergeCommentAuthors]);
 
     // --- Загрузка при монтировании/смене reportId ---
     useEffect(() => {
@@ -75,6 +79,31 @@ function useReportComments(reportId) {
         return () => controller.abort();
     }, [reloadComments]); // Зависит только от стабильной reloadComments
 
+    // --- Изменения от других пользователей приходят потоком событий отчета ---
+    // Новый комментарий встает наверх; повтор (свой же комментарий уже добавлен из ответа POST) отбрасывается
+    const upsertComment = useCallback((comment) => {
+        setComments(prev => {
+            const index = prev.findIndex(c => c.id === comment.id);
+            if (index === -1) return [comment, ...prev];
+            const next = [...prev];
+            next[index] = comment;
+            return next;
+        });
+        mergeCommentAuthors([comment]);
+    }, [mergeCommentAuthors]);
+
+    const removeComment = useCallback((commentId) => {
+        setComments(prev => prev.filter(c => c.id !== commentId));
+    }, []);
+
+    useEventStream(reportId ? `/reports/${reportId}/events` : null, {
+        'comment-created': upsertComment,
+        'comment-updated': upsertComment,
+        'comment-deleted': (data) => removeComment(data.id),
+        // Пропущено слишком много изменений — перечитываем первую страницу
+        reset: () => reloadComments(),
+    });
+
     // --- Добавление комментария ---
     const addComment = useCallback(async (text, userId) => {
         if (!userId) {
@@ -87,11 +116,11 @@ function useReportComments(reportId) {
         }
         setCommentError(''); // Сбрасываем предыдущие ошибки
         setIsProcessing(true); // Устанавливаем флаг обработки
-        const commentData = { reportId: parseInt(reportId, 10), userId: userId, text: text.trim() };
+        // Автора сервер берет из токена
+        const commentData = { reportId: parseInt(reportId, 10), text: text.trim() };
         try {
-            await commentService.createComment(commentData);
-            await reloadComments(); // Перезагружаем список после добавления
-            // isProcessing сбросится внутри reloadComments? Нет, reloadComments не меняет isProcessing
+            const response = await commentService.createComment(commentData);
+            upsertComment(response.data); // Список не перечитываем: сервер вернул созданный комментарий
             setIsProcessing(false); // Сбрасываем флаг здесь
             return true; // Успех
         } catch (err) {
@@ -101,7 +130,7 @@ function useReportComments(reportId) {
             setIsProcessing(false); // Сбрасываем флаг при ошибке
             return false; // Неудача
         }
-    }, [reportId, reloadComments]); // Зависит от reportId и reloadComments
+    }, [reportId, upsertComment]); // Зависит от reportId и upsertComment
 
     // --- Удаление комментария ---
     const deleteComment = useCallback(async (commentId) => {
@@ -109,7 +138,7 @@ function useReportComments(reportId) {
         setIsProcessing(true); // Устанавливаем флаг обработки
         try {
             await commentService.deleteComment(commentId);
-            await reloadComments(); // Перезагружаем список
+            removeComment(commentId);
             setIsProcessing(false); // Сбрасываем флаг
         } catch (err) {
             console.error(`Failed to delete comment (ID: ${commentId}):`, err);
@@ -117,7 +146,7 @@ function useReportComments(reportId) {
             setCommentError(apiError);
             setIsProcessing(false); // Сбрасываем флаг при ошибке
         }
-    }, [reloadComments]); // Зависит от reloadComments
+    }, [removeComment]); // Зависит от removeComment
 
     // Возвращаем данные и функции для управления комментариями
     return {
@@ -126,6 +155,8 @@ function useReportComments(reportId) {
         loadingComments,
         commentError,
         isProcessing, // Общий флаг для добавления/удаления
+        hasMoreComments: nextCursor !== null,
+        loadMoreComments,
         addComment,
         deleteComment
     };
@@ -4,18 +4,19 @@ import reportService from '../services/reportService';
 import planService from '../services/planService';
 import userService from '../services/userService';
 
-// Вспомогательная функция для загрузки пользователя (без установки state напрямую)
-const fetchUser = async (userId, signal) => {
-    if (!userId) return null;
+// Автор отчета и оценщик одним запросом; возвращает { [id]: { id, fullName } }
+const fetchUsers = async (userIds, signal) => {
+    const ids = userIds.filter(Boolean);
+    if (ids.length === 0) return {};
     try {
-        const response = await userService.getUserById(userId, signal);
-        return response.data;
+        const names = await userService.getUserNames(ids, signal);
+        return Object.fromEntries(ids.map(id => [id, { id, fullName: names[id] ?? `Пользователь ${id}` }]));
     } catch (err) {
         if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
-            console.error(`Failed to fetch user (ID: ${userId}):`, err);
-            return { id: userId, fullName: `(Ошибка загрузки)` }; // Возвращаем объект ошибки
+            console.error(`Failed to fetch users (IDs: ${ids}):`, err);
+            return Object.fromEntries(ids.map(id => [id, { id, fullName: `(Ошибка загрузки)` }])); // Объекты ошибки
         }
-        return null; // Возвращаем null при отмене
+        return {}; // Пусто при отмене
     }
 };
 
@@ -49,11 +50,14 @@ function useReportDetails(reportId) {
                     }
                  });
 
-            const reportingUserPromise = fetchUser(reportData.reportingUserId, signal).then(setReportingUser);
-            const assessingUserPromise = fetchUser(reportData.assessedByUserId, signal).then(setAssessingUser);
+            const usersPromise = fetchUsers([reportData.reportingUserId, reportData.assessedByUserId], signal)
+                .then(usersById => {
+                    setReportingUser(usersById[reportData.reportingUserId] || null);
+                    setAssessingUser(usersById[reportData.assessedByUserId] || null);
+                });
 
             // Ждем только план и пользователей (отчет уже установлен)
-            await Promise.all([planPromise, reportingUserPromise, assessingUserPromise]);
+            await Promise.all([planPromise, usersPromise]);
 
         } catch (err) {
              if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
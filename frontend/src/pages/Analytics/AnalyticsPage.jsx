@@ -1,6 +1,6 @@
 // src/pages/Analytics/AnalyticsPage.jsx
-import React, { useState, useEffect, useCallback, useMemo } from 'react';
-import reportService from '../../services/reportService';
+import React, { useState, useEffect, useMemo } from 'react';
+import analyticsService from '../../services/analyticsService';
 import planService from '../../services/planService';
 import userService from '../../services/userService';
 import { Bar, Line, Pie, Doughnut } from 'react-chartjs-2';
@@ -29,19 +29,16 @@ const translateCategory = (category) => {
 
 
 const AnalyticsPage = () => {
-    // Состояния для данных с сервера
-    const [allReports, setAllReports] = useState([]);
+    // Справочники для фильтров
     const [allPlans, setAllPlans] = useState([]);
-    const [allUsers, setAllUsers] = useState([]); // Для имен в фильтрах/графиках
+    const [allUsers, setAllUsers] = useState([]);
+    // Агрегаты с сервера (GET /api/analytics)
+    const [analytics, setAnalytics] = useState(null);
 
     // Состояния загрузки и ошибок
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
 
-    // Кэши для имен
-    const [planNames, setPlanNames] = useState({});
-    const [userNames, setUserNames] = useState({});
-
     // Состояния для основных фильтров
     const [filters, setFilters] = useState({
         year: '', quarter: '', planId: '', executorId: '', dateFrom: '', dateTo: ''
@@ -51,46 +48,55 @@ const AnalyticsPage = () => {
     const [selectedPlanCategory, setSelectedPlanCategory] = useState(null);
     const [highlightedPlanIds, setHighlightedPlanIds] = useState([]);
 
-    // Загрузка всех необходимых данных при монтировании
+    // Загрузка справочников для фильтров при монтировании
     useEffect(() => {
         const controller = new AbortController();
         const signal = controller.signal;
 
-        const loadInitialData = async () => {
-            setLoading(true); setError('');
-            setPlanNames({}); setUserNames({}); // Сброс кэша
+        const loadReferenceData = async () => {
             try {
-                console.log("[AnalyticsPage] Fetching initial data...");
-                const [reportsRes, plansRes, usersRes] = await Promise.all([
-                    reportService.getAllReports(signal),
+                const [plansRes, usersRes] = await Promise.all([
                     planService.getAllPlans(signal),
                     userService.getAllUsers(signal)
                 ]);
-                const reportsData = reportsRes.data || [];
-                const plansData = plansRes.data || [];
-                const usersData = usersRes.data || [];
+                setAllPlans(plansRes.data || []);
+                setAllUsers(usersRes.data || []);
+            } catch (err) {
+                if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
+                    console.error("Failed to fetch filter data for analytics:", err);
+                    setError('Не удалось загрузить данные для анализа.');
+                }
+            }
+        };
+        loadReferenceData();
+        return () => controller.abort();
+    }, []);
 
-                setAllReports(reportsData);
-                setAllPlans(plansData);
-                setAllUsers(usersData);
+    // Загрузка агрегатов при изменении фильтров или выделенной категории
+    useEffect(() => {
+        const controller = new AbortController();
+        const signal = controller.signal;
 
-                const pNames = {}; plansData.forEach(p => { pNames[p.id] = p.name; });
-                setPlanNames(pNames);
-                const uNames = {}; usersData.forEach(u => { uNames[u.id] = u.fullName || u.email; });
-                setUserNames(uNames);
-                console.log("[AnalyticsPage] Initial data loaded.");
+        const loadAnalytics = async () => {
+            setError('');
+            const params = {};
+            Object.entries(filters).forEach(([key, value]) => { if (value !== '') params[key] = value; });
+            if (highlightedPlanIds.length > 0) params.planIds = highlightedPlanIds;
+            try {
+                const response = await analyticsService.getAnalytics(params, signal);
+                setAnalytics(response.data);
             } catch (err) {
                 if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
-                    console.error("Failed to fetch data for analytics:", err);
+                    console.error("Failed to fetch analytics:", err);
                     setError('Не удалось загрузить данные для анализа.');
-                } else { console.log("[AnalyticsPage] Initial data fetch aborted."); }
+                } else { console.log("[AnalyticsPage] Analytics fetch aborted."); }
             } finally {
                 if (!signal.aborted) { setLoading(false); }
             }
         };
-        loadInitialData();
+        loadAnalytics();
         return () => controller.abort();
-    }, []); // Пустой массив - загрузка один раз
+    }, [filters, highlightedPlanIds]);
 
     // Обработчики фильтров
     const handleFilterChange = (e) => {
@@ -103,59 +109,18 @@ const AnalyticsPage = () => {
         setHighlightedPlanIds([]);
     };
 
-    // Базовая фильтрация на основе основных фильтров
-    const { baseFilteredReports, baseFilteredPlans } = useMemo(() => {
-        let reports = [...allReports];
-        let plans = [...allPlans];
-
-        if (filters.year) reports = reports.filter(r => r.year === parseInt(filters.year, 10));
-        if (filters.quarter) reports = reports.filter(r => r.quarter === parseInt(filters.quarter, 10));
-        if (filters.planId) {
-            const pId = parseInt(filters.planId, 10);
-            reports = reports.filter(r => r.planId === pId);
-            plans = plans.filter(p => p.id === pId);
-        }
-        if (filters.executorId) {
-            const execId = parseInt(filters.executorId, 10);
-            reports = reports.filter(r => r.reportingUserId === execId);
-            plans = plans.filter(p => p.executorUserIds && p.executorUserIds.includes(execId));
-        }
-        if (filters.dateFrom) {
-            const from = new Date(filters.dateFrom); from.setHours(0,0,0,0);
-            reports = reports.filter(r => r.createdAt && new Date(r.createdAt) >= from);
-            plans = plans.filter(p => p.startDate && new Date(p.startDate) >= from);
-        }
-        if (filters.dateTo) {
-            const to = new Date(filters.dateTo); to.setHours(23,59,59,999);
-            reports = reports.filter(r => r.createdAt && new Date(r.createdAt) <= to);
-            plans = plans.filter(p => p.endDate && new Date(p.endDate) <= to);
-        }
-        return { baseFilteredReports: reports, baseFilteredPlans: plans };
-    }, [allReports, allPlans, filters]);
-
-    // Расчет статистики планов (работает с baseFilteredPlans и baseFilteredReports)
+    // Статистика планов по основным фильтрам
     const planStats = useMemo(() => {
-        const now = new Date();
-        let active = 0, completed = 0, overdue = 0;
-        const activeIds = [], completedIds = [], overdueIds = [];
-
-        baseFilteredPlans.forEach(plan => {
-            const endDate = new Date(plan.endDate);
-            const reportsForThisPlan = baseFilteredReports.filter(r => r.planId === plan.id);
-            const hasAssessedReports = reportsForThisPlan.some(r => r.analystAssessmentScore !== null);
-
-            if (endDate < now) { // План должен был завершиться
-                if (hasAssessedReports || reportsForThisPlan.length > 0) { // Считаем завершенным, если есть хоть какие-то отчеты (оцененные или нет)
-                    completed++; completedIds.push(plan.id);
-                } else { // Просрочен, если нет вообще отчетов
-                    overdue++; overdueIds.push(plan.id);
-                }
-            } else { // План еще активен
-                active++; activeIds.push(plan.id);
-            }
-        });
-        return { total: baseFilteredPlans.length, active, completed, overdue, activeIds, completedIds, overdueIds };
-    }, [baseFilteredPlans, baseFilteredReports]);
+        const stats = analytics?.planStats;
+        const allIds = stats?.allIds || [];
+        const activeIds = stats?.activeIds || [];
+        const completedIds = stats?.completedIds || [];
+        const overdueIds = stats?.overdueIds || [];
+        return {
+            total: allIds.length, active: activeIds.length, completed: completedIds.length, overdue: overdueIds.length,
+            allIds, activeIds, completedIds, overdueIds
+        };
+    }, [analytics]);
 
     // Обработчик клика по карточке статистики
     const handleStatCardClick = (category, ids) => {
@@ -169,83 +134,51 @@ const AnalyticsPage = () => {
         setSelectedPlanCategory(null); setHighlightedPlanIds([]);
     };
 
-    // Финальные данные для графиков (учитывают выделенные ID планов)
-    const { finalFilteredReports, finalFilteredPlans } = useMemo(() => {
-        if (highlightedPlanIds.length > 0) {
-            const newFilteredPlans = baseFilteredPlans.filter(p => highlightedPlanIds.includes(p.id));
-            const newFilteredReports = baseFilteredReports.filter(r => highlightedPlanIds.includes(r.planId));
-            return { finalFilteredReports: newFilteredReports, finalFilteredPlans: newFilteredPlans };
-        }
-        return { finalFilteredReports: baseFilteredReports, finalFilteredPlans: baseFilteredPlans };
-    }, [baseFilteredReports, baseFilteredPlans, highlightedPlanIds]);
-
-    // Подготовка данных для графиков (теперь используют finalFilteredReports/Plans)
+    // Объемы данных для графиков (учитывают выделенные ID планов)
+    const chartPlanCount = useMemo(() => {
+        const status = analytics?.planStatus;
+        if (!status) return 0;
+        return status.inProgress + status.success + status.satisfactory + status.problematic;
+    }, [analytics]);
+    const chartReportCount = useMemo(() => (
+        (analytics?.executorActivity || []).reduce((sum, e) => sum + e.submitted, 0)
+    ), [analytics]);
+
+    // Подготовка данных для графиков
     const planStatusData = useMemo(() => {
-        if (finalFilteredPlans.length === 0) return null;
-        let inProgressCount = 0, successCount = 0, satisfactoryCount = 0, problematicCount = 0;
-        const now = new Date();
-
-        finalFilteredPlans.forEach(plan => {
-            const endDate = new Date(plan.endDate);
-            const reports = finalFilteredReports.filter(r => r.planId === plan.id);
-            const assessedReports = reports.filter(r => r.analystAssessmentScore !== null);
-
-            if (endDate >= now) { inProgressCount++; }
-            else { // План завершен по сроку
-                if (assessedReports.length > 0) {
-                    const avgScore = assessedReports.reduce((sum, r) => sum + r.analystAssessmentScore, 0) / assessedReports.length;
-                    if (avgScore >= 4) successCount++;
-                    else if (avgScore >= 3) satisfactoryCount++;
-                    else problematicCount++;
-                } else { problematicCount++; } // Завершен, но нет оцененных отчетов
-            }
-        });
+        if (chartPlanCount === 0) return null;
+        const { inProgress, success, satisfactory, problematic } = analytics.planStatus;
         return {
             labels: ['В процессе', 'Успешно', 'Удовлетворительно', 'Проблемные/Просрочены'],
-            datasets: [{ data: [inProgressCount, successCount, satisfactoryCount, problematicCount],
+            datasets: [{ data: [inProgress, success, satisfactory, problematic],
                          backgroundColor: ['#36A2EB', '#4BC0C0', '#FFCE56', '#FF6384'], hoverOffset: 4 }]
         };
-    }, [finalFilteredPlans, finalFilteredReports]);
+    }, [analytics, chartPlanCount]);
 
     const scoreDistributionData = useMemo(() => {
-        if (finalFilteredReports.length === 0) return null;
+        if (chartReportCount === 0) return null;
         const scores = [1, 2, 3, 4, 5];
-        const scoreCounts = scores.map(score => finalFilteredReports.filter(r => r.analystAssessmentScore === score).length);
+        const scoreCounts = scores.map(score => analytics.scoreDistribution?.[score] || 0);
         return {
             labels: scores.map(score => `Оценка ${score}`),
             datasets: [{ label: 'Кол-во отчетов', data: scoreCounts,
                          backgroundColor: ['rgba(255, 99, 132, 0.7)','rgba(255, 159, 64, 0.7)','rgba(255, 205, 86, 0.7)','rgba(75, 192, 192, 0.7)','rgba(54, 162, 235, 0.7)'],
                          borderColor: ['#FF6384','#FF9F40','#FFCD56','#4BC0C0','#36A2EB'], borderWidth: 1 }],
         };
-    }, [finalFilteredReports]);
+    }, [analytics, chartReportCount]);
 
     const executorActivityData = useMemo(() => {
-        if (finalFilteredReports.length === 0 || allUsers.length === 0) return null;
-        const activity = {};
-        finalFilteredReports.forEach(report => {
-            const userId = report.reportingUserId;
-            const userName = userNames[userId] || `Пользователь ${userId}`;
-            if (!activity[userId]) activity[userId] = { submitted: 0, totalScore: 0, assessedCount: 0, name: userName };
-            activity[userId].submitted++;
-            if (report.analystAssessmentScore !== null) {
-                activity[userId].totalScore += report.analystAssessmentScore;
-                activity[userId].assessedCount++;
-            }
-        });
-        const labels = Object.values(activity).map(val => val.name).filter(Boolean); // Убираем undefined/null имена
-        const submittedData = Object.values(activity).filter(val => val.name).map(val => val.submitted);
-        const avgScoreData = Object.values(activity).filter(val => val.name).map(val => val.assessedCount > 0 ? parseFloat((val.totalScore / val.assessedCount).toFixed(1)) : 0);
-
-        if (labels.length === 0) return null; // Если нет данных для отображения
+        const activity = (analytics?.executorActivity || []).filter(e => e.name);
+        if (activity.length === 0) return null; // Если нет данных для отображения
 
         return {
-            labels,
+            labels: activity.map(e => e.name),
             datasets: [
-                { label: 'Подано отчетов', data: submittedData, backgroundColor: 'rgba(54, 162, 235, 0.7)', yAxisID: 'yReports' },
-                { label: 'Средняя оценка', data: avgScoreData, backgroundColor: 'rgba(255, 159, 64, 0.7)', yAxisID: 'yScore', type: 'line', tension: 0.1, borderColor: 'rgba(255,159,64,1)' }
+                { label: 'Подано отчетов', data: activity.map(e => e.submitted), backgroundColor: 'rgba(54, 162, 235, 0.7)', yAxisID: 'yReports' },
+                { label: 'Средняя оценка', data: activity.map(e => e.averageScore ?? 0), backgroundColor: 'rgba(255, 159, 64, 0.7)', yAxisID: 'yScore', type: 'line', tension: 0.1, borderColor: 'rgba(255,159,64,1)' }
             ]
         };
-    }, [finalFilteredReports, allUsers, userNames]);
+    }, [analytics]);
 
     // Опции для графиков
     const commonChartOptions = { responsive: true, maintainAspectRatio: false, plugins: { legend: { position: 'top' } } };
@@ -333,7 +266,7 @@ const AnalyticsPage = () => {
             )}
 
             <div className="stats-cards-grid">
-                <div className={`stat-card ${selectedPlanCategory === 'total' ? 'selected' : ''}`} onClick={() => handleStatCardClick('total', baseFilteredPlans.map(p => p.id))}>
+                <div className={`stat-card ${selectedPlanCategory === 'total' ? 'selected' : ''}`} onClick={() => handleStatCardClick('total', planStats.allIds)}>
                     <FaTasks/> <h4>Всего планов <small>(по фильтру)</small></h4> <p>{planStats.total}</p>
                 </div>
                 <div className={`stat-card active ${selectedPlanCategory === 'active' ? 'selected' : ''}`} onClick={() => handleStatCardClick('active', planStats.activeIds)}>
@@ -347,24 +280,24 @@ const AnalyticsPage = () => {
                 </div>
             </div>
 
-            {(finalFilteredReports.length === 0 && finalFilteredPlans.length === 0 && !loading) &&
+            {(chartReportCount === 0 && chartPlanCount === 0 && !loading) &&
              <p className="no-data-message">
                 {highlightedPlanIds.length > 0 ? "Нет данных для выбранной категории планов." : "Нет данных, соответствующих основным фильтрам."}
              </p>
             }
 
             <div className="charts-grid">
-                {planStatusData && finalFilteredPlans.length > 0 && (
+                {planStatusData && (
                     <div className="chart-container pie-chart-container">
                         <Doughnut data={planStatusData} options={planStatusChartOptions} />
                     </div>
                 )}
-                {scoreDistributionData && finalFilteredReports.length > 0 && (
+                {scoreDistributionData && (
                     <div className="chart-container">
                         <Bar data={scoreDistributionData} options={{...scoreChartOptions, onClick: (e,el) => { const chart = ChartJS.getChart(e.nativeEvent.target); if(chart) handleChartClick(e,el, chart); }}} />
                     </div>
                 )}
-                {executorActivityData && finalFilteredReports.length > 0 && (
+                {executorActivityData && (
                     <div className="chart-container">
                         <Bar data={executorActivityData} options={executorActivityChartOptions} />
                     </div>
@@ -10,13 +10,12 @@ const RegisterPage = () => {
     password: '',
     confirmPassword: '',
     fullName: '',
-    userRole: 'EXECUTOR', 
   });
   const [error, setError] = useState('');
   const [loading, setLoading] = useState(false);
   const navigate = useNavigate();
 
-  const { email, password, confirmPassword, fullName, userRole } = formData;
+  const { email, password, confirmPassword, fullName } = formData;
 
   const handleChange = (e) => {
     setFormData({ ...formData, [e.target.name]: e.target.value });
@@ -49,7 +48,8 @@ const RegisterPage = () => {
     setLoading(true);
     try {
       // Данные для отправки, исключая confirmPassword
-      const userData = { email, password, fullName, userRole };
+      // Роль при регистрации — всегда исполнитель, другие назначает администратор
+      const userData = { email, password, fullName };
 
       // Вызываем сервис регистрации (предполагаем, что он вернет созданного пользователя или просто статус)
       await authService.register(userData);
@@ -119,24 +119,6 @@ const RegisterPage = () => {
             required
             disabled={loading}
           />
-        </div>
-         <div className="form-group">
-          <label htmlFor="userRole">Роль:</label>
-          <select
-             id="userRole"
-             name="userRole"
-             value={userRole}
-             onChange={handleChange}
-             disabled={loading}
-             required
-          >
-            {/* Используем строки, как в Swagger Enum описании. Бэкенд должен их принять */}
-            <option value="EXECUTOR">Исполнитель</option>
-            <option value="ANALYST">Аналитик</option>
-            {/* ADMIN обычно не регистрируется через форму */}
-            {/* <option value="ADMIN">Администратор</option> */}
-           </select>
-           <small>Выберите роль: Исполнитель (EXECUTOR) или Аналитик (ANALYST)</small>
         </div>
         <button type="submit" disabled={loading}>
           {loading ? 'Регистрация...' : 'Зарегистрироваться'}
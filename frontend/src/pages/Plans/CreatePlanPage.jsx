@@ -103,7 +103,6 @@ const CreatePlanPage = () => {
       endDate: planData.endDate,
       // Убеждаемся в уникальности ID (хотя select multiple сам это делает)
       executorUserIds: [...new Set(planData.executorUserIds)],
-      createdByUserId: user.id,
     };
 
     // Дополнительная проверка на NaN после parseFloat
@@ -5,6 +5,7 @@ import planService from '../../services/planService';
 import userService from '../../services/userService';
 import reportService from '../../services/reportService';
 import useAuth from '../../hooks/useAuth';
+import useEventStream from '../../hooks/useEventStream';
 import { translateRole } from '../../utils/authUtils';
 import './PlanDetailsPage.css'; // Убедись, что стили подключены и созданы
 
@@ -83,14 +84,10 @@ const PlanDetailsPage = () => {
                     setExecutors([]);
                 }
 
-                // 4. Подготовка к загрузке СВЯЗАННЫХ ОТЧЕТОВ
-                const numericPlanId = parseInt(planId, 10);
+                // 4. Подготовка к загрузке СВЯЗАННЫХ ОТЧЕТОВ: только отчеты этого плана, фильтр на сервере
                 dataPromises.push(
-                    reportService.getAllReports(signal).then(response => {
-                        if (!signal.aborted) {
-                            const filtered = (response.data || []).filter(r => r.planId === numericPlanId);
-                            setRelatedReports(filtered);
-                        }
+                    reportService.getAllReportPages({ planId }, signal).then(reports => {
+                        if (!signal.aborted) setRelatedReports(reports);
                     })
                 );
 
@@ -121,6 +118,30 @@ const PlanDetailsPage = () => {
         };
     }, [planId, fetchUserData]); // Зависим от planId и стабильной fetchUserData
 
+    // Отчеты плана, созданные, измененные или удаленные другими пользователями.
+    // report-updated приходит и для отчета, перенесенного в этот план из другого
+    const upsertReport = (reportItem) => {
+        setRelatedReports(prev => {
+            const index = prev.findIndex(r => r.id === reportItem.id);
+            if (index === -1) return [...prev, reportItem];
+            const next = [...prev];
+            next[index] = reportItem;
+            return next;
+        });
+    };
+
+    useEventStream(plan ? `/plans/${plan.id}/events` : null, {
+        'report-created': upsertReport,
+        'report-updated': upsertReport,
+        'report-deleted': (data) => setRelatedReports(prev => prev.filter(r => r.id !== data.id)),
+        // Массовый импорт или пропущенные изменения — перечитываем список
+        reset: () => {
+            reportService.getAllReportPages({ planId: plan.id })
+                .then(setRelatedReports)
+                .catch(err => console.error("[PlanDetails] Failed to reload reports:", err));
+        },
+    });
+
     // Обработчик удаления плана
     const handleDeletePlan = async () => {
         if (!plan || !user) return;
@@ -157,7 +157,8 @@ const PlanListPage = () => {
 
             {!loading && initialPlans.length > 0 && user.userRole != 'ADMIN' || user.userRole != 'ANALYST' && (
                  <PlanExcelActions plans={processedPlans}
-                 onImportComplete={handleImportHasCompleted}  />
+                 onImportComplete={handleImportHasCompleted}
+                 filters={filters} />
             )}
 
             {!loading && processedPlans.length === 0 && !error ? (
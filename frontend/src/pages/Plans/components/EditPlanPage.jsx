@@ -7,6 +7,16 @@ import useAuth from '../../../hooks/useAuth';
 import { translateRole } from '../../../utils/authUtils';
 import './EditPlanPage.css'; 
 
+// Поля формы в том виде, в каком их принимает сервер
+const toPlanFields = (data) => ({
+    name: data.name.trim(),
+    description: data.description.trim(),
+    targetValue: data.targetValue !== '' ? parseFloat(data.targetValue) : 0,
+    startDate: data.startDate,
+    endDate: data.endDate,
+    executorUserIds: [...data.executorUserIds].sort((a, b) => a - b),
+});
+
 const EditPlanPage = () => {
     const { id: planId } = useParams();
     const { user, loading: authLoading } = useAuth();
@@ -22,6 +32,8 @@ const EditPlanPage = () => {
     });
     const [originalPlanCreatorId, setOriginalPlanCreatorId] = useState(null);
     const [originalPlanName, setOriginalPlanName] = useState('');
+    // Форма при загрузке и версия плана: на сервер уходят только измененные поля
+    const [originalPlan, setOriginalPlan] = useState(null);
     const [allUsers, setAllUsers] = useState([]);
     const [loading, setLoading] = useState(true);
     const [saving, setSaving] = useState(false);
@@ -50,14 +62,16 @@ const EditPlanPage = () => {
 
             setOriginalPlanCreatorId(fetchedPlan.createdByUserId);
             setOriginalPlanName(fetchedPlan.name || '');
-            setPlanData({
+            const loadedData = {
                 name: fetchedPlan.name || '',
                 description: fetchedPlan.description || '',
                 targetValue: fetchedPlan.targetValue !== null && fetchedPlan.targetValue !== undefined ? String(fetchedPlan.targetValue) : '',
                 startDate: fetchedPlan.startDate ? fetchedPlan.startDate.split('T')[0] : '',
                 endDate: fetchedPlan.endDate ? fetchedPlan.endDate.split('T')[0] : '',
                 executorUserIds: fetchedPlan.executorUserIds || [],
-            });
+            };
+            setPlanData(loadedData);
+            setOriginalPlan({ data: loadedData, version: fetchedPlan.version });
 
             const executors = (usersResponse.data || []).filter(
                 u => u.userRole === 'EXECUTOR' || u.userRole === 'USER'
@@ -126,27 +140,22 @@ const EditPlanPage = () => {
         if (new Date(planData.startDate) > new Date(planData.endDate)) { setError("Дата начала не может быть позже даты окончания."); return; }
 
         setSaving(true);
-        // Используем createdByUserId, так как PlanDto его содержит, и это ID создателя
-        // А DTO для обновления на бэкенде (CreatePlanDto) ожидает поле createdById
-        // Это нужно согласовать. Пока предполагаем, что бэкенд для PUT /api/plans/{id}
-        // ожидает CreatePlanDto, где поле называется createdById.
-        const dataToUpdate = {
-            name: planData.name.trim(),
-            description: planData.description.trim(),
-            targetValue: planData.targetValue !== '' ? parseFloat(planData.targetValue) : 0,
-            startDate: planData.startDate,
-            endDate: planData.endDate,
-            executorUserIds: planData.executorUserIds,
-            // Поле в CreatePlanDto на бэкенде называется createdById (по нашему предположению)
-            createdById: originalPlanCreatorId,
-        };
+        // Автор плана не меняется; version защищает от затирания чужих изменений
+        const fields = toPlanFields(planData);
+        const originalFields = toPlanFields(originalPlan.data);
+        const changes = { version: originalPlan.version };
+        Object.entries(fields).forEach(([key, value]) => {
+            if (JSON.stringify(value) !== JSON.stringify(originalFields[key])) changes[key] = value;
+        });
 
         try {
-            await planService.updatePlan(planId, dataToUpdate);
+            await planService.patchPlan(planId, changes);
             navigate(`/plans/${planId}`, { state: { message: 'План успешно обновлен!' } });
         } catch (err) {
             console.error("Failed to update plan:", err);
-            const apiError = err.response?.data?.message || err.message || 'Не удалось обновить план.';
+            const apiError = err.response?.status === 409
+                ? 'План изменили, пока вы его редактировали. Обновите страницу и внесите изменения заново.'
+                : err.response?.data?.message || err.message || 'Не удалось обновить план.';
             setError(apiError);
         } finally {
             setSaving(false);
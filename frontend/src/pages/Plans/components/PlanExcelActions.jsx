@@ -1,9 +1,9 @@
 // src/pages/Plans/components/PlanExcelActions.jsx
 import React, { useState, useRef } from 'react';
 import * as XLSX from 'xlsx'; // Импортируем библиотеку
-import { FaFileDownload, FaFileUpload, FaQuestionCircle } from 'react-icons/fa'; // Иконки
-import useAuth from '../../../hooks/useAuth'; // Нужен для createdById при импорте
+import { FaFileDownload, FaFileUpload, FaQuestionCircle, FaSpinner } from 'react-icons/fa'; // Иконки
 import planService from '../../../services/planService'; // Для создания планов
+import { saveBlobAsFile } from '../../../utils/fileUtils';
 
 // Хелпер для форматирования даты для Excel (YYYY-MM-DD)
 const formatDateForExcel = (dateString) => {
@@ -38,50 +38,35 @@ const EXPECTED_HEADERS_MAP = {
 // Массив заголовков в том порядке, в котором они должны быть в шаблоне
 const TEMPLATE_HEADERS = Object.keys(EXPECTED_HEADERS_MAP);
 
-const PlanExcelActions = ({ plans, onImportComplete }) => {
-    const { user } = useAuth(); // Для createdById при импорте
+const PlanExcelActions = ({ plans, onImportComplete, filters = {} }) => {
 
     const [isImporting, setIsImporting] = useState(false);
+    const [isExporting, setIsExporting] = useState(false);
     const [importStatus, setImportStatus] = useState({ success: 0, errors: 0, messages: [] });
     const importFileRef = useRef(null); // Для сброса input type="file"
 
-    // Экспорт текущих планов в Excel
-    const handleExportToExcel = () => {
+    // Экспорт планов в Excel: файл формирует сервер по тем же фильтрам, что и список
+    const handleExportToExcel = async () => {
         if (!plans || plans.length === 0) {
             alert("Нет данных для экспорта.");
             return;
         }
-        const dataForSheet = plans.map(plan => ({
-            'ID Плана (только для информации)': plan.id, // Не используется при импорте
-            'Название Плана': plan.name,
-            'Описание': plan.description,
-            'Целевое Значение': plan.targetValue,
-            'Дата Начала (ГГГГ-ММ-ДД)': formatDateForExcel(plan.startDate),
-            'Дата Окончания (ГГГГ-ММ-ДД)': formatDateForExcel(plan.endDate),
-            'ID Создателя (только для информации)': plan.createdByUserId,
-            'ID Исполнителей (через запятую)': plan.executorUserIds ? plan.executorUserIds.join(', ') : '',
-        }));
-
-        // Используем TEMPLATE_HEADERS для экспорта, чтобы сохранить порядок, но добавляем инфо-поля
-        const exportHeaders = [
-            'ID Плана (только для информации)', ...TEMPLATE_HEADERS.slice(0, 3), // Name, Desc, Target
-            'Дата Начала (ГГГГ-ММ-ДД)', 'Дата Окончания (ГГГГ-ММ-ДД)', // Даты из TEMPLATE_HEADERS
-            'ID Создателя (только для информации)',
-            'ID Исполнителей (через запятую)' // Из TEMPLATE_HEADERS
-        ];
-
-
-        const worksheet = XLSX.utils.json_to_sheet(dataForSheet, { header: exportHeaders, skipHeader: false });
-        const workbook = XLSX.utils.book_new();
-        XLSX.utils.book_append_sheet(workbook, worksheet, "Планы");
-        const colWidths = [
-            { wch: 10 }, { wch: 40 }, { wch: 50 }, { wch: 20 }, { wch: 18 },
-            { wch: 18 }, { wch: 15 }, { wch: 30 }
-        ];
-        worksheet["!cols"] = colWidths;
-        const today = new Date();
-        const dateStr = `${today.getFullYear()}-${String(today.getMonth() + 1).padStart(2, '0')}-${String(today.getDate()).padStart(2, '0')}`;
-        XLSX.writeFile(workbook, `plans_export_${dateStr}.xlsx`);
+        const params = { format: 'xlsx' };
+        if (filters.searchTerm) params.searchTerm = filters.searchTerm;
+        if (filters.startDate) params.startDate = filters.startDate;
+        if (filters.endDate) params.endDate = filters.endDate;
+        setIsExporting(true);
+        try {
+            const response = await planService.exportPlans(params);
+            const today = new Date();
+            const dateStr = `${today.getFullYear()}-${String(today.getMonth() + 1).padStart(2, '0')}-${String(today.getDate()).padStart(2, '0')}`;
+            saveBlobAsFile(response.data, `plans_export_${dateStr}.xlsx`);
+        } catch (err) {
+            console.error("Error exporting plans:", err);
+            alert('Не удалось выгрузить планы.');
+        } finally {
+            setIsExporting(false);
+        }
     };
 
     // Скачивание шаблона Excel для импорта
@@ -141,12 +126,6 @@ const PlanExcelActions = ({ plans, onImportComplete }) => {
         const planDto = {};
         let rowErrors = [];
 
-        if (!user || !user.id) {
-            rowErrors.push(`Строка ${rowIndex + 2}: Ошибка авторизации. Не удалось определить создателя плана.`);
-        } else {
-            planDto.createdByUserId = user.id;
-        }
-
         for (const excelHeader in EXPECTED_HEADERS_MAP) {
             const dtoField = EXPECTED_HEADERS_MAP[excelHeader];
             let value = row[excelHeader]; // Значение из Excel по заголовку
@@ -285,8 +264,8 @@ const PlanExcelActions = ({ plans, onImportComplete }) => {
 
     return (
         <div className="excel-actions-container">
-            <button onClick={handleExportToExcel} className="action-btn secondary-btn" title="Экспортировать текущий список планов в Excel" disabled={isImporting || !plans || plans.length === 0}>
-                <FaFileDownload /> Экспорт
+            <button onClick={handleExportToExcel} className="action-btn secondary-btn" title="Экспортировать текущий список планов в Excel" disabled={isImporting || isExporting || !plans || plans.length === 0}>
+                {isExporting ? <FaSpinner className="fa-spin" /> : <FaFileDownload />} Экспорт
             </button>
             <label htmlFor="excel-import-input" className={`action-btn secondary-btn ${isImporting ? 'disabled' : ''}`} title="Импортировать планы из Excel файла">
                 <FaFileUpload /> Импорт
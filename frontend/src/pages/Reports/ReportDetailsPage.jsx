@@ -5,6 +5,7 @@ import reportService from '../../services/reportService';
 import planService from '../../services/planService';
 import userService from '../../services/userService';
 import useAuth from '../../hooks/useAuth';
+import useEventStream from '../../hooks/useEventStream';
 import { translateRole } from '../../utils/authUtils'; // Для отображения роли
 import ReportInfoSection from './components/ReportInfoSection';
 import PlanInfoSection from './components/PlanInfoSection';
@@ -25,18 +26,19 @@ const ReportDetailsPage = () => {
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
 
-    // --- Единая функция для загрузки данных пользователя ---
-    const fetchUserData = useCallback(async (userId, signal) => {
-        if (!userId) return null;
+    // --- Имена пользователей одним запросом: { [id]: { id, fullName } } ---
+    const fetchUsersData = useCallback(async (userIds, signal) => {
+        const ids = userIds.filter(Boolean);
+        if (ids.length === 0) return {};
         try {
-            const response = await userService.getUserById(userId, signal);
-            return response.data;
+            const names = await userService.getUserNames(ids, signal);
+            return Object.fromEntries(ids.map(id => [id, { id, fullName: names[id] ?? `Пользователь ${id}` }]));
         } catch (err) {
             if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
-                console.error(`[ReportDetails] Failed to fetch user (ID: ${userId}):`, err);
-                return { id: userId, fullName: `(Пользователь ${userId} - ошибка)` };
+                console.error(`[ReportDetails] Failed to fetch users (IDs: ${ids}):`, err);
+                return Object.fromEntries(ids.map(id => [id, { id, fullName: `(Пользователь ${id} - ошибка)` }]));
             }
-            return null;
+            return {};
         }
     }, []);
 
@@ -72,21 +74,15 @@ const ReportDetailsPage = () => {
                     );
                 } else { setPlan(null); }
 
-                // 3. Отчитавшийся пользователь
-                if (fetchedReport.reportingUserId) {
-                    dataPromises.push(
-                        fetchUserData(fetchedReport.reportingUserId, signal)
-                            .then(data => { if (!signal.aborted) setReportingUser(data); })
-                    );
-                } else { setReportingUser(null); }
-
-                // 4. Оценивший пользователь
-                if (fetchedReport.assessedByUserId) {
-                    dataPromises.push(
-                        fetchUserData(fetchedReport.assessedByUserId, signal)
-                            .then(data => { if (!signal.aborted) setAssessingUser(data); })
-                    );
-                } else { setAssessingUser(null); }
+                // 3-4. Отчитавшийся и оценивший пользователи
+                dataPromises.push(
+                    fetchUsersData([fetchedReport.reportingUserId, fetchedReport.assessedByUserId], signal)
+                        .then(usersById => {
+                            if (signal.aborted) return;
+                            setReportingUser(usersById[fetchedReport.reportingUserId] || null);
+                            setAssessingUser(usersById[fetchedReport.assessedByUserId] || null);
+                        })
+                );
 
                 await Promise.all(dataPromises);
 
@@ -107,7 +103,7 @@ const ReportDetailsPage = () => {
             setError("Некорректный ID отчета в URL."); setLoading(false);
         }
         return () => controller.abort();
-    }, [reportId, fetchUserData]); // Зависимости
+    }, [reportId, fetchUsersData]); // Зависимости
 
     // Обработчик обновления отчета после оценки (передается в AssessmentSection)
     const handleAssessmentUpdate = (updatedReport) => {
@@ -115,12 +111,30 @@ const ReportDetailsPage = () => {
         // Перезагружаем имя оценившего пользователя, т.к. assessedByUserId мог измениться
         if (updatedReport.assessedByUserId) {
             const controller = new AbortController(); // Новый сигнал для этого запроса
-            fetchUserData(updatedReport.assessedByUserId, controller.signal).then(setAssessingUser);
+            fetchUsersData([updatedReport.assessedByUserId], controller.signal)
+                .then(usersById => setAssessingUser(usersById[updatedReport.assessedByUserId] || null));
         } else {
             setAssessingUser(null);
         }
     };
 
+    // Изменения отчета другими пользователями. Тот же поток слушают комментарии и документы
+    useEventStream(report ? `/reports/${report.id}/events` : null, {
+        'report-updated': (updatedReport) => {
+            if (updatedReport.planId !== report?.planId) {
+                planService.getPlanById(updatedReport.planId)
+                    .then(res => setPlan(res.data))
+                    .catch(err => console.error(`Error fetching plan ${updatedReport.planId}`, err));
+            }
+            if (updatedReport.reportingUserId !== report?.reportingUserId) {
+                fetchUsersData([updatedReport.reportingUserId])
+                    .then(usersById => setReportingUser(usersById[updatedReport.reportingUserId] || null));
+            }
+            handleAssessmentUpdate(updatedReport);
+        },
+        'report-deleted': () => navigate('/reports', { state: { message: 'Отчет был удален.' } }),
+    });
+
     // Обработчик удаления отчета
     const handleDeleteReport = async () => {
         if (!report || !user || user.userRole !== 'ADMIN') {
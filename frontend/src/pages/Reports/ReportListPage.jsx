@@ -1,19 +1,24 @@
 // src/pages/Reports/ReportListPage.jsx
 import React, { useState, useEffect, useCallback, useMemo } from 'react';
 import { Link } from 'react-router-dom';
-import reportService from '../../services/reportService';
+import reportService, { toFilterParams } from '../../services/reportService';
 import planService from '../../services/planService';
 import userService from '../../services/userService';
 import useAuth from '../../hooks/useAuth';
 import { FaSort, FaSortUp, FaSortDown, FaFilter, FaTimes } from 'react-icons/fa';
-import { filterData, sortData } from '../../utils/tableUtils'; // Путь: ../../utils/
+import { sortData } from '../../utils/tableUtils'; // Путь: ../../utils/
 import ReportExcelActions from './components/ReportExcelActions';
 import './ReportListPage.css'; // Если есть уникальные стили
 
+// Отчеты грузятся страницами с сервера (фильтры применяет сервер), следующая — по кнопке
+const PAGE_SIZE = 100;
+
 const ReportListPage = () => {
     const { user } = useAuth();
     const [initialReports, setInitialReports] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [error, setError] = useState('');
 
     const [planNames, setPlanNames] = useState({});
@@ -42,44 +47,54 @@ const ReportListPage = () => {
             ...reportsData.map(r => r.assessedByUserId).filter(id => Boolean(id) && !userNames[id])
         ])];
 
-        const loadedPlanNames = {};
-        const loadedUserNames = {};
-
-        const planPromises = planIdsToFetch.map(id =>
-            planService.getPlanById(id, signal)
-                .then(res => { loadedPlanNames[id] = res.data.name; })
-                .catch(err => { if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') { loadedPlanNames[id] = `(План ${id} - ошибка)`; } })
-        );
-        const userPromises = userIdsToFetch.map(id =>
-             userService.getUserById(id, signal)
-                 .then(res => { loadedUserNames[id] = res.data.fullName; })
-                 .catch(err => { if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') { loadedUserNames[id] = `(Пользователь ${id} - ошибка)`; } })
-        );
-        try {
-            await Promise.all([...planPromises, ...userPromises]);
-            if (Object.keys(loadedPlanNames).length > 0) setPlanNames(prev => ({ ...prev, ...loadedPlanNames }));
-            if (Object.keys(loadedUserNames).length > 0) setUserNames(prev => ({ ...prev, ...loadedUserNames }));
-        } catch (err) { console.error("Error processing related names batch for reports:", err); }
-        finally { if (!signal?.aborted) setLoadingRelatedData(false); }
+        // Один запрос на планы и один на пользователей вместо запроса на каждый id
+        const [loadedPlanNames, loadedUserNames] = await Promise.all([
+            planIdsToFetch.length > 0 ? planService.getPlanNames(planIdsToFetch, signal) : {},
+            userIdsToFetch.length > 0 ? userService.getUserNames(userIdsToFetch, signal) : {}
+        ]).catch(err => {
+            if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') { console.error("Error loading related names for reports:", err); }
+            return [{}, {}];
+        });
+        if (Object.keys(loadedPlanNames).length > 0) setPlanNames(prev => ({ ...prev, ...loadedPlanNames }));
+        if (Object.keys(loadedUserNames).length > 0) setUserNames(prev => ({ ...prev, ...loadedUserNames }));
+        if (!signal?.aborted) setLoadingRelatedData(false);
     }, [planNames, userNames]);
 
+    // Первая страница под текущие фильтры; список заменяется целиком
     const fetchReports = useCallback(async (signal) => {
         setLoading(true); setError('');
         try {
-            const response = await reportService.getAllReports(signal);
-            const reportsData = response.data || [];
+            const response = await reportService.getReportsPage({ ...toFilterParams(filters), limit: PAGE_SIZE }, signal);
+            const reportsData = response.data.items || [];
             setInitialReports(reportsData);
+            setNextCursor(response.data.nextCursor);
             if (reportsData.length > 0) fetchRelatedNames(reportsData, signal);
         } catch (err) {
             if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') { setError('Не удалось загрузить список отчетов.'); }
             else { console.log("Reports list fetch aborted."); }
         } finally { if (!signal?.aborted) setLoading(false); }
-    }, [fetchRelatedNames]);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [filters]); // fetchRelatedNames меняется с каждым загруженным именем, перезагружать список из-за этого не нужно
+
+    const handleLoadMore = async () => {
+        if (!nextCursor || loadingMore) return;
+        setLoadingMore(true); setError('');
+        try {
+            const response = await reportService.getReportsPage({ ...toFilterParams(filters), cursor: nextCursor, limit: PAGE_SIZE });
+            const reportsData = response.data.items || [];
+            setInitialReports(prev => [...prev, ...reportsData]);
+            setNextCursor(response.data.nextCursor);
+            if (reportsData.length > 0) fetchRelatedNames(reportsData);
+        } catch (err) {
+            setError('Не удалось загрузить следующие отчеты.');
+        } finally { setLoadingMore(false); }
+    };
 
+    // Фильтры вводятся с клавиатуры: запрос уходит, когда ввод на 300 мс затих
     useEffect(() => {
         const controller = new AbortController();
-        fetchReports(controller.signal);
-        return () => controller.abort();
+        const timer = setTimeout(() => fetchReports(controller.signal), 300);
+        return () => { clearTimeout(timer); controller.abort(); };
     }, [fetchReports]);
 
     const handleReportImportCompleted = () => {
@@ -88,10 +103,10 @@ const ReportListPage = () => {
         fetchReports(controller.signal); // Вызываем перезагрузку списка отчетов
     };
 
+    // Сортировка по столбцу — среди уже загруженных строк; порядок страниц задает сервер
     const processedReports = useMemo(() => {
-        const filtered = filterData(initialReports, filters, 'reports');
-        return sortData(filtered, sortConfig, ['createdAt']); // 'createdAt' - поле для сортировки как дата
-    }, [initialReports, filters, sortConfig]);
+        return sortData(initialReports, sortConfig, ['createdAt']); // 'createdAt' - поле для сортировки как дата
+    }, [initialReports, sortConfig]);
 
     const requestSort = (field) => {
         let direction = 'ascending';
@@ -135,7 +150,7 @@ const ReportListPage = () => {
     return (
         <div className="page-container report-list-page">
             <div className="page-header">
-                <h2>Список квартальных отчетов ({processedReports.length})</h2>
+                <h2>Список квартальных отчетов ({processedReports.length}{nextCursor ? '+' : ''})</h2>
                 <div className="header-actions">
                     <Link to="/reports/new">
                         <button className="action-btn primary-btn">Создать новый отчет</button>
@@ -209,10 +224,9 @@ const ReportListPage = () => {
 
             {user && !loading && ( 
                  <ReportExcelActions
-                    reports={processedReports} // Для экспорта
+                    reports={processedReports} // Для проверки, есть ли что экспортировать
                     onImportComplete={handleReportImportCompleted} // <--- Передаем колбэк
-                    planNamesCache={planNames} // Для отображения имен планов в экспортируемом файле
-                    userNamesCache={userNames}   // Для отображения имен пользователей в экспортируемом файле
+                    filters={filters} // Экспорт на сервере строится по тем же фильтрам
                  />
             )}
 
@@ -316,6 +330,13 @@ const ReportListPage = () => {
                     </tbody>
                 </table>
             ) : null}
+            {!error && nextCursor && (
+                <div className="load-more-container">
+                    <button onClick={handleLoadMore} className="action-btn secondary-btn" disabled={loadingMore}>
+                        {loadingMore ? 'Загрузка...' : 'Показать еще'}
+                    </button>
+                </div>
+            )}
             {loadingRelatedData && initialReports.length > 0 && <p className="loading-names-indicator">Загрузка дополнительной информации...</p>}
         </div>
     );
@@ -49,10 +49,12 @@ const AssessmentSection = ({ report, assessingUser, onAssessmentUpdate }) => {
         const score = parseInt(assessmentInput, 10);
         if (isNaN(score) || score < 1 || score > 5) { setAssessmentError('Оценка от 1 до 5.'); setIsAssessing(false); return; }
 
-        const updatedReportData = { ...report, analystAssessmentScore: score, assessedByUserId: user.id };
+        // Только поля оценки: правки исполнителя, сделанные тем временем, не затираются.
+        // Оценившим сервер записывает пользователя из токена
+        const assessment = { version: report.version, analystAssessmentScore: score };
 
         try {
-            const response = await reportService.updateReport(report.id, updatedReportData);
+            const response = await reportService.patchReport(report.id, assessment);
             const newReportData = response.data;
             onAssessmentUpdate(newReportData); // Обновляем родителя
             const newUser = await fetchAssessingUser(newReportData.assessedByUserId);
@@ -60,7 +62,9 @@ const AssessmentSection = ({ report, assessingUser, onAssessmentUpdate }) => {
             setAssessmentInput(String(newReportData.analystAssessmentScore));
         } catch (err) {
             console.error("Failed assessment:", err);
-            const apiError = err.response?.data?.message || err.message || 'Ошибка сохранения оценки.';
+            const apiError = err.response?.status === 409
+                ? 'Отчет изменили, пока вы его просматривали. Обновите страницу и оцените заново.'
+                : err.response?.data?.message || err.message || 'Ошибка сохранения оценки.';
             setAssessmentError(apiError);
         } finally { setIsAssessing(false); }
     };
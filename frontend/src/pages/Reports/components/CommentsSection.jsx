@@ -20,6 +20,8 @@ const CommentsSection = ({ reportId }) => {
         loadingComments,
         commentError,
         isProcessing, // Общий флаг для добавления/удаления
+        hasMoreComments,
+        loadMoreComments,
         addComment,
         deleteComment
     } = useReportComments(reportId);
@@ -98,12 +100,11 @@ const CommentsSection = ({ reportId }) => {
 
             {/* Список комментариев */}
             <div className="comments-list">
-                {loadingComments ? (
+                {loadingComments && comments.length === 0 ? (
                     <p>Загрузка комментариев...</p>
                 ) : comments.length > 0 ? (
-                    comments
-                        .sort((a, b) => new Date(b.createdAt) - new Date(a.createdAt))
-                        .map(comment => (
+                    // Сервер уже отдаёт комментарии от новых к старым
+                    comments.map(comment => (
                         <div key={comment.id} className={`comment-item ${deletingCommentId === comment.id ? 'deleting' : ''}`}>
                             <div className="comment-content">
                                 <p className="comment-meta">
@@ -138,6 +139,16 @@ const CommentsSection = ({ reportId }) => {
                     // Показываем "нет комментариев" только если не было ошибки загрузки
                     !commentError && <p>Комментариев пока нет.</p>
                 )}
+                {hasMoreComments && (
+                    <button
+                        type="button"
+                        className="load-more-comments-btn"
+                        onClick={loadMoreComments}
+                        disabled={loadingComments}
+                    >
+                        {loadingComments ? 'Загрузка...' : 'Показать ещё'}
+                    </button>
+                )}
             </div>
         </div>
     );
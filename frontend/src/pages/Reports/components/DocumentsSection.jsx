@@ -1,21 +1,35 @@
 // src/pages/Reports/components/DocumentsSection.js
-import React, { useState, useEffect, useCallback, useRef, useMemo } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { Link } from 'react-router-dom';
 import useAuth from '../../../hooks/useAuth';
 import fileService from '../../../services/fileService';
 import documentService from '../../../services/documentService';
-import api from '../../../services/api';
+import { withAccessToken } from '../../../services/api';
+import useEventStream from '../../../hooks/useEventStream';
 // --- Импорт утилиты ---
-import { getFileTypeIcon } from '../../../utils/fileUtils'; // Импортируем из нового файла
+import { getFileTypeIcon, hasPreview } from '../../../utils/fileUtils'; // Импортируем из нового файла
 // --- Импорт иконок для действий ---
 import { FaDownload, FaTrashAlt } from 'react-icons/fa';
 
 // Константа для роли админа
 const ADMIN_ROLE = 'ADMIN'; // Уточни, если имя роли другое
 
+// Миниатюра вместо иконки типа; если сервер ее не отдал — обычная иконка
+const DocumentThumbnail = ({ doc }) => {
+    const [failed, setFailed] = useState(false);
+    if (failed || !hasPreview(doc.filename)) {
+        return <span className="file-type-icon">{getFileTypeIcon(doc.filename)}</span>;
+    }
+    return (
+        <img className="doc-thumbnail" src={withAccessToken(`/documents/${doc.id}/preview`)}
+             alt="" loading="lazy" onError={() => setFailed(true)} />
+    );
+};
+
 const DocumentsSection = ({ reportId }) => {
     const { user } = useAuth();
-    const [allDocuments, setAllDocuments] = useState([]);
+    const [reportDocuments, setReportDocuments] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null); // Курсор следующей страницы
     const [loadingDocuments, setLoadingDocuments] = useState(true);
     const [documentError, setDocumentError] = useState('');
     const [selectedFile, setSelectedFile] = useState(null);
@@ -24,13 +38,17 @@ const DocumentsSection = ({ reportId }) => {
     const fileInputRef = useRef(null);
     const [deletingDocId, setDeletingDocId] = useState(null);
 
-    // Загрузка всех документов
-    const fetchAllDocuments = useCallback(async (signal) => {
+    // Загрузка документов отчета (первая страница или следующая по курсору)
+    const fetchReportDocuments = useCallback(async (signal, cursor) => {
+        const currentReportId = parseInt(reportId, 10);
+        if (isNaN(currentReportId)) { setReportDocuments([]); setLoadingDocuments(false); return; }
         setLoadingDocuments(true);
         setDocumentError('');
         try {
-            const response = await documentService.getAllDocuments(signal);
-            setAllDocuments(response.data || []);
+            const response = await documentService.getReportDocuments(currentReportId, signal, cursor);
+            const items = response.data?.items || [];
+            setReportDocuments(prev => (cursor ? [...prev, ...items] : items));
+            setNextCursor(response.data?.nextCursor ?? null);
         } catch (err) {
             if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
                 console.error("Failed to fetch documents:", err);
@@ -39,20 +57,36 @@ const DocumentsSection = ({ reportId }) => {
         } finally {
              if (!signal?.aborted) { setLoadingDocuments(false); }
         }
-    }, []);
+    }, [reportId]);
 
     useEffect(() => {
         const controller = new AbortController();
-        fetchAllDocuments(controller.signal);
+        fetchReportDocuments(controller.signal);
         return () => controller.abort();
-    }, [fetchAllDocuments]);
+    }, [fetchReportDocuments]);
+
+    // Документы идут по возрастанию id: новый дописывается в конец, если последняя страница уже загружена,
+    // иначе он придет при догрузке. Повтор своего же документа (добавлен из ответа POST) не дублируется
+    const upsertDocument = (doc) => {
+        setReportDocuments(prev => {
+            const index = prev.findIndex(d => d.id === doc.id);
+            if (index === -1) return nextCursor ? prev : [...prev, doc];
+            const next = [...prev];
+            next[index] = doc;
+            return next;
+        });
+    };
 
-    // Фильтрация документов для текущего отчета
-    const reportDocuments = useMemo(() => {
-        const currentReportId = parseInt(reportId, 10);
-        if (isNaN(currentReportId)) return [];
-        return allDocuments.filter(doc => doc.reportId === currentReportId);
-    }, [allDocuments, reportId]);
+    const removeDocument = (documentId) => {
+        setReportDocuments(prev => prev.filter(d => d.id !== documentId));
+    };
+
+    useEventStream(reportId ? `/reports/${reportId}/events` : null, {
+        'document-created': upsertDocument,
+        'document-updated': upsertDocument,
+        'document-deleted': (data) => removeDocument(data.id),
+        reset: () => fetchReportDocuments(),
+    });
 
     // Обработчик выбора файла
     const handleFileChange = (event) => {
@@ -78,9 +112,11 @@ const DocumentsSection = ({ reportId }) => {
             const { filePath, filename } = uploadResponse.data;
             if (!filePath || !filename) { throw new Error("Ответ API загрузки файла не содержит 'filePath' или 'filename'"); }
 
-            const documentData = { reportId: currentReportId, uploadedByUserId: user.id, filename: filename, filePath: filePath };
-            await documentService.createDocument(documentData);
-            await fetchAllDocuments(); // Перезагрузка без signal
+            // Одинаковое содержимое хранится один раз, и сервер может вернуть уже существующий файл,
+            // поэтому имя документа берем из выбранного файла, а не из ответа
+            const documentData = { reportId: currentReportId, filename: selectedFile.name || filename, filePath: filePath };
+            const createResponse = await documentService.createDocument(documentData);
+            upsertDocument(createResponse.data);
             setSelectedFile(null);
             if (fileInputRef.current) { fileInputRef.current.value = ''; }
         } catch (err) {
@@ -104,7 +140,7 @@ const DocumentsSection = ({ reportId }) => {
             setDocumentError(''); setDeletingDocId(documentId);
             try {
                 await documentService.deleteDocument(documentId);
-                await fetchAllDocuments(); // Перезагрузка без signal
+                removeDocument(documentId);
             } catch (err) {
                  console.error(`Failed to delete document (ID: ${documentId}):`, err);
                  const apiError = err.response?.data?.message || err.message || 'Не удалось удалить документ.';
@@ -117,7 +153,7 @@ const DocumentsSection = ({ reportId }) => {
 
     return (
         <div className="related-documents-section">
-            <h3>Прикрепленные документы ({reportDocuments.length})</h3>
+            <h3>Прикрепленные документы ({reportDocuments.length}{nextCursor ? '+' : ''})</h3>
             {documentError && <p className="error-message">{documentError}</p>}
 
             {/* Форма загрузки */}
@@ -141,7 +177,7 @@ const DocumentsSection = ({ reportId }) => {
 
             {/* Список документов */}
             <div className="documents-list">
-                {loadingDocuments ? ( <p>Загрузка документов...</p> )
+                {loadingDocuments && reportDocuments.length === 0 ? ( <p>Загрузка документов...</p> )
                 : reportDocuments.length > 0 ? (
                     <ul>
                         {reportDocuments.map(doc => {
@@ -153,17 +189,16 @@ const DocumentsSection = ({ reportId }) => {
                              return (
                                 <li key={doc.id} className={deletingDocId === doc.id ? 'deleting' : ''}>
                                     <div className="doc-info">
-                                        <span className="file-type-icon">
-                                            {/* Используем импортированную функцию */}
-                                            {getFileTypeIcon(doc.filename)}
-                                        </span>
+                                        <DocumentThumbnail doc={doc} />
                                         <span className="doc-filename" title={doc.filename}>
                                             {doc.filename}
                                         </span>
                                     </div>
                                     <div className="doc-actions">
                                         {/* Ссылка/иконка для скачивания */}
-                                        <a href={`${api.defaults.baseURL}/files/download/${encodeURIComponent(doc.filePath)}`}
+                                        {/* Токен подставляется при нажатии: за время открытой страницы он мог обновиться */}
+                                        <a href={withAccessToken(`/documents/${doc.id}/download`)}
+                                           onClick={(e) => { e.currentTarget.href = withAccessToken(`/documents/${doc.id}/download`); }}
                                            target="_blank" rel="noopener noreferrer"
                                            className="download-link" title={`Скачать ${doc.filename}`}>
                                             <FaDownload />
@@ -185,6 +220,16 @@ const DocumentsSection = ({ reportId }) => {
                         })}
                     </ul>
                 ) : ( !documentError && <p>Прикрепленных документов нет.</p> )}
+                {nextCursor && (
+                    <button
+                        type="button"
+                        className="load-more-documents-btn"
+                        onClick={() => fetchReportDocuments(undefined, nextCursor)}
+                        disabled={loadingDocuments}
+                    >
+                        {loadingDocuments ? 'Загрузка...' : 'Показать ещё'}
+                    </button>
+                )}
             </div>
         </div>
     );
@@ -3,10 +3,10 @@ import React, { useState, useRef } from 'react';
 import * as XLSX from 'xlsx';
 import { FaFileDownload, FaFileUpload, FaQuestionCircle, FaSpinner } from 'react-icons/fa'; // Добавил FaSpinner
 import useAuth from '../../../hooks/useAuth';
-import reportService from '../../../services/reportService';
-import planService from '../../../services/planService';
+import reportService, { toFilterParams } from '../../../services/reportService';
 // import userService from '../../../services/userService'; // Не используется напрямую здесь, имена приходят через props
 import api from '../../../services/api';
+import { saveBlobAsFile } from '../../../utils/fileUtils';
 
 // Хелпер для форматирования даты
 const formatDateForExcel = (dateString) => {
@@ -21,6 +21,13 @@ const formatDateForExcel = (dateString) => {
     } catch (e) { return dateString; }
 };
 
+// Строк импорта в одном POST /api/reports/bulk
+const BULK_CHUNK_SIZE = 1000;
+
+// ГГГГ-ММ-ДД по локальному времени (toISOString дал бы дату в UTC)
+const toLocalDateString = (date) =>
+    `${date.getFullYear()}-${String(date.getMonth() + 1).padStart(2, '0')}-${String(date.getDate()).padStart(2, '0')}`;
+
 // Заголовки для импорта
 const REPORT_IMPORT_HEADERS_MAP = {
     'ID Плана*': 'planId',
@@ -30,46 +37,30 @@ const REPORT_IMPORT_HEADERS_MAP = {
 };
 const REPORT_TEMPLATE_HEADERS = Object.keys(REPORT_IMPORT_HEADERS_MAP);
 
-const ReportExcelActions = ({ reports, onImportComplete, planNamesCache = {}, userNamesCache = {} }) => {
+const ReportExcelActions = ({ reports, onImportComplete, filters = {} }) => {
     const { user } = useAuth();
     const [isImporting, setIsImporting] = useState(false);
+    const [isExporting, setIsExporting] = useState(false);
     const [importStatus, setImportStatus] = useState({ success: 0, errors: 0, messages: [], showDetails: false });
     const importFileRef = useRef(null);
 
     // --- ЭКСПОРТ ОТЧЕТОВ ---
-    const handleExportToExcel = () => {
+    // Файл формирует сервер по тем же фильтрам, что и список: браузеру не нужно держать все строки в памяти
+    const handleExportToExcel = async () => {
         if (!reports || reports.length === 0) {
             alert("Нет данных для экспорта.");
             return;
         }
-        // Формируем данные с использованием кэшей имен
-        const dataForSheet = reports.map(report => ({
-            'ID Отчета': report.id,
-            'ID Плана': report.planId,
-            'Название Плана': planNamesCache[report.planId] || `План ${report.planId}`,
-            'Год': report.year,
-            'Квартал': report.quarter,
-            'Фактическое значение': report.actualValue,
-            'ID Отчитавшегося': report.reportingUserId,
-            'Отчитался': userNamesCache[report.reportingUserId] || `Пользователь ${report.reportingUserId}`,
-            'ID Оценившего': report.assessedByUserId,
-            'Оценил': userNamesCache[report.assessedByUserId] || (report.assessedByUserId ? `Пользователь ${report.assessedByUserId}`: 'Не оценен'),
-            'Оценка Аналитика': report.analystAssessmentScore,
-            'Дата Создания': formatDateForExcel(report.createdAt),
-        }));
-        const exportHeaders = Object.keys(dataForSheet[0] || {}); // Берем заголовки из первой строки данных
-
-        const worksheet = XLSX.utils.json_to_sheet(dataForSheet, { header: exportHeaders, skipHeader: false });
-        const workbook = XLSX.utils.book_new();
-        XLSX.utils.book_append_sheet(workbook, worksheet, "Отчеты");
-        const colWidths = [
-            { wch: 10 }, { wch: 10 }, { wch: 30 }, { wch: 8 }, { wch: 10 }, { wch: 20 },
-            { wch: 15 }, { wch: 25 }, { wch: 15 }, { wch: 25 }, { wch: 18 }, { wch: 18 }
-        ];
-        if (worksheet) worksheet["!cols"] = colWidths; // Проверяем, что worksheet существует
-        const today = new Date();
-        const dateStr = `${today.getFullYear()}-${String(today.getMonth() + 1).padStart(2, '0')}-${String(today.getDate()).padStart(2, '0')}`;
-        XLSX.writeFile(workbook, `reports_export_${dateStr}.xlsx`);
+        setIsExporting(true);
+        try {
+            const response = await reportService.exportReports({ format: 'xlsx', ...toFilterParams(filters) });
+            saveBlobAsFile(response.data, `reports_export_${toLocalDateString(new Date())}.xlsx`);
+        } catch (err) {
+            console.error("Error exporting reports:", err);
+            alert('Не удалось выгрузить отчеты.');
+        } finally {
+            setIsExporting(false);
+        }
     };
 
     // --- СКАЧИВАНИЕ ШАБЛОНА ---
@@ -93,7 +84,7 @@ const ReportExcelActions = ({ reports, onImportComplete, planNamesCache = {}, us
     };
 
     // --- ЛОГИКА ИМПОРТА ---
-    const mapExcelRowToCreateReportDto = async (row, rowIndex) => {
+    const mapExcelRowToCreateReportDto = (row, rowIndex) => {
         const reportDto = {};
         let rowErrors = [];
 
@@ -108,12 +99,7 @@ const ReportExcelActions = ({ reports, onImportComplete, planNamesCache = {}, us
         if (isNaN(planId) || planId <= 0) {
             rowErrors.push(`Строка ${rowIndex + 2}: Поле "${REPORT_TEMPLATE_HEADERS[0]}" должно быть корректным ID плана (>0). Получено: "${planIdRaw}".`);
         } else {
-            try {
-                await planService.getPlanById(planId); // Проверка существования плана
-                reportDto.planId = planId;
-            } catch (e) {
-                rowErrors.push(`Строка ${rowIndex + 2}: План с ID ${planId} не найден или недоступен.`);
-            }
+            reportDto.planId = planId; // Существование плана проверяет сервер при массовом создании
         }
 
         const yearRaw = row[REPORT_TEMPLATE_HEADERS[1]]; // 'Год*'
@@ -174,31 +160,43 @@ const ReportExcelActions = ({ reports, onImportComplete, planNamesCache = {}, us
                 currentMessages.push(`Найдено строк для обработки: ${dataRows.length}. Обработка...`);
                 setImportStatus(prev => ({ ...prev, messages: currentMessages }));
 
+                // Сначала проверяем строки локально, затем отправляем корректные
+                const validRows = []; // { rowNumber, dto }
                 for (let i = 0; i < dataRows.length; i++) {
                     const row = dataRows[i];
                     if (Object.values(row).every(val => String(val).trim() === "")) {
                         currentMessages.push(`Строка ${i + 2}: Пропущена (пустая).`); continue;
                     }
 
-                    const { dto, errors: rowValidationErrors } = await mapExcelRowToCreateReportDto(row, i);
+                    const { dto, errors: rowValidationErrors } = mapExcelRowToCreateReportDto(row, i);
 
                     if (rowValidationErrors.length > 0) {
                         currentErrors++; currentMessages.push(...rowValidationErrors);
-                        setImportStatus(prev => ({ ...prev, errors: currentErrors, messages: [...currentMessages] }));
                         continue;
                     }
+                    validRows.push({ rowNumber: i + 2, dto });
+                }
 
+                // Частями: сервер принимает ограниченное число строк за запрос (app.reports.bulk-max-size)
+                for (let start = 0; start < validRows.length; start += BULK_CHUNK_SIZE) {
+                    const chunk = validRows.slice(start, start + BULK_CHUNK_SIZE);
                     try {
-                        await reportService.createReport(dto);
-                        currentSuccess++;
-                        currentMessages.push(`Строка ${i + 2}: Отчет для плана ID ${dto.planId} (${dto.year} Q${dto.quarter}) успешно создан.`);
+                        const response = await reportService.bulkCreateReports(chunk.map(r => r.dto));
+                        (response.data || []).forEach(result => {
+                            const { rowNumber, dto } = chunk[result.index];
+                            if (result.error) {
+                                currentErrors++;
+                                currentMessages.push(`Строка ${rowNumber}: Ошибка создания отчета для плана ID ${dto.planId}: ${result.error}`);
+                            } else {
+                                currentSuccess++;
+                                currentMessages.push(`Строка ${rowNumber}: Отчет для плана ID ${dto.planId} (${dto.year} Q${dto.quarter}) успешно создан.`);
+                            }
+                        });
                     } catch (apiErr) {
-                        currentErrors++;
+                        currentErrors += chunk.length;
                         const apiErrMsg = apiErr.response?.data?.message || apiErr.message || 'Неизвестная ошибка API.';
-                        currentMessages.push(`Строка ${i + 2}: Ошибка создания отчета для плана ID ${dto.planId}: ${apiErrMsg}`);
+                        currentMessages.push(`Ошибка массового создания отчетов (строки ${chunk[0].rowNumber}–${chunk[chunk.length - 1].rowNumber}): ${apiErrMsg}`);
                     }
-                    // Обновляем статус после каждой строки для обратной связи
-                    setImportStatus({ success: currentSuccess, errors: currentErrors, messages: [...currentMessages], showDetails: true });
                 }
                 currentMessages.push(`Импорт завершен. Успешно: ${currentSuccess}, Ошибки: ${currentErrors}.`);
                 if (typeof onImportComplete === 'function' && currentSuccess > 0) onImportComplete();
@@ -223,9 +221,9 @@ const ReportExcelActions = ({ reports, onImportComplete, planNamesCache = {}, us
                 onClick={handleExportToExcel}
                 className="action-btn secondary-btn"
                 title="Экспортировать текущий список отчетов в Excel"
-                disabled={isImporting || !reports || reports.length === 0}
+                disabled={isImporting || isExporting || !reports || reports.length === 0}
             >
-                <FaFileDownload /> Экспорт отчетов
+                {isExporting ? <FaSpinner className="fa-spin" /> : <FaFileDownload />} Экспорт отчетов
             </button>
 
             <label
@@ -0,0 +1,156 @@
+// src/pages/Search/SearchPage.jsx
+import React, { useState, useEffect } from 'react';
+import { Link, useSearchParams } from 'react-router-dom';
+import searchService from '../../services/searchService';
+import './SearchPage.css';
+
+const TYPE_LABELS = {
+    PLAN: 'План',
+    COMMENT: 'Комментарий',
+    DOCUMENT: 'Документ',
+};
+
+// Сниппет приходит текстом с маркерами ⟦ ⟧: разметку строим сами, без dangerouslySetInnerHTML
+const renderSnippet = (snippet) => {
+    if (!snippet) return null;
+    return snippet.split(/(⟦[^⟧]*⟧)/).map((part, index) =>
+        part.startsWith('⟦') && part.endsWith('⟧')
+            ? <mark key={index}>{part.slice(1, -1)}</mark>
+            : <React.Fragment key={index}>{part}</React.Fragment>
+    );
+};
+
+const resultLink = (result) => {
+    if (result.type === 'PLAN') return `/plans/${result.id}`;
+    return `/reports/${result.reportId}`;
+};
+
+const SearchPage = () => {
+    // Запрос хранится в адресе, чтобы результаты можно было открыть по ссылке и вернуться к ним
+    const [searchParams, setSearchParams] = useSearchParams();
+    const query = searchParams.get('q') || '';
+    const type = searchParams.get('type') || '';
+
+    const [input, setInput] = useState(query);
+    const [results, setResults] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loading, setLoading] = useState(false);
+    const [error, setError] = useState('');
+
+    useEffect(() => {
+        setInput(query);
+        if (!query.trim()) {
+            setResults([]);
+            setNextCursor(null);
+            return undefined;
+        }
+        const controller = new AbortController();
+        const load = async () => {
+            setLoading(true);
+            setError('');
+            try {
+                const response = await searchService.search(query, type ? [type] : [], undefined, controller.signal);
+                setResults(response.data?.items || []);
+                setNextCursor(response.data?.nextCursor ?? null);
+            } catch (err) {
+                if (err.name !== 'CanceledError' && err.code !== 'ERR_CANCELED') {
+                    console.error("Search failed:", err);
+                    setError(err.response?.status === 503
+                        ? 'Поиск недоступен: сервер работает без PostgreSQL.'
+                        : 'Не удалось выполнить поиск.');
+                    setResults([]);
+                    setNextCursor(null);
+                }
+            } finally {
+                if (!controller.signal.aborted) {
+                    setLoading(false);
+                }
+            }
+        };
+        load();
+        return () => controller.abort();
+    }, [query, type]);
+
+    const handleSubmit = (e) => {
+        e.preventDefault();
+        const params = { q: input.trim() };
+        if (type) params.type = type;
+        setSearchParams(params);
+    };
+
+    const handleTypeChange = (e) => {
+        const params = { q: query };
+        if (e.target.value) params.type = e.target.value;
+        setSearchParams(params);
+    };
+
+    const loadMore = async () => {
+        if (!nextCursor) return;
+        setLoading(true);
+        try {
+            const response = await searchService.search(query, type ? [type] : [], nextCursor);
+            setResults(prev => [...prev, ...(response.data?.items || [])]);
+            setNextCursor(response.data?.nextCursor ?? null);
+        } catch (err) {
+            console.error("Failed to load more search results:", err);
+            setError('Не удалось загрузить результаты.');
+        } finally {
+            setLoading(false);
+        }
+    };
+
+    return (
+        <div className="page-container search-page">
+            <div className="page-header">
+                <h1>Поиск</h1>
+            </div>
+
+            <form className="search-form" onSubmit={handleSubmit}>
+                <input
+                    type="search" className="form-control" value={input} autoFocus
+                    placeholder='Слова, "точная фраза", -исключить'
+                    onChange={(e) => setInput(e.target.value)}
+                />
+                <select className="form-control search-type" value={type} onChange={handleTypeChange}>
+                    <option value="">Везде</option>
+                    <option value="PLAN">Планы</option>
+                    <option value="COMMENT">Комментарии</option>
+                    <option value="DOCUMENT">Документы</option>
+                </select>
+                <button type="submit" className="action-btn primary-btn" disabled={!input.trim()}>Найти</button>
+            </form>
+
+            {error && <p className="error-message main-error">{error}</p>}
+
+            {!loading && query.trim() && !error && results.length === 0 && (
+                <p className="no-data-message">Ничего не найдено.</p>
+            )}
+
+            <ul className="search-results">
+                {results.map(result => (
+                    <li key={`${result.type}-${result.id}`} className="search-result">
+                        <div className="search-result-header">
+                            <span className={`search-result-type type-${result.type.toLowerCase()}`}>
+                                {TYPE_LABELS[result.type]}
+                            </span>
+                            <Link to={resultLink(result)} className="action-link">
+                                {result.title || `${TYPE_LABELS[result.type]} #${result.id}`}
+                            </Link>
+                            {result.type !== 'PLAN' && result.reportId && (
+                                <span className="search-result-context">отчет #{result.reportId}</span>
+                            )}
+                        </div>
+                        <p className="search-result-snippet">{renderSnippet(result.snippet)}</p>
+                    </li>
+                ))}
+            </ul>
+
+            {loading && <p className="loading-names-indicator">Поиск...</p>}
+            {!loading && nextCursor && (
+                <button onClick={loadMore} className="action-btn secondary-btn">Показать еще</button>
+            )}
+        </div>
+    );
+};
+
+export default SearchPage;
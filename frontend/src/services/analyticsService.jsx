@@ -0,0 +1,20 @@
+// src/services/analyticsService.js
+import api from './api';
+
+// Агрегаты для страницы аналитики считаются на сервере
+// params: { year, quarter, planId, executorId, dateFrom, dateTo, planIds }
+// Возвращает { planStats, planStatus, scoreDistribution, executorActivity }
+const getAnalytics = (params, signal) => {
+  return api.get('/analytics', {
+    params,
+    signal,
+    // planIds передаем как planIds=1&planIds=2 (без квадратных скобок)
+    paramsSerializer: { indexes: null },
+  });
+};
+
+const analyticsService = {
+  getAnalytics,
+};
+
+export default analyticsService;
@@ -8,7 +8,7 @@ const api = axios.create({
 // Интерцептор для добавления токена аутентификации к каждому запросу
 api.interceptors.request.use(
   (config) => {
-    const token = localStorage.getItem('authToken'); // Или где ты будешь хранить токен
+    const token = localStorage.getItem('authToken');
     if (token) {
       config.headers['Authorization'] = `Bearer ${token}`;
     }
@@ -19,4 +19,60 @@ api.interceptors.request.use(
   }
 );
 
+// Ключи localStorage с токенами; событие AUTH_LOGOUT_EVENT слушает AuthContext
+export const ACCESS_TOKEN_KEY = 'authToken';
+export const REFRESH_TOKEN_KEY = 'authRefreshToken';
+export const AUTH_LOGOUT_EVENT = 'auth:logout';
+
+// Адрес для ссылок, которые браузер открывает сам (<a href>, <img src>): заголовок Authorization
+// туда не добавить, поэтому access-токен передается параметром (сервер принимает его только для GET
+// скачиваний, миниатюр, выгрузок и потоков событий). path — относительно /api
+export const withAccessToken = (path) => {
+  const token = localStorage.getItem(ACCESS_TOKEN_KEY);
+  const url = `${api.defaults.baseURL}${path}`;
+  return token ? `${url}${path.includes('?') ? '&' : '?'}access_token=${encodeURIComponent(token)}` : url;
+};
+
+// Один обмен refresh-токена на все запросы, получившие 401 одновременно
+let refreshPromise = null;
+
+export const refreshTokens = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem(REFRESH_TOKEN_KEY);
+    // Обычный axios: запрос обновления не должен сам попадать в этот интерцептор
+    refreshPromise = axios.post(`${api.defaults.baseURL}/users/auth/refresh`, { refreshToken })
+      .then((response) => {
+        localStorage.setItem(ACCESS_TOKEN_KEY, response.data.accessToken);
+        localStorage.setItem(REFRESH_TOKEN_KEY, response.data.refreshToken);
+        return response.data.accessToken;
+      })
+      .finally(() => { refreshPromise = null; });
+  }
+  return refreshPromise;
+};
+
+// Access-токен живет 15 минут: на 401 обмениваем refresh-токен и повторяем запрос один раз
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const original = error.config;
+    const isAuthRequest = original?.url?.startsWith('/users/auth');
+    if (error.response?.status !== 401 || !original || original._retried || isAuthRequest
+        || !localStorage.getItem(REFRESH_TOKEN_KEY)) {
+      return Promise.reject(error);
+    }
+    original._retried = true;
+    try {
+      const accessToken = await refreshTokens();
+      original.headers['Authorization'] = `Bearer ${accessToken}`;
+      return api(original);
+    } catch (refreshError) {
+      localStorage.removeItem(ACCESS_TOKEN_KEY);
+      localStorage.removeItem(REFRESH_TOKEN_KEY);
+      window.dispatchEvent(new Event(AUTH_LOGOUT_EVENT));
+      return Promise.reject(error);
+    }
+  }
+);
+
 export default api;
\ No newline at end of file
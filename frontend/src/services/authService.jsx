@@ -1,19 +1,15 @@
 // src/services/authService.js
 import api from './api';
 
-// Используем новый эндпоинт POST /api/users/auth
+// POST /api/users/auth
 // Принимает: { email, password }
-// Возвращает: UserDto (предположительно { id, email, fullName, userRole }) при успехе,
+// Возвращает: { user: UserDto, accessToken, refreshToken, expiresIn } при успехе,
 //            иначе ошибку 401 или другую.
-// !! ВАЖНО: Структура ответа UserDto должна соответствовать твоему UserDto на бэке.
 const login = (email, password) => {
-  // Меняем URL на новый эндпоинт
   return api.post('/users/auth', { email, password });
 };
 
-// !!! Оставляем комментарий про токен для будущего JWT !!!
-// Если/когда бэкенд начнет возвращать токен (например, в хедере или теле ответа),
-// нужно будет адаптировать обработку в AuthContext.js
+// Обновление токенов делает api.js сам, когда сервер отвечает 401 на просроченный access-токен
 
 // Опционально: Регистрация (остается без изменений)
 const register = (userData) => {
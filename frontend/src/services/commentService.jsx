@@ -1,9 +1,10 @@
 // src/services/commentService.js
 import api from './api';
 
-// Получить комментарии для конкретного отчета
-const getCommentsForReport = (reportId, signal) => { // Добавляем signal для отмены
-  return api.get('/comments', { params: { reportId }, signal });
+// Получить страницу комментариев для конкретного отчета (новые сверху)
+// Возвращает { items, nextCursor }; в каждом комментарии есть authorName
+const getCommentsForReport = (reportId, signal, cursor) => { // Добавляем signal для отмены
+  return api.get('/comments', { params: { reportId, cursor }, signal });
 };
 
 // Создать новый комментарий
@@ -1,11 +1,11 @@
 // src/services/documentService.js
 import api from './api';
 
-// --- ИЗМЕНЕНО: Получаем ВСЕ документы ---
-// Фильтрация будет на фронтенде
-const getAllDocuments = (signal) => {
-  // GET /api/documents
-  return api.get('/documents', { signal });
+// Получить страницу документов конкретного отчета
+// Возвращает { items, nextCursor }; nextCursor === null — последняя страница
+const getReportDocuments = (reportId, signal, cursor) => {
+  // GET /api/reports/{reportId}/documents
+  return api.get(`/reports/${reportId}/documents`, { params: { cursor }, signal });
 };
 
 // Создать запись о документе (связать файл с отчетом)
@@ -22,7 +22,7 @@ const deleteDocument = (documentId) => {
 }
 
 const documentService = {
-  getAllDocuments, // <--- Изменено
+  getReportDocuments,
   createDocument,
   deleteDocument
 };
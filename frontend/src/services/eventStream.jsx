@@ -0,0 +1,88 @@
+// src/services/eventStream.js
+import api, { ACCESS_TOKEN_KEY, REFRESH_TOKEN_KEY, refreshTokens } from './api';
+
+const RETRY_DELAY_MS = 5000;
+
+// Открытые потоки по path. Браузер держит не больше 6 соединений на сервер по HTTP/1.1,
+// поэтому все компоненты страницы отчета делят одно соединение
+const streams = new Map();
+
+const createStream = (path) => {
+  const stream = { source: null, lastEventId: null, retryTimer: null, handlers: new Map() };
+
+  const dispatch = (name) => (event) => {
+    if (event.lastEventId) stream.lastEventId = event.lastEventId;
+    const data = event.data ? JSON.parse(event.data) : null;
+    stream.handlers.get(name)?.forEach(handler => handler(data));
+  };
+
+  stream.listen = (name) => stream.source?.addEventListener(name, dispatch(name));
+
+  stream.connect = () => {
+    const params = new URLSearchParams();
+    const token = localStorage.getItem(ACCESS_TOKEN_KEY);
+    // EventSource не умеет передавать заголовок Authorization
+    if (token) params.set('access_token', token);
+    if (stream.lastEventId) params.set('lastEventId', stream.lastEventId);
+    const query = params.toString();
+    const source = new EventSource(`${api.defaults.baseURL}${path}${query ? `?${query}` : ''}`);
+    stream.source = source;
+    stream.handlers.forEach((_, name) => stream.listen(name));
+
+    // После обрыва сети EventSource переподключается сам и присылает Last-Event-ID.
+    // Ответ с ошибкой (например, 401 по истекшему токену) закрывает поток: обновляем токен и открываем заново
+    source.onerror = () => {
+      if (stream.source !== source || source.readyState !== EventSource.CLOSED) return;
+      stream.retryTimer = setTimeout(async () => {
+        if (localStorage.getItem(REFRESH_TOKEN_KEY)) {
+          try {
+            await refreshTokens();
+          } catch (err) {
+            // Сервер может быть просто недоступен; выход из системы сделает обычный запрос через api
+            console.warn('Failed to refresh token for event stream:', err);
+          }
+        }
+        if (stream.source === source) stream.connect();
+      }, RETRY_DELAY_MS);
+    };
+  };
+
+  stream.close = () => {
+    clearTimeout(stream.retryTimer);
+    stream.source?.close();
+    stream.source = null;
+  };
+
+  return stream;
+};
+
+// Подписка на поток изменений с сервера (Server-Sent Events) вместо периодической перезагрузки.
+// path — '/reports/1/events' или '/plans/1/events'; handlers — { 'comment-created': data => ..., reset: () => ... }.
+// Сервер досылает пропущенное по Last-Event-ID, а если не может — присылает reset: данные нужно перечитать.
+// Возвращает функцию отписки; соединение закрывается, когда отписался последний
+const subscribeToEvents = (path, handlers) => {
+  let stream = streams.get(path);
+  const isNew = !stream;
+  if (isNew) {
+    stream = createStream(path);
+    streams.set(path, stream);
+  }
+  Object.entries(handlers).forEach(([name, handler]) => {
+    if (!stream.handlers.has(name)) {
+      stream.handlers.set(name, new Set());
+      if (!isNew) stream.listen(name);
+    }
+    stream.handlers.get(name).add(handler);
+  });
+  if (isNew) stream.connect();
+
+  return () => {
+    Object.entries(handlers).forEach(([name, handler]) => stream.handlers.get(name)?.delete(handler));
+    if ([...stream.handlers.values()].every(set => set.size === 0)) {
+      stream.close();
+      streams.delete(path);
+    }
+  };
+};
+
+export default subscribeToEvents;
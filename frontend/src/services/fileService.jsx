@@ -1,12 +1,20 @@
 // src/services/fileService.js
 import api from './api'; // Настроенный axios
 
+// Файлы крупнее порога грузятся кусками через докачиваемую загрузку (/files/uploads),
+// чтобы обрыв связи не заставлял передавать видео заново
+const RESUMABLE_THRESHOLD = 8 * 1024 * 1024;
+const CHUNK_SIZE = 5 * 1024 * 1024;
+const MAX_RETRIES = 5;
+
 // Загрузка файла
-// Ожидает файл в поле 'file' (уточни, если имя другое!)
 // Возвращает информацию о файле (например, { filename, filePath })
 const uploadFile = (file) => {
+  if (file.size >= RESUMABLE_THRESHOLD) {
+    return uploadFileResumable(file);
+  }
   const formData = new FormData();
-  formData.append('file', file); // 'file' - предполагаемое имя поля
+  formData.append('file', file);
 
   return api.post('/files/upload', formData, {
     headers: {
@@ -15,6 +23,55 @@ const uploadFile = (file) => {
   });
 };
 
+// Имя в Upload-Metadata передается в base64 от UTF-8
+const encodeMetadataValue = (value) => {
+  const bytes = new TextEncoder().encode(value);
+  let binary = '';
+  bytes.forEach((byte) => { binary += String.fromCharCode(byte); });
+  return btoa(binary);
+};
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+const uploadFileResumable = async (file) => {
+  const created = await api.post('/files/uploads', null, {
+    headers: {
+      'Upload-Length': file.size,
+      'Upload-Metadata': `filename ${encodeMetadataValue(file.name)}`,
+    },
+  });
+  const location = created.headers.location;
+
+  let offset = 0;
+  let retries = 0;
+  while (true) {
+    try {
+      const response = await api.patch(location, file.slice(offset, offset + CHUNK_SIZE), {
+        headers: {
+          'Content-Type': 'application/offset+octet-stream',
+          'Upload-Offset': offset,
+        },
+      });
+      if (response.status === 200) {
+        return response; // Последний кусок: в ответе метаданные файла
+      }
+      offset = Number(response.headers['upload-offset']);
+      retries = 0;
+    } catch (err) {
+      // 4xx (кроме конфликта смещения) повторять бессмысленно
+      const status = err.response?.status;
+      if ((status && status !== 409 && status < 500) || retries >= MAX_RETRIES) {
+        throw err;
+      }
+      retries += 1;
+      await sleep(1000 * retries);
+      // После обрыва сервер мог принять часть куска — продолжаем с его смещения
+      const head = await api.head(location);
+      offset = Number(head.headers['upload-offset']);
+    }
+  }
+};
+
 // Скачивание файла - не используем напрямую в сервисе,
 // ссылка будет формироваться в компоненте
 
@@ -22,4 +79,4 @@ const fileService = {
   uploadFile,
 };
 
-export default fileService;
\ No newline at end of file
+export default fileService;
@@ -0,0 +1,19 @@
+// src/services/nameLookup.js
+import api from './api';
+
+// Сервер принимает не больше 500 id за запрос
+const BATCH_SIZE = 500;
+
+// GET <path>?ids=1,2,3 -> { "1": "...", "2": "..." }; большие наборы делятся на несколько запросов.
+// id сортируются, чтобы одинаковый набор давал одинаковый URL и ответ брался из кэша браузера
+export const fetchNames = async (path, ids, signal) => {
+  const uniqueIds = [...new Set(ids.filter(Boolean).map(Number))].sort((a, b) => a - b);
+  const batches = [];
+  for (let i = 0; i < uniqueIds.length; i += BATCH_SIZE) {
+    batches.push(uniqueIds.slice(i, i + BATCH_SIZE));
+  }
+  const responses = await Promise.all(batches.map(batch =>
+    api.get(path, { params: { ids: batch.join(',') }, signal })
+  ));
+  return Object.assign({}, ...responses.map(response => response.data || {}));
+};
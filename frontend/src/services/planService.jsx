@@ -1,5 +1,6 @@
 // src/services/planService.js
 import api from './api';
+import { fetchNames } from './nameLookup';
 
 const getAllPlans = () => {
   return api.get('/plans');
@@ -9,6 +10,9 @@ const getPlanById = (id) => {
   return api.get(`/plans/${id}`);
 };
 
+// Названия планов одним запросом: { id: name }
+const getPlanNames = (ids, signal) => fetchNames('/plans', ids, signal);
+
 const createPlan = (planData) => {
   // Убедись, что planData соответствует CreatePlanDto
   return api.post('/plans', planData);
@@ -19,18 +23,33 @@ const updatePlan = (id, planData) => {
     return api.put(`/plans/${id}`, planData);
 }
 
+// Изменить только переданные поля (JSON Merge Patch): null очищает поле, executorUserIds заменяется целиком.
+// version — версия из загруженного плана; если план с тех пор изменили, сервер ответит 409
+const patchPlan = (id, changes) => {
+    return api.patch(`/plans/${id}`, changes, { headers: { 'Content-Type': 'application/merge-patch+json' } });
+}
+
 const deletePlan = (id) => {
     return api.delete(`/plans/${id}`);
 }
 
+// Выгрузка планов, которую сервер формирует потоково (CSV или XLSX)
+// params: { format: 'xlsx' | 'csv', searchTerm, startDate, endDate }
+const exportPlans = (params) => {
+  return api.get('/plans/export', { params, responseType: 'blob' });
+};
+
 // Добавь другие необходимые функции
 
 const planService = {
   getAllPlans,
   getPlanById,
+  getPlanNames,
   createPlan,
   updatePlan,
+  patchPlan,
   deletePlan,
+  exportPlans,
 };
 
 export default planService;
\ No newline at end of file
@@ -1,9 +1,52 @@
 // src/services/reportService.js
 import api from './api';
 
-// Получить все отчеты
-const getAllReports = () => {
-  return api.get('/reports');
+// ГГГГ-ММ-ДД по локальному времени (toISOString дал бы дату в UTC)
+const toLocalDateString = (date) =>
+  `${date.getFullYear()}-${String(date.getMonth() + 1).padStart(2, '0')}-${String(date.getDate()).padStart(2, '0')}`;
+
+// Фильтры списка отчетов -> параметры /reports/page и /reports/export (даты в полях ввода — локальные дни)
+// filters: { planId, reportingUserId, year, quarter, assessed: 'yes' | 'no' | '', createdFrom, createdTo }
+export const toFilterParams = (filters) => {
+  const params = {};
+  ['planId', 'reportingUserId', 'year', 'quarter'].forEach(key => {
+    if (filters[key]) params[key] = filters[key];
+  });
+  if (filters.assessed === 'yes') params.assessed = true;
+  else if (filters.assessed === 'no') params.assessed = false;
+  if (filters.createdFrom) params.createdFrom = `${filters.createdFrom}T00:00:00`;
+  if (filters.createdTo) {
+    // createdTo на сервере не включается, поэтому передаем начало следующего дня
+    const nextDay = new Date(`${filters.createdTo}T00:00:00`);
+    nextDay.setDate(nextDay.getDate() + 1);
+    params.createdTo = `${toLocalDateString(nextDay)}T00:00:00`;
+  }
+  return params;
+};
+
+// Получить страницу отчетов с фильтрацией на сервере (новые периоды сверху)
+// params: { year, quarter, planId, reportingUserId, assessed, createdFrom, createdTo, cursor, limit }
+// Возвращает { items, nextCursor }; nextCursor === null — последняя страница
+const getReportsPage = (params, signal) => {
+  return api.get('/reports/page', { params, signal });
+};
+
+// Все отчеты под фильтром, страница за страницей — для заведомо небольших выборок (отчеты одного плана)
+const getAllReportPages = async (params, signal) => {
+  const items = [];
+  let cursor;
+  do {
+    const response = await getReportsPage({ ...params, cursor, limit: 200 }, signal);
+    items.push(...response.data.items);
+    cursor = response.data.nextCursor ?? undefined;
+  } while (cursor);
+  return items;
+};
+
+// Выгрузка отчетов, которую сервер формирует потоково (CSV или XLSX)
+// params: { format: 'xlsx' | 'csv', year, quarter, planId, reportingUserId, assessed, createdFrom, createdTo }
+const exportReports = (params) => {
+  return api.get('/reports/export', { params, responseType: 'blob' });
 };
 
 // Получить отчет по ID
@@ -12,27 +55,42 @@ const getReportById = (id) => {
 };
 
 // Создать отчет (данные соответствуют телу POST /api/reports)
-// !! Важно: Уточнить, какие поля обязательны при СОЗДАНИИ отчета Исполнителем
-// !! (assessedByUserId и analystAssessmentScore могут быть null/не передаваться)
+// analystAssessmentScore может не передаваться; оценившим сервер записывает пользователя из токена
 const createReport = (reportData) => {
   return api.post('/reports', reportData);
 };
 
+// Массовое создание отчетов одним запросом (импорт из Excel)
+// Принимает массив CreateQuarterlyReportDto, возвращает [{ index, id, error }] по каждой строке
+const bulkCreateReports = (reportsData) => {
+  return api.post('/reports/bulk', reportsData);
+};
+
 // Обновить отчет (данные могут отличаться, например, добавление оценки)
 const updateReport = (id, reportData) => {
   return api.put(`/reports/${id}`, reportData);
 }
 
+// Изменить только переданные поля (JSON Merge Patch): null очищает поле.
+// version — версия из загруженного отчета; если отчет с тех пор изменили, сервер ответит 409
+const patchReport = (id, changes) => {
+  return api.patch(`/reports/${id}`, changes, { headers: { 'Content-Type': 'application/merge-patch+json' } });
+};
+
 // Удалить отчет
 const deleteReport = (id) => {
   return api.delete(`/reports/${id}`);
 }
 
 const reportService = {
-  getAllReports,
+  getReportsPage,
+  getAllReportPages,
+  exportReports,
   getReportById,
   createReport,
+  bulkCreateReports,
   updateReport,
+  patchReport,
   deleteReport,
 };
 
@@ -0,0 +1,19 @@
+// src/services/searchService.js
+import api from './api';
+
+// Полнотекстовый поиск по планам, комментариям и содержимому документов
+// types: ['PLAN', 'COMMENT', 'DOCUMENT'] или пусто — везде
+// Возвращает { items, nextCursor }; совпадения в snippet обрамлены символами ⟦ и ⟧
+const search = (q, types, cursor, signal) => {
+  return api.get('/search', {
+    params: { q, types: types?.length ? types : undefined, cursor },
+    signal,
+    paramsSerializer: { indexes: null },
+  });
+};
+
+const searchService = {
+  search,
+};
+
+export default searchService;
@@ -1,5 +1,6 @@
 // src/services/userService.js
 import api from './api';
+import { fetchNames } from './nameLookup';
 
 // Получить всех пользователей (для выбора исполнителей)
 const getAllUsers = () => {
@@ -11,6 +12,9 @@ const getUserById = (id) => {
     return api.get(`/users/${id}`);
 }
 
+// ФИО пользователей одним запросом: { id: fullName }; отсутствующие id в ответе пропускаются
+const getUserNames = (ids, signal) => fetchNames('/users', ids, signal);
+
 const partialUpdateUser = (id, partialUserData) => {
   return api.patch(`/users/${id}`, partialUserData);
 };
@@ -32,6 +36,7 @@ const deleteUser = (id) => {
 const userService = {
   getAllUsers,
   getUserById,
+  getUserNames,
   partialUpdateUser,
   updateUser,
   deleteUser,
@@ -34,4 +34,35 @@ export const getFileTypeIcon = (filename) => {
     }
 };
 
+// Форматы, для которых сервер строит миниатюру (/documents/{id}/preview)
+const PREVIEW_EXTENSIONS = ['jpg', 'jpeg', 'png', 'gif', 'bmp', 'tiff', 'pdf'];
+
+/**
+ * Есть ли у файла миниатюра на сервере.
+ * @param {string | undefined | null} filename - Имя файла.
+ * @returns {boolean}
+ */
+export const hasPreview = (filename) => {
+    if (!filename) return false;
+    const lastDotIndex = filename.lastIndexOf(".");
+    if (lastDotIndex === -1) return false;
+    return PREVIEW_EXTENSIONS.includes(filename.substring(lastDotIndex + 1).toLowerCase());
+};
+
+/**
+ * Сохраняет полученный с сервера Blob как файл через временную ссылку.
+ * @param {Blob} blob - Содержимое файла (axios с responseType: 'blob').
+ * @param {string} filename - Имя сохраняемого файла.
+ */
+export const saveBlobAsFile = (blob, filename) => {
+    const url = window.URL.createObjectURL(blob);
+    const link = document.createElement('a');
+    link.href = url;
+    link.download = filename;
+    document.body.appendChild(link);
+    link.click();
+    link.remove();
+    window.URL.revokeObjectURL(url);
+};
+
 // Можно добавить другие утилиты для файлов сюда в будущем
\ No newline at end of file
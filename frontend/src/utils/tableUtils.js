@@ -4,54 +4,15 @@
  * Фильтрует массив данных на основе предоставленных фильтров.
  * @param {Array} data - Исходный массив объектов.
  * @param {Object} filters - Объект с фильтрами.
- *                            Для ReportListPage: { planId, reportingUserId, year, quarter, assessed, createdFrom, createdTo }
  *                            Для PlanListPage: { searchTerm, startDate, endDate, targetMin, targetMax }
- * @param {String} entityType - Тип сущности ('reports' или 'plans'), чтобы знать, какие поля фильтровать.
+ * @param {String} entityType - Тип сущности ('plans' или 'users'; отчеты фильтрует сервер), чтобы знать, какие поля фильтровать.
  * @returns {Array} - Отфильтрованный массив.
  */
 export const filterData = (data, filters, entityType) => {
     if (!data) return [];
     let filteredData = [...data];
 
-    if (entityType === 'reports') {
-        const {
-            planId: filterPlanId,
-            reportingUserId: filterReportingUserId,
-            year: filterYear,
-            quarter: filterQuarter,
-            assessed: filterAssessed,
-            createdFrom: filterCreatedFrom,
-            createdTo: filterCreatedTo
-        } = filters;
-
-        if (filterPlanId) {
-            const planIdNum = parseInt(filterPlanId, 10);
-            if (!isNaN(planIdNum)) filteredData = filteredData.filter(item => item.planId === planIdNum);
-        }
-        if (filterReportingUserId) {
-            const userIdNum = parseInt(filterReportingUserId, 10);
-            if (!isNaN(userIdNum)) filteredData = filteredData.filter(item => item.reportingUserId === userIdNum);
-        }
-        if (filterYear) {
-            const yearNum = parseInt(filterYear, 10);
-            if (!isNaN(yearNum)) filteredData = filteredData.filter(item => item.year === yearNum);
-        }
-        if (filterQuarter) {
-            const quarterNum = parseInt(filterQuarter, 10);
-            if (!isNaN(quarterNum)) filteredData = filteredData.filter(item => item.quarter === quarterNum);
-        }
-        if (filterAssessed === 'yes') filteredData = filteredData.filter(item => item.analystAssessmentScore !== null);
-        else if (filterAssessed === 'no') filteredData = filteredData.filter(item => item.analystAssessmentScore === null);
-
-        if (filterCreatedFrom) {
-            const dateFrom = new Date(filterCreatedFrom); dateFrom.setHours(0,0,0,0);
-            filteredData = filteredData.filter(item => item.createdAt && new Date(item.createdAt) >= dateFrom);
-        }
-        if (filterCreatedTo) {
-            const dateTo = new Date(filterCreatedTo); dateTo.setHours(23,59,59,999);
-            filteredData = filteredData.filter(item => item.createdAt && new Date(item.createdAt) <= dateTo);
-        }
-    } else if (entityType === 'plans') {
+    if (entityType === 'plans') {
         const {
             searchTerm,
             startDate: filterStartDate,